@@ -10,6 +10,9 @@ import static ui.EscapeSequences.*;
 
 public class GameplayUI {
 
+    private static final int ANALYSIS_LINES = 3;
+    private static final int ANALYSIS_DEPTH = 10;
+
     private static GameplayUI currentInstance;
     private ChessGame chessGame;
     private final Scanner scanner;
@@ -61,6 +64,8 @@ public class GameplayUI {
                 highlightLegalMoves();
             } else if (command.equals("move")) {
                 makeMove();
+            } else if (command.equals("analyze")) {
+                analyze();
             } else {
                 System.out.println("Unknown command. Type 'help' for a list of commands.");
             }
@@ -80,6 +85,8 @@ public class GameplayUI {
                 redrawBoard();
             } else if (command.equals("highlight")) {
                 highlightLegalMoves();
+            } else if (command.equals("analyze")) {
+                analyze();
             } else if (command.equals("leave")) {
                 leaveGame();
                 break;
@@ -97,6 +104,7 @@ public class GameplayUI {
         System.out.println("move - Make a move (e.g., 'e2 e4')");
         System.out.println("resign - Resign the game");
         System.out.println("highlight - Highlight legal moves for a piece");
+        System.out.println("analyze - Show the engine's best lines for the position");
     }
     private void displayObserverHelp(){
         System.out.println("Available Commands for Observers:");
@@ -104,11 +112,16 @@ public class GameplayUI {
         System.out.println("redraw - Redraw the chessboard");
         System.out.println("leave - Stop observing the game");
         System.out.println("highlight - Highlight legal moves for a piece");
+        System.out.println("analyze - Show the engine's best lines for the position");
     }
     private void redrawBoard() {
         System.out.println("Redrawing the board...");
         renderBoard(null);
     }
+    private void analyze() throws IOException {
+        System.out.println("Analyzing... lines update as the engine searches deeper.");
+        server.analyze(gameID, ANALYSIS_LINES, ANALYSIS_DEPTH);
+    }
     private void leaveGame() throws IOException {
         System.out.println("You have left the game. Returning to main menu...");
         server.leave(gameID);
@@ -255,7 +268,7 @@ public class GameplayUI {
 
             for (int col = 0; col < 8; col++) {
                 int adjustedCol = isWhiteAtBottom ? col : 7 - col;
-                ChessPosition currentPos = new ChessPosition(row + 1, adjustedCol + 1);
+                ChessPosition currentPos = ChessPosition.of(row + 1, adjustedCol + 1);
                 ChessPiece piece = chessGame.getBoard().getPiece(currentPos);
 
                 // Set square background color
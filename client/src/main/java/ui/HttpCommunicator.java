@@ -2,7 +2,7 @@ package ui;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
-import model.GameData;
+import model.GameSummary;
 import model.ListGames;
 
 import java.io.*;
@@ -67,7 +67,7 @@ public class HttpCommunicator {
         return ((Double) resp.get("gameID")).intValue();
     }
 
-    public HashSet<GameData> listGames() {
+    public HashSet<GameSummary> listGames() {
         String resp = sendGetRequest("/game");
         if (resp.contains("Error")) {
             return new HashSet<>();
@@ -1,6 +1,6 @@
 package ui;
 
-import model.GameData;
+import model.GameSummary;
 
 import java.io.IOException;
 import java.util.*;
@@ -11,7 +11,7 @@ public class PostloginUI {
 
     private final ServerFacade server;
     private final Scanner scanner = new Scanner(System.in);
-    private HashSet<GameData> gameList;
+    private HashSet<GameSummary> gameList;
 
     public PostloginUI(ServerFacade server) {
         this.server = server;
@@ -107,7 +107,7 @@ public class PostloginUI {
             out.println("Invalid command. Usage: join <NUMBER> [WHITE|BLACK]");
             return;
         }
-        GameData selectedGame = getGameData(tokens);
+        GameSummary selectedGame = getGameData(tokens);
         if (selectedGame == null) {
             return;
         }
@@ -124,7 +124,7 @@ public class PostloginUI {
         }
     }
 
-    private GameData getGameData(String[] tokens) {
+    private GameSummary getGameData(String[] tokens) {
         int gameNumber;
         try {
             gameNumber = Integer.parseInt(tokens[1]);
@@ -136,8 +136,8 @@ public class PostloginUI {
             out.println("Invalid game number. Use 'list' to view available games.");
             return null;
         }
-        List<GameData> gameDataList = new ArrayList<>(gameList);
-        GameData selectedGame = gameDataList.get(gameNumber - 1);
+        List<GameSummary> gameDataList = new ArrayList<>(gameList);
+        GameSummary selectedGame = gameDataList.get(gameNumber - 1);
         return selectedGame;
     }
 
@@ -147,7 +147,7 @@ public class PostloginUI {
             out.println("Invalid command. Usage: observe <ID>");
             return;
         }
-        GameData selectedGame = getGameData(tokens);
+        GameSummary selectedGame = getGameData(tokens);
         if (selectedGame == null) {
             return;
         }
@@ -3,7 +3,7 @@ package ui;
 import chess.ChessGame;
 import chess.ChessMove;
 import com.google.gson.Gson;
-import model.GameData;
+import model.GameSummary;
 import websocket.commands.*;
 
 import java.io.IOException;
@@ -58,7 +58,7 @@ public class ServerFacade {
         return http.createGame(gameName);
     }
 
-    public HashSet<GameData> listGames() {
+    public HashSet<GameSummary> listGames() {
         return http.listGames();
     }
 
@@ -107,6 +107,10 @@ public class ServerFacade {
         sendCommand(new Resign(authToken, gameID));
     }
 
+    public void analyze(int gameID, int lines, int depth) throws IOException {
+        sendCommand(new Analyze(authToken, gameID, lines, depth));
+    }
+
 
 }
 
@@ -1,8 +1,11 @@
 package ui;
 
 import chess.ChessGame;
+import chess.ChessMove;
+import chess.Move;
 import com.google.gson.Gson;
 import websocket.commands.Connect;
+import websocket.messages.Analysis;
 import websocket.messages.Error;
 import websocket.messages.LoadGame;
 import websocket.messages.Notification;
@@ -51,6 +54,8 @@ public class WebsocketCommunicator extends Endpoint {
             handleError(message);
         } else if (message.contains("\"serverMessageType\":\"LOAD_GAME\"")) {
             handleLoadGame(message);
+        } else if (message.contains("\"serverMessageType\":\"ANALYSIS\"")) {
+            handleAnalysis(message);
         } else {
             System.out.println("Unknown message received: " + message);
         }
@@ -91,9 +96,25 @@ public class WebsocketCommunicator extends Endpoint {
         GameplayUI gameplayUI = GameplayUI.getInstance(server, loadGame.getGameID(), game.getTeamTurn() == ChessGame.TeamColor.WHITE);
         gameplayUI.updateGame(game);
         gameplayUI.displayBoard();
+        System.out.printf("Evaluation: %+.2f%n", loadGame.getEvaluation() / 100.0);
         System.out.print("[IN-GAME] >>> ");
     }
 
+    private void handleAnalysis(String message) {
+        Analysis analysis = gson.fromJson(message, Analysis.class);
+        StringBuilder out = new StringBuilder();
+        out.append(analysis.isComplete() ? "Analysis complete" : "Analysis").append(", depth ")
+                .append(analysis.getDepth()).append(':');
+        for (Analysis.Line line : analysis.getLines()) {
+            out.append('\n').append(line.mateIn() != 0 ? "  #%+d ".formatted(line.mateIn())
+                    : "  %+.2f ".formatted(line.score() / 100.0));
+            for (ChessMove move : line.moves()) {
+                out.append(' ').append(Move.toString(Move.encode(move)));
+            }
+        }
+        printNotification(out.toString());
+    }
+
     private void printNotification(String message) {
         System.out.print(ERASE_LINE + "\r");
         System.out.printf("\n%s\n[IN-GAME] >>> ", message);
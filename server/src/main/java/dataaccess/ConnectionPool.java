@@ -0,0 +1,466 @@
+package dataaccess;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded pool of JDBC connections behind {@link DatabaseManager#getConnection()}.
+ * Callers get a proxy whose {@code close()} hands the connection back instead
+ * of closing it, so DAOs keep their try-with-resources blocks unchanged.
+ * <p>
+ * The pool opens connections on demand up to its maximum size and then makes
+ * borrowers wait, up to a timeout. Connections idle for more than a second are
+ * checked with {@link Connection#isValid} before being handed out, and broken
+ * ones are replaced. A housekeeping thread closes connections idle for too
+ * long while more than the minimum are open, tops the pool back up to the
+ * minimum, and can report connections borrowed for longer than a leak
+ * threshold along with the stack that borrowed them. Leak tracking is meant
+ * for debugging, since it captures a stack trace on every borrow.
+ * <p>
+ * Each connection keeps a {@link StatementCache}, so a DAO preparing the same
+ * SQL on a reused connection gets the statement already parsed.
+ */
+public final class ConnectionPool {
+
+    private static final long VALIDATE_AFTER_MILLIS = 1_000;
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    /**
+     * Opens a new physical connection.
+     */
+    @FunctionalInterface
+    interface Factory {
+        Connection open() throws SQLException;
+    }
+
+    /**
+     * @param minSize             connections kept open even when idle
+     * @param maxSize             most connections open at once
+     * @param borrowTimeoutMillis longest a borrower waits for a connection
+     * @param idleTimeoutMillis   how long a connection above the minimum may sit idle
+     * @param leakThresholdMillis how long a connection may be borrowed before it
+     *                            is reported as leaked, or 0 to not track leaks;
+     *                            tracking captures a stack trace per borrow
+     * @param statementCacheSize  prepared statements kept per connection, or 0
+     *                            to not cache them
+     */
+    record Settings(int minSize, int maxSize, long borrowTimeoutMillis, long idleTimeoutMillis,
+                    long leakThresholdMillis, int statementCacheSize) {
+
+        Settings {
+            if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+                throw new IllegalArgumentException("Pool sizes must satisfy 0 <= min <= max and max >= 1");
+            }
+            if (borrowTimeoutMillis < 1 || idleTimeoutMillis < 1 || leakThresholdMillis < 0) {
+                throw new IllegalArgumentException("Pool timeouts must be positive");
+            }
+            if (statementCacheSize < 0) {
+                throw new IllegalArgumentException("Statement cache size must not be negative");
+            }
+        }
+    }
+
+    /**
+     * A snapshot of the pool's counters.
+     *
+     * @param active          connections borrowed right now
+     * @param idle            connections open and waiting to be borrowed
+     * @param borrows         connections handed out since the pool started
+     * @param created         physical connections opened
+     * @param waitNanos       total time borrowers spent waiting, including opening connections
+     * @param timeouts        borrowers that gave up waiting
+     * @param invalid         connections that failed validation and were replaced
+     * @param leaks           connections reported as leaked
+     * @param statementHits   statements prepared from the cache
+     * @param statementMisses statements the driver had to prepare
+     */
+    public record Stats(int active, int idle, long borrows, long created, long waitNanos, long timeouts,
+                        long invalid, long leaks, long statementHits, long statementMisses) {
+
+        /**
+         * @return the mean time to get a connection, in milliseconds
+         */
+        public double meanWaitMillis() {
+            return borrows == 0 ? 0 : waitNanos / 1e6 / borrows;
+        }
+    }
+
+    private record Idle(Connection connection, long returnedAt) {
+    }
+
+    private final Factory factory;
+    private final Settings settings;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    /**
+     * Most recently returned first, so a quiet pool keeps reusing the same
+     * few connections and the rest age out.
+     */
+    private final Deque<Idle> idle = new ArrayDeque<>();
+    private final Set<Lease> leased = ConcurrentHashMap.newKeySet();
+    private final Map<Connection, StatementCache> statements = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService housekeeper;
+    private int open;
+    private boolean closed;
+
+    private final LongAdder borrows = new LongAdder();
+    private final LongAdder created = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder invalid = new LongAdder();
+    private final LongAdder leaks = new LongAdder();
+    private final LongAdder statementHits = new LongAdder();
+    private final LongAdder statementMisses = new LongAdder();
+
+    ConnectionPool(Factory factory, Settings settings) {
+        this.factory = factory;
+        this.settings = settings;
+        housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(100, Math.min(settings.idleTimeoutMillis(),
+                settings.leakThresholdMillis() > 0 ? settings.leakThresholdMillis() : Long.MAX_VALUE) / 2);
+        housekeeper.scheduleWithFixedDelay(this::houseKeep, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Hands out an idle connection, or opens one if the pool is below its
+     * maximum, or waits for one to be returned.
+     *
+     * @throws SQLTransientConnectionException if none becomes free in time
+     * @throws SQLException                    if a new connection cannot be opened
+     */
+    Connection borrow() throws SQLException {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(settings.borrowTimeoutMillis());
+        while (true) {
+            Idle reused = null;
+            lock.lock();
+            try {
+                while (idle.isEmpty() && open >= settings.maxSize() && !closed) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        timeouts.increment();
+                        throw new SQLTransientConnectionException(
+                                "Timed out after %d ms waiting for a database connection; %d of %d in use".formatted(
+                                        settings.borrowTimeoutMillis(), leased.size(), settings.maxSize()));
+                    }
+                    try {
+                        available.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLTransientConnectionException("Interrupted waiting for a database connection");
+                    }
+                }
+                if (closed) {
+                    throw new SQLException("The connection pool is closed");
+                }
+                if (!idle.isEmpty()) {
+                    reused = idle.pollFirst();
+                } else {
+                    open++;
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            Connection physical;
+            if (reused == null) {
+                physical = openConnection();
+            } else if (needsValidation(reused) && !isValid(reused.connection())) {
+                invalid.increment();
+                discard(reused.connection());
+                continue;
+            } else {
+                physical = reused.connection();
+            }
+            waitNanos.add(System.nanoTime() - start);
+            borrows.increment();
+            return lease(physical);
+        }
+    }
+
+    /**
+     * @return the current counters
+     */
+    public Stats stats() {
+        int idleCount;
+        lock.lock();
+        try {
+            idleCount = idle.size();
+        } finally {
+            lock.unlock();
+        }
+        return new Stats(leased.size(), idleCount, borrows.sum(), created.sum(), waitNanos.sum(), timeouts.sum(),
+                invalid.sum(), leaks.sum(), statementHits.sum(), statementMisses.sum());
+    }
+
+    /**
+     * Closes the idle connections and stops housekeeping. Borrowed
+     * connections are closed as they are returned.
+     */
+    void close() {
+        housekeeper.shutdownNow();
+        List<Idle> closing;
+        lock.lock();
+        try {
+            closed = true;
+            closing = new ArrayList<>(idle);
+            idle.clear();
+            open -= closing.size();
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        for (Idle entry : closing) {
+            closeQuietly(entry.connection());
+        }
+    }
+
+    /**
+     * Opens a physical connection for a slot already counted in {@link #open}.
+     */
+    private Connection openConnection() throws SQLException {
+        try {
+            Connection physical = factory.open();
+            created.increment();
+            if (settings.statementCacheSize() > 0) {
+                statements.put(physical, new StatementCache(physical, settings.statementCacheSize(),
+                        statementHits, statementMisses));
+            }
+            return physical;
+        } catch (SQLException | RuntimeException e) {
+            release();
+            throw e;
+        }
+    }
+
+    private Connection lease(Connection physical) {
+        Lease lease = new Lease(physical, statements.get(physical), settings.leakThresholdMillis() > 0
+                ? new Throwable("Connection borrowed here") : null);
+        leased.add(lease);
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, lease);
+    }
+
+    /**
+     * Takes a connection back from a borrower, resetting what a DAO may have
+     * changed, or drops it if it no longer works.
+     */
+    private void giveBack(Lease lease) {
+        leased.remove(lease);
+        Connection physical = lease.physical;
+        if (lease.statements != null) {
+            lease.statements.releaseAll();
+        }
+        try {
+            if (physical.isClosed()) {
+                release();
+                return;
+            }
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            discard(physical);
+            return;
+        }
+        lock.lock();
+        try {
+            if (!closed) {
+                idle.addFirst(new Idle(physical, System.currentTimeMillis()));
+                available.signal();
+                return;
+            }
+            open--;
+        } finally {
+            lock.unlock();
+        }
+        closeQuietly(physical);
+    }
+
+    private void discard(Connection physical) {
+        closeQuietly(physical);
+        release();
+    }
+
+    /**
+     * Frees the slot of a connection that is gone.
+     */
+    private void release() {
+        lock.lock();
+        try {
+            open--;
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static boolean needsValidation(Idle entry) {
+        return System.currentTimeMillis() - entry.returnedAt() > VALIDATE_AFTER_MILLIS;
+    }
+
+    private static boolean isValid(Connection connection) {
+        try {
+            return connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void closeQuietly(Connection connection) {
+        statements.remove(connection);
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+            // The connection is being dropped either way.
+        }
+    }
+
+    void houseKeep() {
+        long now = System.currentTimeMillis();
+        List<Connection> expired = new ArrayList<>();
+        lock.lock();
+        try {
+            Iterator<Idle> oldestFirst = idle.descendingIterator();
+            while (oldestFirst.hasNext() && open > settings.minSize()) {
+                Idle entry = oldestFirst.next();
+                if (now - entry.returnedAt() <= settings.idleTimeoutMillis()) {
+                    break;
+                }
+                oldestFirst.remove();
+                open--;
+                expired.add(entry.connection());
+            }
+        } finally {
+            lock.unlock();
+        }
+        expired.forEach(this::closeQuietly);
+
+        if (settings.leakThresholdMillis() > 0) {
+            for (Lease lease : leased) {
+                if (now - lease.borrowedAt > settings.leakThresholdMillis() && !lease.reported) {
+                    lease.reported = true;
+                    leaks.increment();
+                    System.err.printf("Possible connection leak: borrowed %d ms ago and not returned%n",
+                            now - lease.borrowedAt);
+                    lease.borrower.printStackTrace();
+                }
+            }
+        }
+
+        fillToMinimum();
+    }
+
+    /**
+     * Opens connections until the minimum is met, once the pool has been
+     * used; before that the database may not exist yet.
+     */
+    private void fillToMinimum() {
+        while (created.sum() > 0) {
+            lock.lock();
+            try {
+                if (closed || open >= settings.minSize()) {
+                    return;
+                }
+                open++;
+            } finally {
+                lock.unlock();
+            }
+            Connection physical;
+            try {
+                physical = openConnection();
+            } catch (SQLException | RuntimeException e) {
+                return;
+            }
+            lock.lock();
+            try {
+                idle.addLast(new Idle(physical, System.currentTimeMillis()));
+                available.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * One borrowing of a connection, and the proxy handler the borrower
+     * sees. Closing it twice returns it once; using it after closing fails.
+     */
+    private final class Lease implements InvocationHandler {
+
+        final Connection physical;
+        final StatementCache statements;
+        final Throwable borrower;
+        final long borrowedAt = System.currentTimeMillis();
+        final AtomicBoolean returned = new AtomicBoolean();
+        volatile boolean reported;
+
+        Lease(Connection physical, StatementCache statements, Throwable borrower) {
+            this.physical = physical;
+            this.statements = statements;
+            this.borrower = borrower;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (returned.compareAndSet(false, true)) {
+                        giveBack(this);
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return returned.get() || physical.isClosed();
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "Pooled " + physical;
+                }
+                default -> {
+                }
+            }
+            if (returned.get()) {
+                throw new SQLException("Connection has been returned to the pool");
+            }
+            if (statements != null && method.getName().equals("prepareStatement") && args.length == 1) {
+                return statements.prepare((Connection) proxy, (String) args[0]);
+            }
+            try {
+                return method.invoke(physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -8,6 +8,8 @@ public class DatabaseManager {
     private static final String USER;
     private static final String PASSWORD;
     private static final String CONNECTION_URL;
+    private static final Properties DRIVER_PROPERTIES = new Properties();
+    private static final ConnectionPool POOL;
 
     /*
      * Load the database information for the db.properties file.
@@ -27,6 +29,26 @@ public class DatabaseManager {
                 var host = props.getProperty("db.host");
                 var port = Integer.parseInt(props.getProperty("db.port"));
                 CONNECTION_URL = String.format("jdbc:mysql://%s:%d", host, port);
+
+                // Statements are parsed once by the server and reused by the pool's per-connection cache
+                DRIVER_PROPERTIES.setProperty("user", USER);
+                DRIVER_PROPERTIES.setProperty("password", PASSWORD);
+                DRIVER_PROPERTIES.setProperty("useServerPrepStmts", props.getProperty("db.serverPrepare", "true"));
+                DRIVER_PROPERTIES.setProperty("cachePrepStmts", props.getProperty("db.serverPrepare", "true"));
+                DRIVER_PROPERTIES.setProperty("prepStmtCacheSize", props.getProperty("db.prepStmtCacheSize", "64"));
+                DRIVER_PROPERTIES.setProperty("prepStmtCacheSqlLimit", "2048");
+                // Batches of logged moves go out as one multi-row insert
+                DRIVER_PROPERTIES.setProperty("rewriteBatchedStatements", "true");
+
+                // db.pool.leakThresholdMillis is a debugging switch, off by default: while it is on,
+                // every borrow captures a stack trace to report if the connection is held too long
+                POOL = new ConnectionPool(DatabaseManager::openConnection, new ConnectionPool.Settings(
+                        Integer.parseInt(props.getProperty("db.pool.minSize", "2")),
+                        Integer.parseInt(props.getProperty("db.pool.maxSize", "10")),
+                        Long.parseLong(props.getProperty("db.pool.borrowTimeoutMillis", "5000")),
+                        Long.parseLong(props.getProperty("db.pool.idleTimeoutMillis", "300000")),
+                        Long.parseLong(props.getProperty("db.pool.leakThresholdMillis", "0")),
+                        Integer.parseInt(props.getProperty("db.pool.statementCacheSize", "32"))));
             }
         } catch (Exception ex) {
             throw new RuntimeException("unable to process db.properties. " + ex.getMessage());
@@ -39,8 +61,8 @@ public class DatabaseManager {
     static void createDatabase() throws DataAccessException {
         try {
             var statement = "CREATE DATABASE IF NOT EXISTS " + DATABASE_NAME;
-            var conn = DriverManager.getConnection(CONNECTION_URL, USER, PASSWORD);
-            try (var preparedStatement = conn.prepareStatement(statement)) {
+            try (var conn = DriverManager.getConnection(CONNECTION_URL, USER, PASSWORD);
+                 var preparedStatement = conn.prepareStatement(statement)) {
                 preparedStatement.executeUpdate();
             }
         } catch (SQLException e) {
@@ -49,9 +71,14 @@ public class DatabaseManager {
     }
 
     /**
-     * Create a connection to the database and sets the catalog based upon the
+     * Borrow a connection from the pool, with the catalog set based upon the
      * properties specified in db.properties. Connections to the database should
-     * be short-lived, and you must close the connection when you are done with it.
+     * be short-lived, and you must close the connection when you are done with it;
+     * closing it returns it to the pool. Statements prepared on it are cached per
+     * connection, so closing them keeps them for the next caller with the same SQL.
+     * Pool sizes, timeouts and the statement cache size can be set with the
+     * optional db.pool.* properties, and server-side prepare turned off with
+     * db.serverPrepare=false.
      * The easiest way to do that is with a try-with-resource block.
      * <br/>
      * <code>
@@ -62,11 +89,27 @@ public class DatabaseManager {
      */
     static Connection getConnection() throws DataAccessException {
         try {
-            var conn = DriverManager.getConnection(CONNECTION_URL, USER, PASSWORD);
+            return POOL.borrow();
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
+    /**
+     * @return the connection pool's current counters
+     */
+    public static ConnectionPool.Stats poolStats() {
+        return POOL.stats();
+    }
+
+    private static Connection openConnection() throws SQLException {
+        var conn = DriverManager.getConnection(CONNECTION_URL, DRIVER_PROPERTIES);
+        try {
             conn.setCatalog(DATABASE_NAME);
             return conn;
         } catch (SQLException e) {
-            throw new DataAccessException(e.getMessage());
+            conn.close();
+            throw e;
         }
     }
 
@@ -1,6 +1,8 @@
 package dataaccess;
 
 import model.GameData;
+import model.GameMove;
+import model.GameSummary;
 
 import java.util.List;
 
@@ -8,9 +10,11 @@ public interface GameDAO{
     void createGame(GameData game) throws DataAccessException;
     GameData getGame(int gameID) throws DataAccessException;
     void updateGame(String s, GameData updatedGame) throws DataAccessException;
+    void appendMoves(List<GameData> updatedGames, List<GameMove> moves) throws DataAccessException;
+    void recordMove(GameData game, int move) throws DataAccessException;
 //    void deleteGame(int gameID);
     void clear();
-    List<GameData> listGames();
+    List<GameSummary> listGames();
     boolean gameExists(int gameID) throws DataAccessException;
 
 }
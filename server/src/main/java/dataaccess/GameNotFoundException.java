@@ -0,0 +1,10 @@
+package dataaccess;
+
+/**
+ * Indicates the game asked for is not stored, as opposed to the store failing
+ */
+public class GameNotFoundException extends DataAccessException {
+    public GameNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -1,6 +1,8 @@
 package dataaccess;
 
 import model.GameData;
+import model.GameMove;
+import model.GameSummary;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -32,7 +34,7 @@ public class MemoryGameDAO implements GameDAO {
                 return game;
             }
         }
-        throw new DataAccessException("Game not found.");
+        throw new GameNotFoundException("Game not found.");
     }
     @Override
     public void updateGame(String s, GameData updatedGame) {
@@ -40,14 +42,29 @@ public class MemoryGameDAO implements GameDAO {
         games.add(updatedGame);
     }
 
+    @Override
+    public void appendMoves(List<GameData> updatedGames, List<GameMove> moves) {
+        updatedGames.forEach(game -> updateGame(String.valueOf(game.gameID()), game));
+    }
+
+    @Override
+    public void recordMove(GameData game, int move) {
+        updateGame(String.valueOf(game.gameID()), game);
+    }
+
     @Override
     public void clear() {
         games.clear();
     }
 
     @Override
-    public List<GameData> listGames() {
-        return new ArrayList<>(games);
+    public List<GameSummary> listGames() {
+        List<GameSummary> listed = new ArrayList<>();
+        for (GameData game : games) {
+            listed.add(new GameSummary(game.gameID(), game.whiteUsername(), game.blackUsername(), game.gameName(),
+                    game.game().getGameOver()));
+        }
+        return listed;
     }
     @Override
     public boolean gameExists(int gameID) {
@@ -0,0 +1,202 @@
+package dataaccess;
+
+import model.GameMove;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * Append-only local file of the moves played since games were last written
+ * to the database, read back after a crash to replay them. Each record is a
+ * {@link GameMove} in twenty bytes: the game ID, the ply, the packed
+ * {@link chess.Move} and the time it was played. A partial record left by a
+ * crash mid-write is ignored.
+ * <p>
+ * The journal is kept in numbered segments next to its path, such as
+ * chess-moves.journal.3, and appended to the newest. {@link #rotate} starts a
+ * new segment, so the older ones can be deleted with {@link #release} once
+ * their moves are written, without stopping appends in the meantime.
+ * <p>
+ * Appends are written to the operating system without forcing them to disk,
+ * so the journal survives the server process dying but not the machine
+ * losing power.
+ * <p>
+ * The file at the journal's path is locked while open, so two servers can
+ * never share a journal and replay or empty each other's moves.
+ */
+final class MoveJournal implements AutoCloseable {
+
+    static final int RECORD_BYTES = 20;
+    /**
+     * Records read at a time when the journal is replayed.
+     */
+    private static final int READ_RECORDS = 4096;
+
+    private final Path path;
+    private final FileChannel lockChannel;
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+    private FileChannel channel;
+    private long oldest;
+    private long current;
+
+    /**
+     * Opens the journal and starts a new segment after any left by an
+     * earlier server, which stay to be read.
+     *
+     * @throws IOException if the file cannot be opened, or another server has it open
+     */
+    MoveJournal(Path path) throws IOException {
+        this.path = path;
+        lockChannel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+        if (lock == null) {
+            lockChannel.close();
+            throw new IOException("The move journal " + path + " is in use by another server");
+        }
+
+        long first = Long.MAX_VALUE;
+        long last = 0;
+        String prefix = path.getFileName() + ".";
+        try (DirectoryStream<Path> segments = Files.newDirectoryStream(directory(), prefix + "*")) {
+            for (Path segment : segments) {
+                long number = number(segment.getFileName().toString().substring(prefix.length()));
+                if (number > 0) {
+                    first = Math.min(first, number);
+                    last = Math.max(last, number);
+                }
+            }
+        } catch (IOException e) {
+            lockChannel.close();
+            throw e;
+        }
+        current = last + 1;
+        oldest = Math.min(first, current);
+        try {
+            channel = openSegment(current);
+        } catch (IOException e) {
+            lockChannel.close();
+            throw e;
+        }
+    }
+
+    synchronized void append(GameMove move) throws IOException {
+        record.clear();
+        record.putInt(move.gameID()).putInt(move.ply()).putInt(move.move()).putLong(move.playedAt()).flip();
+        while (record.hasRemaining()) {
+            channel.write(record);
+        }
+    }
+
+    /**
+     * Passes every complete record to the action, oldest first, a few
+     * thousand at a time.
+     */
+    synchronized void read(Consumer<GameMove> action) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(READ_RECORDS * RECORD_BYTES);
+        for (long number = oldest; number <= current; number++) {
+            FileChannel segment;
+            try {
+                segment = FileChannel.open(segment(number), StandardOpenOption.READ);
+            } catch (NoSuchFileException e) {
+                continue;
+            }
+            try (segment) {
+                buffer.clear();
+                while (segment.read(buffer) >= 0) {
+                    buffer.flip();
+                    while (buffer.remaining() >= RECORD_BYTES) {
+                        action.accept(new GameMove(buffer.getInt(), buffer.getInt(), buffer.getInt(),
+                                buffer.getLong()));
+                    }
+                    buffer.compact();
+                }
+            }
+        }
+    }
+
+    /**
+     * Starts a new segment for later appends.
+     *
+     * @return the last segment before it, to {@link #release} once the moves
+     *         in it and every earlier one are written or appended again
+     */
+    synchronized long rotate() throws IOException {
+        FileChannel next = openSegment(current + 1);
+        channel.close();
+        channel = next;
+        return current++;
+    }
+
+    /**
+     * Deletes the segments up to and including the one given.
+     */
+    synchronized void release(long through) throws IOException {
+        for (; oldest <= through && oldest < current; oldest++) {
+            Files.deleteIfExists(segment(oldest));
+        }
+    }
+
+    /**
+     * Empties the journal, once every move in it is in the database.
+     */
+    synchronized void truncate() throws IOException {
+        release(current - 1);
+        channel.truncate(0);
+        channel.position(0);
+    }
+
+    synchronized boolean isEmpty() throws IOException {
+        return oldest == current && channel.size() == 0;
+    }
+
+    /**
+     * Closes the journal, deleting its segment if nothing is left in it.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try (lockChannel) {
+            boolean empty = isEmpty();
+            channel.close();
+            if (empty) {
+                Files.deleteIfExists(segment(current));
+            }
+        }
+    }
+
+    private FileChannel openSegment(long number) throws IOException {
+        FileChannel segment = FileChannel.open(segment(number), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment.position(segment.size() - segment.size() % RECORD_BYTES);
+        return segment;
+    }
+
+    private Path segment(long number) {
+        return directory().resolve(path.getFileName() + "." + number);
+    }
+
+    private Path directory() {
+        return path.toAbsolutePath().getParent();
+    }
+
+    private static long number(String suffix) {
+        try {
+            return Long.parseLong(suffix);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -3,20 +3,51 @@ package dataaccess;
 import chess.ChessGame;
 import com.google.gson.Gson;
 import model.GameData;
+import model.GameMove;
+import model.GameSummary;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
+/**
+ * Stores each game as a snapshot row in {@code game} plus an append-only log
+ * of its moves in {@code game_move}. A move writes one small row; the whole
+ * game is rewritten only every {@code snapshotPlies} plies, when it ends, or
+ * when its players change. Reading a game replays the moves played since its
+ * snapshot, and the log keeps the full history of every game. The lobby
+ * listing reads only the player, name and {@code gameOver} columns.
+ */
 public class SQLGameDAO implements GameDAO {
 
+    public static final int DEFAULT_SNAPSHOT_PLIES = 20;
+
+    private static final String UPDATE_SQL =
+            "UPDATE game SET whiteUsername=?, blackUsername=?, gameName=?, chessGame=?, snapshotPly=?, gameOver=? "
+            + "WHERE gameID=?";
+
     private final Gson gson;
+    private final int snapshotPlies;
 
     public SQLGameDAO() {
+        this(DEFAULT_SNAPSHOT_PLIES);
+    }
+
+    /**
+     * @param snapshotPlies how many plies may be played between snapshots
+     */
+    public SQLGameDAO(int snapshotPlies) {
+        if (snapshotPlies < 1) {
+            throw new IllegalArgumentException("Snapshots must be at least one ply apart");
+        }
         gson = new Gson();
+        this.snapshotPlies = snapshotPlies;
         initializeDatabase();
     }
 
@@ -32,21 +63,63 @@ public class SQLGameDAO implements GameDAO {
                             blackUsername VARCHAR(255),
                             gameName VARCHAR(255),
                             chessGame TEXT,
+                            snapshotPly INT NOT NULL DEFAULT 0,
+                            gameOver BOOLEAN NOT NULL DEFAULT FALSE,
                             PRIMARY KEY (gameID)
                         )""";
                 try (PreparedStatement createTableStmt = conn.prepareStatement(createTableSQL)) {
                     createTableStmt.executeUpdate();
                 }
+                // Games created before the move log have no snapshotPly column
+                addColumn(conn, "snapshotPly", "INT NOT NULL DEFAULT 0");
+                // Nor do games created before the lobby listing have a gameOver column
+                if (addColumn(conn, "gameOver", "BOOLEAN NOT NULL DEFAULT FALSE")) {
+                    try (PreparedStatement backfillStmt = conn.prepareStatement(
+                            "UPDATE game SET gameOver=TRUE WHERE chessGame LIKE '%\"gameOver\":true%'")) {
+                        backfillStmt.executeUpdate();
+                    }
+                }
+
+                String createMoveTableSQL = """
+                        CREATE TABLE IF NOT EXISTS game_move (
+                            gameID INT NOT NULL,
+                            ply INT NOT NULL,
+                            move SMALLINT NOT NULL,
+                            playedAt TIMESTAMP(3) NOT NULL,
+                            PRIMARY KEY (gameID, ply)
+                        )""";
+                try (PreparedStatement createTableStmt = conn.prepareStatement(createMoveTableSQL)) {
+                    createTableStmt.executeUpdate();
+                }
             }
         } catch (SQLException | DataAccessException e) {
             throw new RuntimeException("Failed to initialize database: " + e.getMessage(), e);
         }
     }
 
+    // Adds a column to a game table created by an older version, returning whether it was missing
+    private boolean addColumn(Connection conn, String column, String definition) throws SQLException {
+        try (ResultSet columns = conn.getMetaData().getColumns(conn.getCatalog(), null, "game", column)) {
+            if (columns.next()) {
+                return false;
+            }
+        }
+        try (PreparedStatement alterStmt = conn.prepareStatement(
+                "ALTER TABLE game ADD COLUMN " + column + " " + definition)) {
+            alterStmt.executeUpdate();
+        }
+        return true;
+    }
+
+    /**
+     * Lists every game without reading its board. A game's {@code gameOver}
+     * column is written with its snapshot, and a game is always snapshotted
+     * when it ends.
+     */
     @Override
-    public List<GameData> listGames() {
-        HashSet<GameData> games = new HashSet<>();
-        String query = "SELECT gameID, whiteUsername, blackUsername, gameName, chessGame FROM game";
+    public List<GameSummary> listGames() {
+        List<GameSummary> games = new ArrayList<>();
+        String query = "SELECT gameID, whiteUsername, blackUsername, gameName, gameOver FROM game";
 
         try (Connection conn = DatabaseManager.getConnection();
              PreparedStatement stmt = conn.prepareStatement(query);
@@ -57,18 +130,18 @@ public class SQLGameDAO implements GameDAO {
                 String whiteUsername = results.getString("whiteUsername");
                 String blackUsername = results.getString("blackUsername");
                 String gameName = results.getString("gameName");
-                ChessGame chessGame = deserializeGame(results.getString("chessGame"));
-                games.add(new GameData(gameID, whiteUsername, blackUsername, gameName, chessGame));
+                boolean gameOver = results.getBoolean("gameOver");
+                games.add(new GameSummary(gameID, whiteUsername, blackUsername, gameName, gameOver));
             }
         } catch (SQLException | DataAccessException e) {
             e.printStackTrace();
         }
-        return games.stream().toList();
+        return games;
     }
 
     @Override
     public void createGame(GameData game) throws DataAccessException {
-        String insertSQL = "INSERT INTO game (gameID, whiteUsername, blackUsername, gameName, chessGame) VALUES(?, ?, ?, ?, ?)";
+        String insertSQL = "INSERT INTO game (gameID, whiteUsername, blackUsername, gameName, chessGame, snapshotPly, gameOver) VALUES(?, ?, ?, ?, ?, ?, ?)";
 
         try (Connection conn = DatabaseManager.getConnection();
              PreparedStatement stmt = conn.prepareStatement(insertSQL)) {
@@ -78,19 +151,28 @@ public class SQLGameDAO implements GameDAO {
             stmt.setString(3, game.blackUsername());
             stmt.setString(4, game.gameName());
             stmt.setString(5, serializeGame(game.game()));
+            stmt.setInt(6, game.game().getPly());
+            stmt.setBoolean(7, game.game().getGameOver());
             stmt.executeUpdate();
         } catch (SQLException e) {
             throw new DataAccessException("Error creating game: " + e.getMessage());
         }
     }
 
+    /**
+     * Reads the game's latest snapshot and plays the moves logged since.
+     */
     @Override
     public GameData getGame(int gameID) throws DataAccessException {
-        String query = "SELECT whiteUsername, blackUsername, gameName, chessGame FROM game WHERE gameID=?";
+        String query = "SELECT whiteUsername, blackUsername, gameName, chessGame, snapshotPly FROM game WHERE gameID=?";
+        String movesQuery = "SELECT ply, move FROM game_move WHERE gameID=? AND ply>=? ORDER BY ply";
 
         try (Connection conn = DatabaseManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
+             PreparedStatement stmt = conn.prepareStatement(query);
+             PreparedStatement movesStmt = conn.prepareStatement(movesQuery)) {
 
+            GameData game;
+            int snapshotPly;
             stmt.setInt(1, gameID);
             try (ResultSet results = stmt.executeQuery()) {
                 if (results.next()) {
@@ -98,11 +180,21 @@ public class SQLGameDAO implements GameDAO {
                     String blackUsername = results.getString("blackUsername");
                     String gameName = results.getString("gameName");
                     ChessGame chessGame = deserializeGame(results.getString("chessGame"));
-                    return new GameData(gameID, whiteUsername, blackUsername, gameName, chessGame);
+                    game = new GameData(gameID, whiteUsername, blackUsername, gameName, chessGame);
+                    snapshotPly = results.getInt("snapshotPly");
                 } else {
-                    throw new DataAccessException("Game not found with ID: " + gameID);
+                    throw new GameNotFoundException("Game not found with ID: " + gameID);
                 }
             }
+
+            movesStmt.setInt(1, gameID);
+            movesStmt.setInt(2, snapshotPly);
+            try (ResultSet results = movesStmt.executeQuery()) {
+                while (results.next()) {
+                    replayMove(game.game(), results.getInt("ply"), results.getInt("move"));
+                }
+            }
+            return game;
         } catch (SQLException e) {
             throw new DataAccessException("Error retrieving game: " + e.getMessage());
         }
@@ -127,16 +219,10 @@ public class SQLGameDAO implements GameDAO {
 
     @Override
     public void updateGame(String s, GameData game) throws DataAccessException {
-        String updateSQL = "UPDATE game SET whiteUsername=?, blackUsername=?, gameName=?, chessGame=? WHERE gameID=?";
-
         try (Connection conn = DatabaseManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(updateSQL)) {
+             PreparedStatement stmt = conn.prepareStatement(UPDATE_SQL)) {
 
-            stmt.setString(1, game.whiteUsername());
-            stmt.setString(2, game.blackUsername());
-            stmt.setString(3, game.gameName());
-            stmt.setString(4, serializeGame(game.game()));
-            stmt.setInt(5, game.gameID());
+            setSnapshot(stmt, game);
 
             int rowsUpdated = stmt.executeUpdate();
             if (rowsUpdated == 0) {
@@ -147,19 +233,95 @@ public class SQLGameDAO implements GameDAO {
         }
     }
 
+    /**
+     * Appends moves to the log in one batch and transaction, and writes a
+     * snapshot of each game whose moves reach a multiple of the snapshot
+     * interval or end it. The games must have all of their moves played.
+     * <p>
+     * Moves already in the log are left as they are, so a batch retried after
+     * a commit whose outcome was lost writes only what is missing.
+     */
+    @Override
+    public void appendMoves(List<GameData> games, List<GameMove> moves) throws DataAccessException {
+        String insertSQL = "INSERT INTO game_move (gameID, ply, move, playedAt) VALUES (?, ?, ?, ?) "
+                + "ON DUPLICATE KEY UPDATE move=move";
+        Set<Integer> snapshots = new HashSet<>();
+        for (GameMove move : moves) {
+            if ((move.ply() + 1) % snapshotPlies == 0) {
+                snapshots.add(move.gameID());
+            }
+        }
+
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement insertStmt = conn.prepareStatement(insertSQL);
+             PreparedStatement updateStmt = conn.prepareStatement(UPDATE_SQL)) {
+
+            conn.setAutoCommit(false);
+            for (GameMove move : moves) {
+                insertStmt.setInt(1, move.gameID());
+                insertStmt.setInt(2, move.ply());
+                insertStmt.setInt(3, move.move());
+                insertStmt.setTimestamp(4, new Timestamp(move.playedAt()));
+                insertStmt.addBatch();
+            }
+            insertStmt.executeBatch();
+
+            for (GameData game : games) {
+                if (snapshots.contains(game.gameID()) || game.game().getGameOver()) {
+                    setSnapshot(updateStmt, game);
+                    updateStmt.addBatch();
+                }
+            }
+            updateStmt.executeBatch();
+            conn.commit();
+        } catch (SQLException e) {
+            throw new DataAccessException("Error recording moves: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void recordMove(GameData game, int move) throws DataAccessException {
+        appendMoves(List.of(game), List.of(new GameMove(game.gameID(), game.game().getPly() - 1, move,
+                System.currentTimeMillis())));
+    }
+
     @Override
     public void clear() {
         String clearSQL = "TRUNCATE TABLE game";
+        String clearMovesSQL = "TRUNCATE TABLE game_move";
 
         try (Connection conn = DatabaseManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(clearSQL)) {
+             PreparedStatement stmt = conn.prepareStatement(clearSQL);
+             PreparedStatement movesStmt = conn.prepareStatement(clearMovesSQL)) {
 
             stmt.executeUpdate();
+            movesStmt.executeUpdate();
         } catch (SQLException | DataAccessException e) {
             e.printStackTrace();
         }
     }
 
+    private void setSnapshot(PreparedStatement stmt, GameData game) throws SQLException {
+        stmt.setString(1, game.whiteUsername());
+        stmt.setString(2, game.blackUsername());
+        stmt.setString(3, game.gameName());
+        stmt.setString(4, serializeGame(game.game()));
+        stmt.setInt(5, game.game().getPly());
+        stmt.setBoolean(6, game.game().getGameOver());
+        stmt.setInt(7, game.gameID());
+    }
+
+    // Plays a logged move if it is the game's next one; earlier ones are in the snapshot already
+    private static void replayMove(ChessGame game, int ply, int move) {
+        if (ply != game.getPly()) {
+            return;
+        }
+        game.doMove(move);
+        if (game.getStatus().isGameOver()) {
+            game.setGameOver(true);
+        }
+    }
+
     // Helper method to serialize a ChessGame object to JSON
     private String serializeGame(ChessGame game) {
         return gson.toJson(game);
@@ -0,0 +1,196 @@
+package dataaccess;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Prepared statements of one pooled connection, keyed by SQL text, so each
+ * DAO query is parsed once per connection instead of on every call. Closing
+ * a statement handed out by {@link #prepare} clears its parameters and keeps
+ * it for the next caller with the same SQL; the least recently used
+ * statements are closed once the cache is full.
+ * <p>
+ * A connection has one borrower at a time, so at most one caller holds a
+ * cached statement. Preparing SQL that is already checked out, as a nested
+ * query would, gets a statement of its own that is closed for real.
+ */
+final class StatementCache {
+
+    private final Connection physical;
+    private final Map<String, Entry> entries;
+    private final List<Checkout> outstanding = new ArrayList<>();
+    private final LongAdder hits;
+    private final LongAdder misses;
+
+    StatementCache(Connection physical, int capacity, LongAdder hits, LongAdder misses) {
+        this.physical = physical;
+        this.hits = hits;
+        this.misses = misses;
+        entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() <= capacity) {
+                    return false;
+                }
+                eldest.getValue().evict();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * @param owner the pooled connection the borrower sees, returned by the
+     *              statement's {@code getConnection()}
+     */
+    synchronized PreparedStatement prepare(Connection owner, String sql) throws SQLException {
+        Entry entry = entries.get(sql);
+        if (entry == null) {
+            misses.increment();
+            entry = new Entry(physical.prepareStatement(sql));
+            entries.put(sql, entry);
+        } else if (entry.inUse) {
+            misses.increment();
+            return checkOut(owner, physical.prepareStatement(sql), null);
+        } else {
+            hits.increment();
+        }
+        entry.inUse = true;
+        return checkOut(owner, entry.statement, entry);
+    }
+
+    /**
+     * Takes back the statements the borrower left open, when the connection
+     * is returned to the pool.
+     */
+    synchronized void releaseAll() {
+        for (Checkout checkout : List.copyOf(outstanding)) {
+            checkout.giveBack();
+        }
+    }
+
+    private PreparedStatement checkOut(Connection owner, PreparedStatement statement, Entry entry) {
+        Checkout checkout = new Checkout(owner, statement, entry);
+        outstanding.add(checkout);
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, checkout);
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException ignored) {
+            // The statement is being dropped either way.
+        }
+    }
+
+    private static final class Entry {
+
+        final PreparedStatement statement;
+        boolean inUse;
+        boolean evicted;
+
+        Entry(PreparedStatement statement) {
+            this.statement = statement;
+        }
+
+        void evict() {
+            evicted = true;
+            if (!inUse) {
+                closeQuietly(statement);
+            }
+        }
+    }
+
+    /**
+     * One caller's use of a statement, and the proxy handler it sees.
+     */
+    private final class Checkout implements InvocationHandler {
+
+        final Connection owner;
+        final PreparedStatement statement;
+        final Entry entry;
+        boolean returned;
+
+        Checkout(Connection owner, PreparedStatement statement, Entry entry) {
+            this.owner = owner;
+            this.statement = statement;
+            this.entry = entry;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    synchronized (StatementCache.this) {
+                        giveBack();
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return returned || statement.isClosed();
+                }
+                case "getConnection" -> {
+                    return owner;
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "Cached " + statement;
+                }
+                default -> {
+                }
+            }
+            if (returned) {
+                throw new SQLException("Statement has been closed");
+            }
+            try {
+                return method.invoke(statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        void giveBack() {
+            if (returned) {
+                return;
+            }
+            returned = true;
+            outstanding.remove(this);
+            if (entry == null) {
+                closeQuietly(statement);
+                return;
+            }
+            entry.inUse = false;
+            if (entry.evicted) {
+                closeQuietly(statement);
+                return;
+            }
+            try {
+                ResultSet open = statement.getResultSet();
+                if (open != null) {
+                    open.close();
+                }
+                statement.clearParameters();
+                statement.clearBatch();
+            } catch (SQLException e) {
+                entries.values().remove(entry);
+                closeQuietly(statement);
+            }
+        }
+    }
+}
@@ -0,0 +1,474 @@
+package dataaccess;
+
+import chess.ChessGame;
+import model.GameData;
+import model.GameMove;
+import model.GameSummary;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps the games being played in memory in front of another {@link GameDAO},
+ * so a move is read and recorded without a database round trip. The live
+ * {@link ChessGame} of each active game is authoritative: every caller of
+ * {@link #getGame} gets the same instance, and must hold its monitor while
+ * changing it.
+ * <p>
+ * {@link #recordMove} appends the move to a local {@link MoveJournal} and
+ * queues it; a flusher thread hands the queued moves of all games to the
+ * backing DAO's move log in batches, as often as the {@link Durability} asks.
+ * On startup, moves still in the journal are replayed onto the stored games,
+ * so a crash loses no moves that were acknowledged. Other updates, such as
+ * players joining, leaving or resigning, are written through at once.
+ * <p>
+ * Games that are over, or have not been touched for a while, are dropped from
+ * memory once they are written.
+ */
+public class WriteBehindGameDAO implements GameDAO, AutoCloseable {
+
+    /**
+     * How long an untouched game stays in memory after it is written.
+     */
+    private static final long IDLE_EVICT_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    /**
+     * When dirty games are written to the backing DAO.
+     */
+    public enum Durability {
+        /**
+         * As soon as possible after every move, still off the mover's thread.
+         */
+        EVERY_MOVE,
+        /**
+         * Every flush interval, batching the moves of all games since the last.
+         */
+        INTERVAL,
+        /**
+         * Only when a game ends, or the server shuts down; the journal
+         * covers everything in between.
+         */
+        GAME_END
+    }
+
+    private final GameDAO backing;
+    private final Durability durability;
+    private final MoveJournal journal;
+    private final Map<Integer, Entry> games = new ConcurrentHashMap<>();
+    /**
+     * Held while appending to the journal and queueing the move, so the
+     * journal is only rotated between moves.
+     */
+    private final Object journalLock = new Object();
+    private final ScheduledExecutorService flusher;
+    private final AtomicBoolean flushQueued = new AtomicBoolean();
+
+    /**
+     * @param backing     where games are stored
+     * @param durability  when queued moves are written
+     * @param flushMillis how often queued moves are written under
+     *                    {@link Durability#INTERVAL}, and how often failed
+     *                    writes are retried otherwise
+     * @param journalPath the move journal, created if missing and replayed if not;
+     *                    each server needs its own, and its segments are kept
+     *                    beside it
+     * @throws IOException         if the journal cannot be opened or read, or
+     *                             another server has it open
+     * @throws DataAccessException if journaled games cannot be read or
+     *                             replayed games cannot be written
+     */
+    public WriteBehindGameDAO(GameDAO backing, Durability durability, long flushMillis, Path journalPath)
+            throws IOException, DataAccessException {
+        this.backing = backing;
+        this.durability = durability;
+        journal = new MoveJournal(journalPath);
+        try {
+            recover();
+        } catch (IOException | DataAccessException e) {
+            journal.close();
+            throw e;
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "game-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(() -> flush(false), flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void createGame(GameData game) throws DataAccessException {
+        backing.createGame(game);
+    }
+
+    /**
+     * @return the live game, loaded from the backing DAO the first time
+     */
+    @Override
+    public GameData getGame(int gameID) throws DataAccessException {
+        Entry entry = games.get(gameID);
+        if (entry == null) {
+            Entry loaded = new Entry(backing.getGame(gameID));
+            entry = games.putIfAbsent(gameID, loaded);
+            if (entry == null) {
+                entry = loaded;
+            }
+        }
+        entry.touch();
+        return entry.data;
+    }
+
+    /**
+     * Writes the game through to the backing DAO. Its queued moves stay
+     * queued for the move log.
+     */
+    @Override
+    public void updateGame(String s, GameData updatedGame) throws DataAccessException {
+        Entry entry = games.get(updatedGame.gameID());
+        if (entry == null) {
+            backing.updateGame(s, updatedGame);
+            return;
+        }
+        entry.data = updatedGame;
+        entry.touch();
+        backing.updateGame(s, snapshot(updatedGame));
+    }
+
+    @Override
+    public void appendMoves(List<GameData> updatedGames, List<GameMove> moves) throws DataAccessException {
+        backing.appendMoves(updatedGames.stream().map(WriteBehindGameDAO::snapshot).toList(), moves);
+    }
+
+    /**
+     * Journals a move just played on the live game and queues it for the
+     * flusher. If the journal cannot be written, the game's queued moves are
+     * written through instead, and if that fails too they stay queued for the
+     * flusher to retry: the move has been played and stands either way.
+     */
+    @Override
+    public void recordMove(GameData game, int move) throws DataAccessException {
+        Entry entry = games.computeIfAbsent(game.gameID(), id -> new Entry(game));
+        GameMove played = new GameMove(game.gameID(), game.game().getPly() - 1, move, System.currentTimeMillis());
+        try {
+            synchronized (journalLock) {
+                journal.append(played);
+                entry.queue(game, played);
+            }
+        } catch (IOException e) {
+            System.err.println("Error journaling move, writing the game through: " + e.getMessage());
+            entry.queue(game, played);
+            List<GameMove> moves = entry.drain();
+            try {
+                backing.appendMoves(List.of(snapshot(game)), moves);
+            } catch (DataAccessException | RuntimeException failed) {
+                System.err.println("Error writing the game through, retrying later: " + failed.getMessage());
+                entry.requeue(moves);
+            }
+        }
+        entry.touch();
+        if (durability == Durability.EVERY_MOVE || durability == Durability.GAME_END && isOver(game)) {
+            requestFlush();
+        }
+    }
+
+    @Override
+    public void clear() {
+        synchronized (journalLock) {
+            backing.clear();
+            games.clear();
+            try {
+                journal.truncate();
+            } catch (IOException e) {
+                System.err.println("Error emptying the move journal: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @return the stored games, with the players and status of the active
+     *         ones as they are in memory
+     */
+    @Override
+    public List<GameSummary> listGames() {
+        List<GameSummary> listed = new ArrayList<>();
+        for (GameSummary game : backing.listGames()) {
+            Entry entry = games.get(game.gameID());
+            listed.add(entry == null ? game : summary(entry.data));
+        }
+        return listed;
+    }
+
+    @Override
+    public boolean gameExists(int gameID) throws DataAccessException {
+        return games.containsKey(gameID) || backing.gameExists(gameID);
+    }
+
+    /**
+     * @return the number of games held in memory
+     */
+    public int activeGames() {
+        return games.size();
+    }
+
+    /**
+     * Writes every queued move now, on the calling thread.
+     *
+     * @return true if all of them were written
+     */
+    public boolean flush() {
+        return flush(true);
+    }
+
+    /**
+     * Stops the flusher and writes every queued move. The journal is kept if
+     * any write fails, to be replayed on the next start.
+     */
+    @Override
+    public void close() {
+        flusher.shutdown();
+        try {
+            if (!flusher.awaitTermination(10, TimeUnit.SECONDS)) {
+                flusher.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush(true);
+        try {
+            journal.close();
+        } catch (IOException e) {
+            System.err.println("Error closing the move journal: " + e.getMessage());
+        }
+    }
+
+    private void requestFlush() {
+        if (flushQueued.compareAndSet(false, true)) {
+            flusher.execute(() -> {
+                flushQueued.set(false);
+                flush(false);
+            });
+        }
+    }
+
+    /**
+     * Writes the queued moves of all games in one batch, and drops written
+     * games that are over or idle.
+     * <p>
+     * The moves are drained as the journal is rotated, with the moves of games
+     * left queued appended to the new segment, so once the batch is written
+     * the older segments hold nothing unwritten and are deleted. The journal
+     * stays about as long as the moves waiting to be written.
+     *
+     * @param all write games still in play even under {@link Durability#GAME_END}
+     */
+    private synchronized boolean flush(boolean all) {
+        List<Entry> due = new ArrayList<>();
+        for (Entry entry : games.values()) {
+            // Checked before the journal lock, which movers take under the game's monitor
+            if (entry.isDirty() && (all || durability != Durability.GAME_END || isOver(entry.data))) {
+                due.add(entry);
+            }
+        }
+
+        Map<Entry, List<GameMove>> drained = new LinkedHashMap<>();
+        long rotated = -1;
+        if (!due.isEmpty()) {
+            synchronized (journalLock) {
+                for (Entry entry : due) {
+                    List<GameMove> queued = entry.drain();
+                    if (!queued.isEmpty()) {
+                        drained.put(entry, queued);
+                    }
+                }
+                try {
+                    rotated = journal.rotate();
+                    for (Entry entry : games.values()) {
+                        for (GameMove move : entry.queued()) {
+                            journal.append(move);
+                        }
+                    }
+                } catch (IOException e) {
+                    System.err.println("Error rotating the move journal: " + e.getMessage());
+                    rotated = -1;
+                }
+            }
+        }
+
+        List<GameData> batch = new ArrayList<>();
+        List<GameMove> moves = new ArrayList<>();
+        drained.forEach((entry, queued) -> {
+            // Taken after the moves, so the game has at least all of them
+            batch.add(snapshot(entry.data));
+            moves.addAll(queued);
+        });
+
+        boolean written = true;
+        if (!batch.isEmpty()) {
+            try {
+                backing.appendMoves(batch, moves);
+            } catch (DataAccessException | RuntimeException e) {
+                System.err.println("Error writing %d moves of %d games, retrying later: %s".formatted(moves.size(),
+                        batch.size(), e.getMessage()));
+                drained.forEach(Entry::requeue);
+                written = false;
+            }
+        }
+        if (written && rotated >= 0) {
+            try {
+                journal.release(rotated);
+            } catch (IOException e) {
+                System.err.println("Error deleting written move journal segments: " + e.getMessage());
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        for (Map.Entry<Integer, Entry> game : games.entrySet()) {
+            Entry entry = game.getValue();
+            if (!isOver(entry.data) && now - entry.lastUsed <= IDLE_EVICT_MILLIS) {
+                continue;
+            }
+            // Not under the game's monitor: movers take it before the entry's
+            synchronized (entry) {
+                if (!entry.isDirty()) {
+                    games.remove(game.getKey(), entry);
+                }
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Replays journaled moves that the stored games do not have yet, writes
+     * them to the move log, and empties the journal. Moves of games that are
+     * no longer stored are dropped; any other failure leaves the journal as
+     * it is for the next start.
+     */
+    private void recover() throws IOException, DataAccessException {
+        Map<Integer, List<GameMove>> moves = new LinkedHashMap<>();
+        journal.read(move -> moves.computeIfAbsent(move.gameID(), id -> new ArrayList<>()).add(move));
+        // Moves appended again to a newer segment may come after later ones
+        moves.values().forEach(game -> game.sort(Comparator.comparingInt(GameMove::ply)));
+        List<GameData> recovered = new ArrayList<>();
+        List<GameMove> replayed = new ArrayList<>();
+        for (Map.Entry<Integer, List<GameMove>> game : moves.entrySet()) {
+            GameData stored;
+            try {
+                stored = backing.getGame(game.getKey());
+            } catch (GameNotFoundException e) {
+                System.err.printf("Move journal has moves of game %d, which is no longer stored%n", game.getKey());
+                continue;
+            }
+            ChessGame chessGame = stored.game();
+            int ply = chessGame.getPly();
+            int count = 0;
+            for (GameMove move : game.getValue()) {
+                if (move.ply() < ply) {
+                    continue;
+                }
+                if (move.ply() != ply) {
+                    System.err.printf("Move journal skips from ply %d to %d in game %d%n", ply, move.ply(),
+                            game.getKey());
+                    break;
+                }
+                chessGame.doMove(move.move());
+                replayed.add(move);
+                ply++;
+                count++;
+            }
+            if (count > 0) {
+                if (chessGame.getStatus().isGameOver()) {
+                    chessGame.setGameOver(true);
+                }
+                recovered.add(stored);
+                System.out.printf("Recovered %d moves of game %d from the move journal%n", count, game.getKey());
+            }
+        }
+        if (!recovered.isEmpty()) {
+            backing.appendMoves(recovered, replayed);
+        }
+        journal.truncate();
+    }
+
+    private static boolean isOver(GameData game) {
+        synchronized (game.game()) {
+            return game.game().getGameOver() || game.game().getStatus().isGameOver();
+        }
+    }
+
+    private static GameSummary summary(GameData game) {
+        boolean gameOver;
+        synchronized (game.game()) {
+            gameOver = game.game().getGameOver();
+        }
+        return new GameSummary(game.gameID(), game.whiteUsername(), game.blackUsername(), game.gameName(), gameOver);
+    }
+
+    /**
+     * Copies the game under its monitor, so the backing DAO serializes a
+     * consistent position while moves go on.
+     */
+    private static GameData snapshot(GameData game) {
+        ChessGame copy;
+        synchronized (game.game()) {
+            copy = new ChessGame(game.game());
+        }
+        return new GameData(game.gameID(), game.whiteUsername(), game.blackUsername(), game.gameName(), copy);
+    }
+
+    /**
+     * A game in memory. It is dirty while it has moves queued.
+     */
+    private static final class Entry {
+
+        volatile GameData data;
+        private final List<GameMove> queued = new ArrayList<>();
+        volatile long lastUsed = System.currentTimeMillis();
+
+        Entry(GameData data) {
+            this.data = data;
+        }
+
+        void touch() {
+            lastUsed = System.currentTimeMillis();
+        }
+
+        synchronized boolean isDirty() {
+            return !queued.isEmpty();
+        }
+
+        synchronized void queue(GameData game, GameMove move) {
+            data = game;
+            queued.add(move);
+        }
+
+        synchronized List<GameMove> queued() {
+            return List.copyOf(queued);
+        }
+
+        /**
+         * @return the queued moves, which are no longer queued
+         */
+        synchronized List<GameMove> drain() {
+            List<GameMove> moves = List.copyOf(queued);
+            queued.clear();
+            return moves;
+        }
+
+        /**
+         * Puts back moves that could not be written, ahead of any queued since.
+         */
+        synchronized void requeue(List<GameMove> moves) {
+            queued.addAll(0, moves);
+        }
+    }
+}
@@ -5,6 +5,7 @@ import dataaccess.BadRequestException;
 import dataaccess.DataAccessException;
 import dataaccess.UnauthorizedException;
 import model.GameData;
+import model.GameSummary;
 import model.ListGames;
 import service.GameService;
 import spark.Request;
@@ -25,7 +26,7 @@ public class GameHandler {
         String authToken = req.headers("authorization");
 
         try {
-            List<GameData> games = gameService.listGames(authToken);
+            List<GameSummary> games = gameService.listGames(authToken);
 
             resp.status(200);
             return gson.toJson(new ListGames(games));
@@ -1,45 +1,103 @@
 package server;
 
+import chess.PositionCache;
+import chess.Tablebase;
 import dataaccess.*;
+import service.AnalysisService;
 import service.ClearService;
 import service.GameService;
 import service.UserService;
 import spark.*;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.concurrent.ConcurrentHashMap;
 
 public class Server {
 
-
+    /**
+     * Memory for the legal move and status cache shared by all games, in MB.
+     * Override with -Dchess.positionCacheMegabytes.
+     */
+    private static final int POSITION_CACHE_MEGABYTES = 64;
+
+    /**
+     * System property naming a directory of tablebase files, written by
+     * chess.TablebaseGenerator, to adjudicate endgames with. Unset by default.
+     */
+    private static final String TABLEBASE_DIRECTORY_PROPERTY = "chess.tablebaseDirectory";
+
+    /**
+     * Analyses that may run at once, and how many more may wait. Override the
+     * thread count with -Dchess.analysisThreads.
+     */
+    private static final int ANALYSIS_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    private static final int ANALYSIS_QUEUE = 16;
+
+    /**
+     * When moves are written to the database, one of EVERY_MOVE, INTERVAL or
+     * GAME_END (see WriteBehindGameDAO.Durability), and the interval. Override
+     * with -Dchess.gameDurability and -Dchess.gameFlushMillis. Stored games are
+     * rewritten in full every -Dchess.snapshotPlies plies and otherwise only
+     * have moves appended.
+     * <p>
+     * Moves not yet written are kept in a journal that each server must have to
+     * itself, since it is emptied and replayed as a whole. Name it with
+     * -Dchess.moveJournal; by default it is chess-moves-PORT.journal in the
+     * working directory, so a restart on the same port recovers it. A server
+     * on an ephemeral port has no name to be recovered under, so it journals
+     * to a file of its own that is deleted on exit.
+     */
+    private static final WriteBehindGameDAO.Durability GAME_DURABILITY = WriteBehindGameDAO.Durability.INTERVAL;
+    private static final long GAME_FLUSH_MILLIS = 1_000;
+    private static final String MOVE_JOURNAL_PROPERTY = "chess.moveJournal";
 
     public static UserService userService;
     public static GameService gameService;
 
-    private final ClearService clearservice;
+    private final UserDAO userdao;
+    private final AuthDAO authdao;
     private final UserHandler userhandler;
-    private final GameHandler gamehandler;
-    private final ClearHandler clearhandler;
+    private WriteBehindGameDAO gamedao;
+    private GameHandler gamehandler;
+    private ClearHandler clearhandler;
 
+    private final AnalysisService analysisService;
     private final WebsocketHandler websockethandler;
 
 
     public Server() {
-        UserDAO userdao = new SQLUserDAO();
-        GameDAO gamedao = new SQLGameDAO();
-        AuthDAO authdao = new SQLAuthDAO();
+        if (PositionCache.installed() == null) {
+            PositionCache.install(new PositionCache(
+                    Integer.getInteger("chess.positionCacheMegabytes", POSITION_CACHE_MEGABYTES)));
+        }
+
+        String tablebaseDirectory = System.getProperty(TABLEBASE_DIRECTORY_PROPERTY);
+        if (tablebaseDirectory != null && Tablebase.installed() == null) {
+            try {
+                Tablebase.install(Tablebase.open(Path.of(tablebaseDirectory)));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot open tablebases in " + tablebaseDirectory, e);
+            }
+        }
+
+        userdao = new SQLUserDAO();
+        authdao = new SQLAuthDAO();
 
         userService = new UserService(userdao, authdao);
-        gameService = new GameService(gamedao, authdao);
-
-        clearservice = new ClearService(userdao, gamedao, authdao);
         userhandler = new UserHandler(userService);
-        gamehandler = new GameHandler(gameService);
-        clearhandler = new ClearHandler(clearservice);
 
-        websockethandler = new WebsocketHandler(authdao);
+        analysisService = new AnalysisService(Integer.getInteger("chess.analysisThreads", ANALYSIS_THREADS),
+                ANALYSIS_QUEUE);
+        websockethandler = new WebsocketHandler(authdao, analysisService);
     }
 
     public int run(int desiredPort) {
+        // The games are opened here, once the port naming their journal is known
+        openGames(desiredPort);
+
         Spark.port(desiredPort);
 
         Spark.staticFiles.location("web");
@@ -66,7 +124,43 @@ public class Server {
     }
 
     public void stop() {
+        analysisService.shutdown();
         Spark.stop();
         Spark.awaitStop();
+        if (gamedao != null) {
+            gamedao.close();
+        }
+    }
+
+    private void openGames(int port) {
+        try {
+            gamedao = new WriteBehindGameDAO(new SQLGameDAO(
+                    Integer.getInteger("chess.snapshotPlies", SQLGameDAO.DEFAULT_SNAPSHOT_PLIES)),
+                    WriteBehindGameDAO.Durability.valueOf(System.getProperty("chess.gameDurability",
+                            GAME_DURABILITY.name())),
+                    Long.getLong("chess.gameFlushMillis", GAME_FLUSH_MILLIS),
+                    moveJournal(port));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open the move journal", e);
+        } catch (DataAccessException e) {
+            throw new RuntimeException("Failed to recover games from the move journal: " + e.getMessage(), e);
+        }
+
+        gameService = new GameService(gamedao, authdao);
+        gamehandler = new GameHandler(gameService);
+        clearhandler = new ClearHandler(new ClearService(userdao, gamedao, authdao));
+    }
+
+    private static Path moveJournal(int port) throws IOException {
+        String journal = System.getProperty(MOVE_JOURNAL_PROPERTY);
+        if (journal != null) {
+            return Path.of(journal);
+        }
+        if (port != 0) {
+            return Path.of("chess-moves-" + port + ".journal");
+        }
+        Path ephemeral = Files.createTempFile("chess-moves-", ".journal");
+        ephemeral.toFile().deleteOnExit();
+        return ephemeral;
     }
 }
@@ -10,6 +10,7 @@ import dataaccess.DataAccessException;
 import dataaccess.UnauthorizedException;
 import model.AuthData;
 import model.GameData;
+import service.AnalysisService;
 import org.eclipse.jetty.websocket.api.Session;
 import org.eclipse.jetty.websocket.api.annotations.OnWebSocketMessage;
 import org.eclipse.jetty.websocket.api.annotations.WebSocket;
@@ -19,20 +20,26 @@ import websocket.messages.Error;
 
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
 
 @WebSocket
 public class WebsocketHandler {
 
     private final Gson gson = new Gson();
     private final Map<Integer, Map<String, Session>> gameSessions = new ConcurrentHashMap<>();
+    private final Map<Integer, Object> sendLocks = new ConcurrentHashMap<>();
     private AuthDAO authDAO;
+    private final AnalysisService analysisService;
 
 
-    WebsocketHandler(AuthDAO authDAO){
+    WebsocketHandler(AuthDAO authDAO, AnalysisService analysisService){
         this.authDAO = authDAO;
+        this.analysisService = analysisService;
     }
 
     @OnWebSocketMessage
@@ -58,6 +65,10 @@ public class WebsocketHandler {
                     Resign command = gson.fromJson(message, Resign.class);
                     handleResign(session, command);
                 }
+                case ANALYZE -> {
+                    Analyze command = gson.fromJson(message, Analyze.class);
+                    handleAnalyze(session, command);
+                }
 
             }
         }
@@ -116,7 +127,11 @@ public class WebsocketHandler {
                 Notification notif = new Notification(auth.username() + " has joined the game as an observer");
                 broadcastMessage(auth.authToken(), notif, game.gameID());
             }
-            sendGameState(session, game);
+            String state;
+            synchronized (game.game()) {
+                state = gson.toJson(new LoadGame(game.gameID(), game.game()));
+            }
+            sendGameState(session, state);
         } catch (UnauthorizedException e) {
             sendError(session, new Error("Error: Not authorized"));
         } catch (BadRequestException e) {
@@ -126,63 +141,134 @@ public class WebsocketHandler {
         }
     }
 
+    /**
+     * Plays the move on the game's live {@link ChessGame}, shared by everyone
+     * in the game. Its monitor is held from the turn check until the move is
+     * recorded and the messages about it are built, but not while they are
+     * sent: the game DAO takes the same monitor to write and list games, and
+     * must not wait on a slow session. The game's send lock, taken first and
+     * held through the sends, keeps the messages of its moves in order.
+     * Writing the game to the database is left to the game DAO; if it cannot
+     * keep the move at all, the move is taken back and the mover told.
+     */
     private void handleMakeMove(Session session, MakeMove command) throws IOException {
         try {
             AuthData auth = Server.userService.getAuth(command.getAuthToken());
             GameData game = Server.gameService.getGameData(command.getAuthToken(), command.getGameID());
-            ChessGame.TeamColor userColor = getTeamColor(auth.username(), game);
-
-            if (userColor == null) {
-                sendError(session, new Error("Error: You are observing this game"));
-                return;
+            synchronized (sendLocks.computeIfAbsent(game.gameID(), id -> new Object())) {
+                List<Outgoing> outgoing;
+                synchronized (game.game()) {
+                    outgoing = makeMove(session, command, auth, game);
+                }
+                send(outgoing);
             }
+        } catch (InvalidMoveException e) {
+            sendError(session, new Error("Error: Invalid move. " + e.getMessage()));
+        } catch (Exception e) {
+            handleException(session, e);
+        }
+    }
 
-            if (game.game().getGameOver()) {
-                sendError(session, new Error("Error: The game is already over"));
-                return;
-            }
+    /**
+     * @return the messages to send about the move, built while the caller
+     *         holds the game's monitor
+     */
+    private List<Outgoing> makeMove(Session session, MakeMove command, AuthData auth, GameData game)
+            throws InvalidMoveException, BadRequestException {
+        List<Outgoing> outgoing = new ArrayList<>();
+        ChessGame.TeamColor userColor = getTeamColor(auth.username(), game);
+
+        if (userColor == null) {
+            outgoing.add(new Outgoing(session, gson.toJson(new Error("Error: You are observing this game"))));
+            return outgoing;
+        }
 
-            if (!game.game().getTeamTurn().equals(userColor)) {
-                sendError(session, new Error("Error: It is not your turn"));
-                return;
-            }
+        if (game.game().getGameOver()) {
+            outgoing.add(new Outgoing(session, gson.toJson(new Error("Error: The game is already over"))));
+            return outgoing;
+        }
 
-            game.game().makeMove(command.getMove());
+        if (!game.game().getTeamTurn().equals(userColor)) {
+            outgoing.add(new Outgoing(session, gson.toJson(new Error("Error: It is not your turn"))));
+            return outgoing;
+        }
 
-            if (game.game().isInCheckmate(userColor.opponent())) {
-                broadcastMessage(auth.authToken(), new Notification("Checkmate! %s wins!".formatted(auth.username())), game.gameID());
+        game.game().makeMove(command.getMove());
+
+        switch (game.game().getStatus()) {
+            case CHECKMATE -> {
+                broadcast(outgoing, auth.authToken(), new Notification("Checkmate! %s wins!".formatted(auth.username())), game.gameID());
                 game.game().setGameOver(true);
             }
-            else if (game.game().isInCheck(userColor.opponent())) {
-                broadcastMessage(auth.authToken(), new Notification("Check! %s has placed their opponent in check!".
-                        formatted(auth.username())), game.gameID());
+            case CHECK -> broadcast(outgoing, auth.authToken(), new Notification("Check! %s has placed their opponent in check!".
+                    formatted(auth.username())), game.gameID());
+            case STALEMATE -> {
+                broadcast(outgoing, auth.authToken(), new Notification("Stalemate! The game ends in a draw."),
+                        game.gameID());
+                game.game().setGameOver(true);
+            }
+            case THREEFOLD_REPETITION -> {
+                broadcast(outgoing, auth.authToken(), new Notification(
+                        "The same position has occurred three times. The game ends in a draw."), game.gameID());
+                game.game().setGameOver(true);
             }
-            else if (game.game().isInStalemate(userColor.opponent())) {
-                broadcastMessage(auth.authToken(), new Notification("Stalemate! The game ends in a draw."),
+            case FIFTY_MOVE_RULE -> {
+                broadcast(outgoing, auth.authToken(), new Notification(
+                        "Fifty moves without a capture or pawn move. The game ends in a draw."), game.gameID());
+                game.game().setGameOver(true);
+            }
+            case INSUFFICIENT_MATERIAL -> {
+                broadcast(outgoing, auth.authToken(), new Notification(
+                        "Neither side can checkmate. The game ends in a draw."), game.gameID());
+                game.game().setGameOver(true);
+            }
+            case TABLEBASE_WIN -> {
+                broadcast(outgoing, auth.authToken(), new Notification(
+                        "The endgame is a forced win for %s. The game is adjudicated.".formatted(
+                                userColor == ChessGame.TeamColor.WHITE ? game.blackUsername() : game.whiteUsername())),
                         game.gameID());
                 game.game().setGameOver(true);
             }
-            else {
+            case TABLEBASE_LOSS -> {
+                broadcast(outgoing, auth.authToken(), new Notification(
+                        "The endgame is a forced win for %s. The game is adjudicated.".formatted(
+                                auth.username())), game.gameID());
+                game.game().setGameOver(true);
+            }
+            case TABLEBASE_DRAW -> {
+                broadcast(outgoing, auth.authToken(), new Notification(
+                        "Neither side can force a win. The game is adjudicated a draw."), game.gameID());
+                game.game().setGameOver(true);
+            }
+            default -> {
                 ChessPosition start = command.getMove().getStartPosition();
                 ChessPosition end = command.getMove().getEndPosition();
                 String moveDescription = String.format("%s has made the move %s to %s.",
                         auth.username(), start.toAlgebraic(), end.toAlgebraic());
-                broadcastMessage(auth.authToken(), new Notification(moveDescription), game.gameID());
+                broadcast(outgoing, auth.authToken(), new Notification(moveDescription), game.gameID());
             }
+        }
 
-            Server.gameService.updateGame(auth.authToken(), game);
+        try {
+            Server.gameService.recordMove(game, command.getMove());
+        } catch (BadRequestException e) {
+            // The move was not kept, so take it back rather than leave the players behind the server
+            game.game().undoMove();
+            game.game().setGameOver(false);
+            throw e;
+        }
 
-            sendGameStateToAll(game);
-        } catch (InvalidMoveException e) {
-            sendError(session, new Error("Error: Invalid move. " + e.getMessage()));
-        } catch (Exception e) {
-            handleException(session, e);
+        String state = gson.toJson(new LoadGame(game.gameID(), game.game()));
+        for (Session player : gameSessions.getOrDefault(game.gameID(), Map.of()).values()) {
+            outgoing.add(new Outgoing(player, state));
         }
+        return outgoing;
     }
 
     private void handleLeave(Session session, Leave command) throws IOException {
         try {
             AuthData auth = Server.userService.getAuth(command.getAuthToken());
+            analysisService.cancel(auth.authToken(), command.getGameID());
             GameData game = Server.gameService.getGameData(command.getAuthToken(), command.getGameID());
 
             ChessGame.TeamColor teamColor = getTeamColor(auth.username(), game);
@@ -228,7 +314,9 @@ public class WebsocketHandler {
                 return;
             }
 
-            game.game().setGameOver(true);
+            synchronized (game.game()) {
+                game.game().setGameOver(true);
+            }
             String opponent = userColor == ChessGame.TeamColor.WHITE ? game.blackUsername() : game.whiteUsername();
 
             Notification resignNotification = new Notification(auth.username() + " has resigned. " + opponent + " wins!");
@@ -241,35 +329,91 @@ public class WebsocketHandler {
         }
     }
 
+    /**
+     * Queues an analysis of the game for the requesting session only. Each
+     * finished search depth is sent as it arrives, from the analysis thread;
+     * if the session has gone away the analysis is cancelled.
+     */
+    private void handleAnalyze(Session session, Analyze command) throws IOException {
+        try {
+            AuthData auth = Server.userService.getAuth(command.getAuthToken());
+            GameData game = Server.gameService.getGameData(command.getAuthToken(), command.getGameID());
+            ChessGame position;
+            synchronized (game.game()) {
+                position = new ChessGame(game.game());
+            }
+            ChessGame.TeamColor sideToMove = position.getTeamTurn();
+            analysisService.start(auth.authToken(), game.gameID(), position, command.getLines(),
+                    command.getDepth(), (lines, complete) -> sendAnalysis(session, auth.authToken(),
+                            Analysis.of(game.gameID(), sideToMove, lines, complete)));
+        } catch (RejectedExecutionException e) {
+            sendError(session, new Error("Error: The server is busy. Try the analysis again later."));
+        } catch (Exception e) {
+            handleException(session, e);
+        }
+    }
+
+    private void sendAnalysis(Session session, String authToken, Analysis analysis) {
+        try {
+            if (session.isOpen()) {
+                sendMessage(session, analysis);
+                return;
+            }
+        } catch (IOException e) {
+            System.err.println("Error sending analysis: " + e.getMessage());
+        }
+        analysisService.cancel(authToken, analysis.getGameID());
+    }
+
     private void sendError(Session session, Error error) throws IOException {
         sendMessage(session, error);
     }
 
-    private void sendGameState(Session session, GameData game) throws IOException {
+    private void sendGameState(Session session, String state) throws IOException {
         if (session == null || !session.isOpen()) {
             System.err.println("Session is closed or null, cannot send game state.");
             return;
         }
-        ServerMessage message = new LoadGame(game.gameID(), game.game());
-        sendMessage(session, message);
+        sendJson(session, state);
     }
 
-    private void sendGameStateToAll(GameData game) throws IOException {
-        ChessGame chessGame = game.game();
-        int gameID = game.gameID();
-        LoadGame loadGameMessage = new LoadGame(gameID, chessGame);
+    /**
+     * A message already serialized for one session, so it can be built under
+     * a game's monitor and sent after the monitor is released.
+     */
+    private record Outgoing(Session session, String json) {}
+
+    private void broadcast(List<Outgoing> outgoing, String sender, ServerMessage message, int gameID) {
+        String json = gson.toJson(message);
+        for (Map.Entry<String, Session> entry : gameSessions.getOrDefault(gameID, Map.of()).entrySet()) {
+            if (!entry.getKey().equals(sender)) {
+                outgoing.add(new Outgoing(entry.getValue(), json));
+            }
+        }
+    }
 
-        for (Session session : gameSessions.get(gameID).values()) {
-            if (session.isOpen()) {
-                sendMessage(session, loadGameMessage);
+    private void send(List<Outgoing> outgoing) throws IOException {
+        for (Outgoing message : outgoing) {
+            if (message.session().isOpen()) {
+                sendJson(message.session(), message.json());
             } else {
-                System.err.println("Skipping closed session: " + session);
+                System.err.println("Skipping closed session: " + message.session());
             }
         }
     }
 
     private void sendMessage(Session session, ServerMessage message) throws IOException {
-        session.getRemote().sendString(gson.toJson(message));
+        sendJson(session, gson.toJson(message));
+    }
+
+    /**
+     * Analysis threads send alongside the websocket thread, and a session's
+     * blocking remote endpoint allows one message in flight at a time.
+     */
+    private void sendJson(Session session, String json) throws IOException {
+        synchronized (session) {
+            session.getRemote().sendString(json);
+        }
     }
 
     private void broadcastMessage(String sender, ServerMessage message, int gameID) throws IOException {
@@ -0,0 +1,164 @@
+package service;
+
+import chess.ChessGame;
+import chess.engine.Search;
+import chess.engine.SearchLimits;
+import chess.engine.SearchResult;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs multi-line analyses on a fixed pool of threads with a bounded queue,
+ * so the websocket thread never waits on a search and a burst of requests is
+ * turned away instead of piling up. A user has at most one analysis per game:
+ * starting another, or cancelling, stops the one running.
+ * <p>
+ * Every analysis is capped at {@link #MAX_LINES} lines, {@link #MAX_DEPTH}
+ * plies and {@link #MAX_MILLIS} milliseconds. Each pool thread keeps its own
+ * {@link Search}, so transposition tables are allocated once per thread. A
+ * cancel only sets its task's flag, which that task's search polls, so it can
+ * never stop a later task that the thread has moved on to.
+ */
+public class AnalysisService {
+
+    public static final int MAX_LINES = 5;
+    public static final int MAX_DEPTH = 12;
+    public static final long MAX_MILLIS = 10_000;
+    private static final int TABLE_MEGABYTES = 16;
+
+    private final ThreadPoolExecutor executor;
+    private final ThreadLocal<Search> searches = ThreadLocal.withInitial(() -> new Search(TABLE_MEGABYTES));
+    private final Map<String, Task> running = new ConcurrentHashMap<>();
+
+    /**
+     * Receives the lines of an analysis, best first, on the analysis thread.
+     */
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * @param complete true for the last call, after the search has ended
+         */
+        void update(List<SearchResult> lines, boolean complete);
+    }
+
+    /**
+     * @param threads   how many analyses run at once
+     * @param queueSize how many more may wait before requests are rejected
+     */
+    public AnalysisService(int threads, int queueSize) {
+        AtomicInteger count = new AtomicInteger();
+        ThreadFactory factory = runnable -> {
+            Thread thread = new Thread(runnable, "analysis-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), factory, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Queues an analysis of the game's current position, replacing any the
+     * user already has running on the game. Lines and depth are clamped to
+     * the service's limits.
+     *
+     * @throws RejectedExecutionException if the queue is full
+     */
+    public void start(String authToken, int gameID, ChessGame game, int lines, int depth, Listener listener) {
+        String key = key(authToken, gameID);
+        Task task = new Task(game, Math.clamp(lines, 1, MAX_LINES), Math.clamp(depth, 1, MAX_DEPTH), listener);
+        Task previous = running.put(key, task);
+        if (previous != null) {
+            previous.cancel();
+        }
+        try {
+            executor.execute(() -> run(key, task));
+        } catch (RejectedExecutionException e) {
+            running.remove(key, task);
+            throw e;
+        }
+    }
+
+    /**
+     * Stops the user's analysis of a game, whether queued or running. No
+     * further updates are delivered for it.
+     *
+     * @return true if there was one
+     */
+    public boolean cancel(String authToken, int gameID) {
+        Task task = running.remove(key(authToken, gameID));
+        if (task == null) {
+            return false;
+        }
+        task.cancel();
+        return true;
+    }
+
+    /**
+     * @return the number of analyses queued or running
+     */
+    public int pending() {
+        return running.size();
+    }
+
+    /**
+     * Stops every analysis and the pool's threads.
+     */
+    public void shutdown() {
+        running.values().forEach(Task::cancel);
+        running.clear();
+        executor.shutdownNow();
+    }
+
+    private void run(String key, Task task) {
+        try {
+            if (task.cancelled) {
+                return;
+            }
+            List<SearchResult> lines = searches.get().analyze(task.game, new SearchLimits(task.depth,
+                    Long.MAX_VALUE, MAX_MILLIS), task.lines, update -> {
+                if (!task.cancelled) {
+                    task.listener.update(update, false);
+                }
+            }, () -> task.cancelled);
+            // No longer pending by the time the listener hears the analysis is complete
+            running.remove(key, task);
+            if (!task.cancelled) {
+                task.listener.update(lines, true);
+            }
+        } finally {
+            running.remove(key, task);
+        }
+    }
+
+    private static String key(String authToken, int gameID) {
+        return gameID + ":" + authToken;
+    }
+
+    private static final class Task {
+
+        final ChessGame game;
+        final int lines;
+        final int depth;
+        final Listener listener;
+        volatile boolean cancelled;
+
+        Task(ChessGame game, int lines, int depth, Listener listener) {
+            this.game = game;
+            this.lines = lines;
+            this.depth = depth;
+            this.listener = listener;
+        }
+
+        void cancel() {
+            cancelled = true;
+        }
+    }
+}
@@ -2,10 +2,13 @@ package service;
 
 import chess.ChessBoard;
 import chess.ChessGame;
+import chess.ChessMove;
+import chess.Move;
 import dataaccess.AuthDAO;
 import dataaccess.GameDAO;
 import model.AuthData;
 import model.GameData;
+import model.GameSummary;
 import dataaccess.*;
 
 
@@ -24,7 +27,7 @@ public class GameService {
 
 
 
-    public List<GameData> listGames(String authToken) throws UnauthorizedException {
+    public List<GameSummary> listGames(String authToken) throws UnauthorizedException {
         verifyAuthToken(authToken);
         return gameDAO.listGames();
     }
@@ -146,6 +149,18 @@ public class GameService {
         }
     }
 
+    /**
+     * Records a move just played on the game's live {@link ChessGame}. The
+     * caller has already checked the player and the move.
+     */
+    public void recordMove(GameData gameData, ChessMove move) throws BadRequestException {
+        try {
+            gameDAO.recordMove(gameData, Move.encode(move));
+        } catch (DataAccessException e) {
+            throw new BadRequestException(e.getMessage());
+        }
+    }
+
     public void clear() {
         gameDAO.clear();
     }
@@ -0,0 +1,269 @@
+package dataaccess;
+
+import org.junit.jupiter.api.*;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConnectionPoolTest {
+
+    private final List<Stub> opened = new ArrayList<>();
+    private ConnectionPool pool;
+
+    @AfterEach
+    void cleanup() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Returned Connections Are Reused")
+    void reuse() throws SQLException {
+        pool = pool(0, 2, 60_000, 0);
+        Connection first = pool.borrow();
+        first.close();
+        first.close();
+        try (Connection second = pool.borrow()) {
+            assertFalse(second.isClosed());
+        }
+
+        assertEquals(1, opened.size(), "One physical connection serves both borrows");
+        assertFalse(opened.get(0).closed.get());
+        ConnectionPool.Stats stats = pool.stats();
+        assertEquals(0, stats.active());
+        assertEquals(1, stats.idle());
+        assertEquals(2, stats.borrows());
+        assertEquals(1, stats.created());
+    }
+
+    @Test
+    @DisplayName("Closed Connection Cannot Be Used")
+    void useAfterClose() throws SQLException {
+        pool = pool(0, 1, 60_000, 0);
+        Connection connection = pool.borrow();
+        connection.close();
+        assertTrue(connection.isClosed());
+        assertThrows(SQLException.class, connection::commit);
+    }
+
+    @Test
+    @DisplayName("Full Pool Times Out")
+    void boundedSize() throws SQLException {
+        pool = pool(0, 1, 60_000, 0);
+        try (Connection ignored = pool.borrow()) {
+            assertThrows(SQLTransientConnectionException.class, pool::borrow);
+        }
+        assertEquals(1, pool.stats().timeouts());
+        try (Connection ignored = pool.borrow()) {
+            assertEquals(1, opened.size());
+        }
+    }
+
+    @Test
+    @DisplayName("Waiting Borrower Gets A Returned Connection")
+    void handOff() throws Exception {
+        pool = pool(0, 1, 60_000, 0);
+        Connection held = pool.borrow();
+        Thread returner = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+                held.close();
+            } catch (InterruptedException | SQLException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        returner.start();
+        try (Connection ignored = pool.borrow()) {
+            assertEquals(1, opened.size());
+        }
+        returner.join();
+        assertTrue(pool.stats().meanWaitMillis() > 0);
+    }
+
+    @Test
+    @DisplayName("Broken Connections Are Replaced")
+    void validation() throws Exception {
+        pool = pool(0, 1, 60_000, 0);
+        pool.borrow().close();
+        opened.get(0).valid.set(false);
+        Thread.sleep(1_100);
+
+        try (Connection ignored = pool.borrow()) {
+            assertEquals(2, opened.size());
+            assertTrue(opened.get(0).closed.get());
+        }
+        assertEquals(1, pool.stats().invalid());
+    }
+
+    @Test
+    @DisplayName("Idle Connections Above The Minimum Are Closed")
+    void eviction() throws Exception {
+        pool = pool(1, 3, 1, 0);
+        Connection a = pool.borrow();
+        Connection b = pool.borrow();
+        Connection c = pool.borrow();
+        a.close();
+        b.close();
+        c.close();
+        Thread.sleep(10);
+
+        pool.houseKeep();
+        assertEquals(1, pool.stats().idle());
+        assertEquals(2, opened.stream().filter(stub -> stub.closed.get()).count());
+        assertFalse(opened.get(2).closed.get(), "The most recently returned connection is kept");
+    }
+
+    @Test
+    @DisplayName("Long Borrows Are Reported Once")
+    void leaks() throws Exception {
+        pool = pool(0, 1, 60_000, 1);
+        try (Connection ignored = pool.borrow()) {
+            Thread.sleep(10);
+            pool.houseKeep();
+            pool.houseKeep();
+            assertEquals(1, pool.stats().leaks());
+        }
+    }
+
+    @Test
+    @DisplayName("Failed Opens Free Their Slot")
+    void openFailure() throws SQLException {
+        pool = new ConnectionPool(() -> {
+            throw new SQLException("refused");
+        }, new ConnectionPool.Settings(0, 1, 100, 60_000, 0, 0));
+        assertThrows(SQLException.class, pool::borrow);
+        SQLException again = assertThrows(SQLException.class, pool::borrow);
+        assertEquals("refused", again.getMessage(), "The slot was released, so the second borrow opens again");
+    }
+
+    @Test
+    @DisplayName("Statements Are Reused Per Connection")
+    void statementCache() throws SQLException {
+        pool = pool(0, 1, 60_000, 0);
+        PreparedStatement first;
+        try (Connection connection = pool.borrow();
+             PreparedStatement stmt = connection.prepareStatement("SELECT 1")) {
+            first = stmt;
+            stmt.setInt(1, 5);
+            assertSame(connection, stmt.getConnection(), "The statement does not expose the physical connection");
+        }
+        assertTrue(first.isClosed());
+        assertThrows(SQLException.class, first::executeQuery);
+
+        try (Connection connection = pool.borrow();
+             PreparedStatement stmt = connection.prepareStatement("SELECT 1")) {
+            assertNotSame(first, stmt);
+            assertFalse(stmt.isClosed());
+        }
+
+        Stub stub = opened.get(0);
+        assertEquals(List.of("SELECT 1"), stub.prepared);
+        assertEquals(2, stub.clears.get(), "Parameters are cleared every time a statement is returned");
+        assertEquals(2, stub.batchClears.get(), "Batches are cleared every time a statement is returned");
+        assertEquals(0, stub.statementsClosed.get());
+        ConnectionPool.Stats stats = pool.stats();
+        assertEquals(1, stats.statementHits());
+        assertEquals(1, stats.statementMisses());
+    }
+
+    @Test
+    @DisplayName("Statements In Use Are Not Shared")
+    void statementInUse() throws SQLException {
+        pool = pool(0, 1, 60_000, 0);
+        try (Connection connection = pool.borrow()) {
+            PreparedStatement outer = connection.prepareStatement("SELECT 1");
+            try (PreparedStatement inner = connection.prepareStatement("SELECT 1")) {
+                assertNotSame(outer, inner);
+            }
+            assertEquals(1, opened.get(0).statementsClosed.get(), "The extra statement is closed for real");
+            // Left open on purpose: returning the connection takes it back
+        }
+        try (Connection connection = pool.borrow();
+             PreparedStatement ignored = connection.prepareStatement("SELECT 1")) {
+            assertEquals(2, opened.get(0).prepared.size(), "The cached statement was free again");
+        }
+    }
+
+    @Test
+    @DisplayName("Least Recently Used Statements Are Closed")
+    void statementEviction() throws SQLException {
+        pool = pool(0, 1, 60_000, 0);
+        try (Connection connection = pool.borrow()) {
+            for (String sql : List.of("SELECT 1", "SELECT 2", "SELECT 1", "SELECT 3", "SELECT 1")) {
+                connection.prepareStatement(sql).close();
+            }
+        }
+        Stub stub = opened.get(0);
+        assertEquals(List.of("SELECT 1", "SELECT 2", "SELECT 3"), stub.prepared);
+        assertEquals(1, stub.statementsClosed.get(), "Only SELECT 2 was evicted");
+        assertEquals(2, pool.stats().statementHits());
+    }
+
+    private ConnectionPool pool(int min, int max, long idleMillis, long leakMillis) {
+        return new ConnectionPool(this::open, new ConnectionPool.Settings(min, max, 200, idleMillis, leakMillis, 2));
+    }
+
+    private Connection open() {
+        Stub stub = new Stub();
+        opened.add(stub);
+        return stub.connection;
+    }
+
+    private static final class Stub {
+
+        final AtomicBoolean closed = new AtomicBoolean();
+        final AtomicBoolean valid = new AtomicBoolean(true);
+        final List<String> prepared = new ArrayList<>();
+        final AtomicInteger clears = new AtomicInteger();
+        final AtomicInteger batchClears = new AtomicInteger();
+        final AtomicInteger statementsClosed = new AtomicInteger();
+        final Connection connection = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "close" -> {
+                        closed.set(true);
+                        yield null;
+                    }
+                    case "isClosed" -> closed.get();
+                    case "isValid" -> valid.get();
+                    case "getAutoCommit" -> true;
+                    case "prepareStatement" -> statement((String) args[0]);
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> null;
+                });
+
+        private PreparedStatement statement(String sql) {
+            prepared.add(sql);
+            AtomicBoolean statementClosed = new AtomicBoolean();
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> switch (method.getName()) {
+                        case "close" -> {
+                            if (!statementClosed.getAndSet(true)) {
+                                statementsClosed.incrementAndGet();
+                            }
+                            yield null;
+                        }
+                        case "isClosed" -> statementClosed.get();
+                        case "clearParameters" -> {
+                            clears.incrementAndGet();
+                            yield null;
+                        }
+                        case "clearBatch" -> {
+                            batchClears.incrementAndGet();
+                            yield null;
+                        }
+                        default -> null;
+                    });
+        }
+    }
+}
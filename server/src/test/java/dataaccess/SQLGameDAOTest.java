@@ -2,9 +2,21 @@ package dataaccess;
 
 import model.AuthData;
 import model.GameData;
+import model.GameMove;
+import model.GameSummary;
 import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import chess.Move;
 import org.junit.jupiter.api.*;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class SQLGameDAOTest {
@@ -121,6 +133,74 @@ public class SQLGameDAOTest {
                 "GameDAO should be empty after clear, attempting to get a game should throw an exception");
     }
 
+    @Test
+    @DisplayName("List Games - Positive Case")
+    void listGamesTestPositive() throws DataAccessException {
+        ChessGame finished = new ChessGame();
+        finished.setGameOver(true);
+        gameDAO.createGame(new GameData(2, "player3", null, "Finished Game", finished));
+
+        List<GameSummary> games = gameDAO.listGames();
+        assertEquals(2, games.size(), "Both games should be listed");
+        assertTrue(games.contains(new GameSummary(1, "player1", "player2", "Initial Game", false)));
+        assertTrue(games.contains(new GameSummary(2, "player3", null, "Finished Game", true)),
+                "A finished game is listed as over");
+    }
+
+    @Test
+    @DisplayName("List Games After Clear - Negative Case")
+    void listGamesTestNegative() {
+        gameDAO.clear();
+        assertTrue(gameDAO.listGames().isEmpty(), "No games should be listed after clear");
+    }
+
+    @Test
+    @DisplayName("Record Move - Positive Case")
+    void recordMoveTestPositive() throws DataAccessException, InvalidMoveException {
+        SQLGameDAO snapshotEveryTwo = new SQLGameDAO(2);
+        GameData game = snapshotEveryTwo.getGame(1);
+
+        playAndRecord(snapshotEveryTwo, game, new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        assertEquals(0, snapshotPly(1), "A single move only appends to the move log");
+        assertEquals(game.game().toFen(), snapshotEveryTwo.getGame(1).game().toFen(),
+                "The game is rebuilt from the snapshot and the logged move");
+
+        playAndRecord(snapshotEveryTwo, game, new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null));
+        assertEquals(2, snapshotPly(1), "The second ply writes a snapshot");
+        assertEquals(game.game().toFen(), snapshotEveryTwo.getGame(1).game().toFen());
+    }
+
+    @Test
+    @DisplayName("Record Move Twice - Negative Case")
+    void recordMoveTestNegative() throws DataAccessException, InvalidMoveException {
+        GameData game = gameDAO.getGame(1);
+        ChessMove move = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+        playAndRecord(gameDAO, game, move);
+
+        assertThrows(DataAccessException.class, () -> gameDAO.appendMoves(List.of(game),
+                        List.of(new GameMove(1, 0, Move.encode(move), System.currentTimeMillis()))),
+                "A ply can only be logged once");
+    }
+
+    private static void playAndRecord(SQLGameDAO dao, GameData game, ChessMove move)
+            throws DataAccessException, InvalidMoveException {
+        game.game().makeMove(move);
+        dao.recordMove(game, Move.encode(move));
+    }
+
+    private static int snapshotPly(int gameID) throws DataAccessException {
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT snapshotPly FROM game WHERE gameID=?")) {
+            stmt.setInt(1, gameID);
+            try (ResultSet results = stmt.executeQuery()) {
+                assertTrue(results.next());
+                return results.getInt("snapshotPly");
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
     @AfterEach
     void tearDown() throws DataAccessException {
         gameDAO.clear();
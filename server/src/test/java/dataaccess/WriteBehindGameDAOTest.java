@@ -0,0 +1,357 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import chess.Move;
+import com.google.gson.Gson;
+import model.GameData;
+import model.GameMove;
+import model.GameSummary;
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WriteBehindGameDAOTest {
+
+    private static final String START = new ChessGame().toFen();
+
+    private StoredGameDAO backing;
+    private Path journal;
+    private WriteBehindGameDAO gameDAO;
+
+    @BeforeEach
+    void setup() throws IOException, DataAccessException {
+        backing = new StoredGameDAO();
+        backing.createGame(new GameData(1, "white", "black", "Game1", new ChessGame()));
+        backing.createGame(new GameData(2, "white", "black", "Game2", new ChessGame()));
+        journal = Files.createTempDirectory("moves").resolve("moves.journal");
+    }
+
+    @AfterEach
+    void cleanup() throws IOException {
+        if (gameDAO != null) {
+            gameDAO.close();
+        }
+        try (Stream<Path> files = Files.list(journal.getParent())) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(journal.getParent());
+    }
+
+    @Test
+    @DisplayName("Moves Are Written Together Later")
+    void batched() throws Exception {
+        gameDAO = new WriteBehindGameDAO(backing, WriteBehindGameDAO.Durability.INTERVAL, 60_000, journal);
+        play(1, move(2, 5, 4, 5));
+        play(2, move(2, 4, 4, 4));
+        play(1, move(7, 5, 5, 5));
+
+        assertEquals(START, backing.fen(1), "Moves are not written as they are made");
+        assertEquals(3 * MoveJournal.RECORD_BYTES, journalBytes());
+        assertSame(gameDAO.getGame(1).game(), gameDAO.getGame(1).game(), "Every caller shares the live game");
+
+        assertTrue(gameDAO.flush());
+        assertEquals(List.of(2), backing.batches);
+        assertEquals(List.of("1:0", "1:1", "2:0"), backing.logged.stream()
+                .map(move -> move.gameID() + ":" + move.ply()).sorted().toList(), "Every move is logged");
+        assertEquals("rnbqkbnr/pppp1ppp/8/4p3/4P3/8/PPPP1PPP/RNBQKBNR w KQkq - 0 2", backing.fen(1));
+        assertEquals("rnbqkbnr/pppppppp/8/8/3P4/8/PPP1PPPP/RNBQKBNR b KQkq - 0 1", backing.fen(2));
+        assertEquals(0, journalBytes(), "The journal is emptied once its moves are written");
+
+        assertTrue(gameDAO.flush());
+        assertEquals(List.of(2), backing.batches, "Clean games are not written again");
+    }
+
+    @Test
+    @DisplayName("Every Move Durability Writes Each Move")
+    void everyMove() throws Exception {
+        gameDAO = new WriteBehindGameDAO(backing, WriteBehindGameDAO.Durability.EVERY_MOVE, 60_000, journal);
+        play(1, move(2, 5, 4, 5));
+        awaitWrites(1);
+        assertNotEquals(START, backing.fen(1));
+    }
+
+    @Test
+    @DisplayName("Game End Durability Writes Finished Games")
+    void gameEnd() throws Exception {
+        gameDAO = new WriteBehindGameDAO(backing, WriteBehindGameDAO.Durability.GAME_END, 60_000, journal);
+        play(1, move(2, 6, 3, 6));
+        play(1, move(7, 5, 5, 5));
+        play(1, move(2, 7, 4, 7));
+        assertTrue(gameDAO.flush());
+        assertEquals(1, backing.batches.size(), "Flushing on demand writes games still in play");
+
+        play(2, move(2, 5, 4, 5));
+        play(1, move(8, 4, 4, 8));
+        awaitWrites(2);
+        assertEquals(List.of(1, 1), backing.batches, "Only the finished game is written");
+        assertTrue(backing.getGame(1).game().getGameOver());
+        assertEquals(START, backing.fen(2));
+        assertEquals(1, gameDAO.activeGames(), "The finished game is dropped from memory");
+    }
+
+    @Test
+    @DisplayName("Journal Keeps Only Unwritten Moves")
+    void journalRotation() throws Exception {
+        gameDAO = new WriteBehindGameDAO(backing, WriteBehindGameDAO.Durability.GAME_END, 60_000, journal);
+        play(2, move(2, 5, 4, 5));
+        play(1, move(2, 6, 3, 6));
+        play(1, move(7, 5, 5, 5));
+        play(1, move(2, 7, 4, 7));
+        play(1, move(8, 4, 4, 8));
+        awaitWrites(1);
+        assertEquals(MoveJournal.RECORD_BYTES, journalBytes(), "Only the game still in play is journaled");
+
+        play(2, move(7, 5, 5, 5));
+        assertEquals(2 * MoveJournal.RECORD_BYTES, journalBytes());
+        gameDAO.close();
+        gameDAO = null;
+
+        // A clean close writes the rest and leaves nothing to replay
+        backing.logged.clear();
+        gameDAO = new WriteBehindGameDAO(backing, WriteBehindGameDAO.Durability.GAME_END, 60_000, journal);
+        assertEquals(List.of(), backing.logged, "Nothing is replayed");
+        assertEquals("rnbqkbnr/pppp1ppp/8/4p3/4P3/8/PPPP1PPP/RNBQKBNR w KQkq - 0 2", backing.fen(2));
+        assertEquals(0, journalBytes());
+    }
+
+    @Test
+    @DisplayName("Journaled Moves Are Recovered After A Crash")
+    void recovery() throws Exception {
+        ChessGame expected = new ChessGame();
+        // A server that died after journaling these moves, before writing them
+        try (MoveJournal crashed = new MoveJournal(journal)) {
+            crashed.append(journaled(1, expected, move(2, 5, 4, 5)));
+            crashed.append(journaled(2, new ChessGame(), move(2, 4, 4, 4)));
+            crashed.append(journaled(1, expected, move(7, 5, 5, 5)));
+        }
+        assertEquals(START, backing.fen(1));
+
+        gameDAO = new WriteBehindGameDAO(backing, WriteBehindGameDAO.Durability.GAME_END, 60_000, journal);
+        assertEquals(expected.toFen(), backing.fen(1));
+        assertEquals("rnbqkbnr/pppppppp/8/8/3P4/8/PPP1PPPP/RNBQKBNR b KQkq - 0 1", backing.fen(2));
+        assertEquals(0, journalBytes());
+        assertEquals(expected.toFen(), gameDAO.getGame(1).game().toFen());
+    }
+
+    @Test
+    @DisplayName("Recovery Skips Moves Already Written")
+    void recoveryAfterWrite() throws Exception {
+        ChessGame played = new ChessGame();
+        try (MoveJournal crashed = new MoveJournal(journal)) {
+            crashed.append(journaled(1, played, move(2, 5, 4, 5)));
+            backing.updateGame("1", new GameData(1, "white", "black", "Game1", new ChessGame(played)));
+            crashed.append(journaled(1, played, move(7, 5, 5, 5)));
+        }
+
+        gameDAO = new WriteBehindGameDAO(backing, WriteBehindGameDAO.Durability.GAME_END, 60_000, journal);
+        assertEquals("rnbqkbnr/pppp1ppp/8/4p3/4P3/8/PPPP1PPP/RNBQKBNR w KQkq - 0 2", backing.fen(1));
+    }
+
+    @Test
+    @DisplayName("Recovery Drops Moves Of Deleted Games")
+    void recoveryWithoutGame() throws Exception {
+        try (MoveJournal crashed = new MoveJournal(journal)) {
+            crashed.append(journaled(3, new ChessGame(), move(2, 5, 4, 5)));
+            crashed.append(journaled(1, new ChessGame(), move(2, 4, 4, 4)));
+        }
+
+        gameDAO = new WriteBehindGameDAO(backing, WriteBehindGameDAO.Durability.GAME_END, 60_000, journal);
+        assertEquals("rnbqkbnr/pppppppp/8/8/3P4/8/PPP1PPPP/RNBQKBNR b KQkq - 0 1", backing.fen(1));
+        assertEquals(0, journalBytes());
+    }
+
+    @Test
+    @DisplayName("Failed Recovery Keeps The Journal")
+    void recoveryFailure() throws Exception {
+        try (MoveJournal crashed = new MoveJournal(journal)) {
+            crashed.append(journaled(1, new ChessGame(), move(2, 5, 4, 5)));
+        }
+
+        backing.unavailable = true;
+        assertThrows(DataAccessException.class, () -> new WriteBehindGameDAO(backing,
+                WriteBehindGameDAO.Durability.GAME_END, 60_000, journal));
+        assertEquals(MoveJournal.RECORD_BYTES, journalBytes(), "Moves are kept while the database is down");
+
+        backing.unavailable = false;
+        gameDAO = new WriteBehindGameDAO(backing, WriteBehindGameDAO.Durability.GAME_END, 60_000, journal);
+        assertNotEquals(START, backing.fen(1), "The kept moves are recovered on the next start");
+    }
+
+    @Test
+    @DisplayName("Journal Cannot Be Shared")
+    void sharedJournal() throws Exception {
+        gameDAO = new WriteBehindGameDAO(backing, WriteBehindGameDAO.Durability.INTERVAL, 60_000, journal);
+        play(1, move(2, 5, 4, 5));
+        assertThrows(IOException.class, () -> new WriteBehindGameDAO(backing,
+                WriteBehindGameDAO.Durability.INTERVAL, 60_000, journal), "A second server would replay live moves");
+        assertEquals(MoveJournal.RECORD_BYTES, journalBytes(), "The journal is left alone");
+    }
+
+    @Test
+    @DisplayName("Other Updates Are Written Through")
+    void writeThrough() throws Exception {
+        gameDAO = new WriteBehindGameDAO(backing, WriteBehindGameDAO.Durability.INTERVAL, 60_000, journal);
+        play(1, move(2, 5, 4, 5));
+        GameData game = gameDAO.getGame(1);
+        gameDAO.updateGame("1", new GameData(1, null, game.blackUsername(), game.gameName(), game.game()));
+
+        GameData stored = backing.getGame(1);
+        assertNull(stored.whiteUsername());
+        assertNotEquals(START, stored.game().toFen(), "Moves not yet flushed are written with the update");
+        assertTrue(gameDAO.flush());
+        assertEquals(1, backing.logged.size(), "The move is still logged");
+    }
+
+    @Test
+    @DisplayName("Listing Shows Live Games")
+    void listing() throws Exception {
+        gameDAO = new WriteBehindGameDAO(backing, WriteBehindGameDAO.Durability.INTERVAL, 60_000, journal);
+        play(1, move(2, 6, 3, 6));
+        play(1, move(7, 5, 5, 5));
+        play(1, move(2, 7, 4, 7));
+        play(1, move(8, 4, 4, 8));
+        assertFalse(backing.getGame(1).game().getGameOver());
+        assertEquals(List.of(new GameSummary(1, "white", "black", "Game1", true),
+                new GameSummary(2, "white", "black", "Game2", false)), gameDAO.listGames().stream()
+                .sorted(Comparator.comparingInt(GameSummary::gameID)).toList(),
+                "The live game is listed as finished before it is written");
+
+        gameDAO.clear();
+        assertEquals(0, gameDAO.activeGames());
+        assertEquals(0, journalBytes());
+    }
+
+    private void play(int gameID, ChessMove move) throws DataAccessException, InvalidMoveException {
+        GameData game = gameDAO.getGame(gameID);
+        synchronized (game.game()) {
+            game.game().makeMove(move);
+            if (game.game().getStatus().isGameOver()) {
+                game.game().setGameOver(true);
+            }
+            gameDAO.recordMove(game, Move.encode(move));
+        }
+    }
+
+    private long journalBytes() throws IOException {
+        long bytes = 0;
+        try (Stream<Path> files = Files.list(journal.getParent())) {
+            for (Path file : files.toList()) {
+                if (!file.equals(journal)) {
+                    bytes += Files.size(file);
+                }
+            }
+        }
+        return bytes;
+    }
+
+    private static GameMove journaled(int gameID, ChessGame game, ChessMove move) throws InvalidMoveException {
+        int ply = game.getPly();
+        game.makeMove(move);
+        return new GameMove(gameID, ply, Move.encode(move), System.currentTimeMillis());
+    }
+
+    private void awaitWrites(int batches) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (backing.batches.size() < batches && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(batches, backing.batches.size());
+    }
+
+    private static ChessMove move(int startRow, int startColumn, int endRow, int endColumn) {
+        return new ChessMove(new ChessPosition(startRow, startColumn), new ChessPosition(endRow, endColumn), null);
+    }
+
+    /**
+     * Stores games as JSON, like the SQL DAO, so a stored game only changes
+     * when it is written.
+     */
+    private static final class StoredGameDAO implements GameDAO {
+
+        private final Gson gson = new Gson();
+        private final Map<Integer, String> games = new ConcurrentHashMap<>();
+        private final Map<Integer, String[]> players = new ConcurrentHashMap<>();
+        final List<Integer> batches = new CopyOnWriteArrayList<>();
+        final List<GameMove> logged = new CopyOnWriteArrayList<>();
+        volatile boolean unavailable;
+
+        @Override
+        public void createGame(GameData game) {
+            updateGame(String.valueOf(game.gameID()), game);
+        }
+
+        @Override
+        public GameData getGame(int gameID) throws DataAccessException {
+            if (unavailable) {
+                throw new DataAccessException("Unable to connect to the database");
+            }
+            String json = games.get(gameID);
+            if (json == null) {
+                throw new GameNotFoundException("Game not found.");
+            }
+            String[] names = players.get(gameID);
+            return new GameData(gameID, names[0], names[1], names[2], gson.fromJson(json, ChessGame.class));
+        }
+
+        @Override
+        public void updateGame(String s, GameData updatedGame) {
+            players.put(updatedGame.gameID(), new String[]{updatedGame.whiteUsername(),
+                    updatedGame.blackUsername(), updatedGame.gameName()});
+            games.put(updatedGame.gameID(), gson.toJson(updatedGame.game()));
+        }
+
+        @Override
+        public synchronized void appendMoves(List<GameData> updatedGames, List<GameMove> moves) {
+            updatedGames.forEach(game -> updateGame(String.valueOf(game.gameID()), game));
+            logged.addAll(moves);
+            batches.add(updatedGames.size());
+        }
+
+        @Override
+        public void recordMove(GameData game, int move) {
+            updateGame(String.valueOf(game.gameID()), game);
+        }
+
+        @Override
+        public void clear() {
+            games.clear();
+            players.clear();
+        }
+
+        @Override
+        public List<GameSummary> listGames() {
+            List<GameSummary> listed = new ArrayList<>();
+            for (int gameID : games.keySet()) {
+                String[] names = players.get(gameID);
+                boolean gameOver = gson.fromJson(games.get(gameID), ChessGame.class).getGameOver();
+                listed.add(new GameSummary(gameID, names[0], names[1], names[2], gameOver));
+            }
+            return listed;
+        }
+
+        @Override
+        public boolean gameExists(int gameID) {
+            return games.containsKey(gameID);
+        }
+
+        String fen(int gameID) throws DataAccessException {
+            return getGame(gameID).game().toFen();
+        }
+    }
+}
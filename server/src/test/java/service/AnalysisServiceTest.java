@@ -0,0 +1,91 @@
+package service;
+
+import chess.ChessGame;
+import chess.engine.SearchResult;
+import org.junit.jupiter.api.*;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AnalysisServiceTest {
+
+    private AnalysisService analysisService;
+
+    @BeforeEach
+    void setup() {
+        analysisService = new AnalysisService(1, 1);
+    }
+
+    @AfterEach
+    void cleanup() {
+        analysisService.shutdown();
+    }
+
+    @Test
+    @DisplayName("Analysis Streams Every Depth")
+    void streamsDepths() throws InterruptedException {
+        List<List<SearchResult>> updates = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(1);
+        analysisService.start("authToken", 1, new ChessGame(), 2, 3, (lines, complete) -> {
+            updates.add(lines);
+            if (complete) {
+                done.countDown();
+            }
+        });
+
+        assertTrue(done.await(30, TimeUnit.SECONDS), "Analysis did not finish");
+        assertEquals(4, updates.size(), "Three depths and the final result");
+        for (int depth = 1; depth <= 3; depth++) {
+            assertEquals(2, updates.get(depth - 1).size());
+            assertEquals(depth, updates.get(depth - 1).get(0).depth());
+        }
+        assertEquals(updates.get(2), updates.get(3));
+        assertEquals(0, analysisService.pending());
+    }
+
+    @Test
+    @DisplayName("Cancelled Analysis Stops Sending")
+    void cancel() throws InterruptedException {
+        CountDownLatch firstDepth = new CountDownLatch(1);
+        List<Boolean> completions = new CopyOnWriteArrayList<>();
+        analysisService.start("authToken", 1, new ChessGame(), 5, AnalysisService.MAX_DEPTH, (lines, complete) -> {
+            completions.add(complete);
+            firstDepth.countDown();
+        });
+        assertTrue(firstDepth.await(30, TimeUnit.SECONDS));
+
+        assertTrue(analysisService.cancel("authToken", 1));
+        assertFalse(analysisService.cancel("authToken", 1), "Already cancelled");
+        int sent = completions.size();
+        Thread.sleep(200);
+        assertTrue(completions.size() <= sent + 1, "Updates kept coming after cancel");
+        assertFalse(completions.contains(true), "A cancelled analysis is never completed");
+    }
+
+    @Test
+    @DisplayName("Full Queue Rejects Analysis")
+    void boundedQueue() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        analysisService.start("first", 1, new ChessGame(), 1, 1, (lines, complete) -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(started.await(30, TimeUnit.SECONDS));
+        analysisService.start("second", 1, new ChessGame(), 1, 1, (lines, complete) -> { });
+
+        assertThrows(RejectedExecutionException.class,
+                () -> analysisService.start("third", 1, new ChessGame(), 1, 1, (lines, complete) -> { }));
+        assertEquals(2, analysisService.pending(), "A rejected analysis is not tracked");
+        release.countDown();
+    }
+}
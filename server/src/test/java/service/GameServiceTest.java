@@ -3,6 +3,7 @@ package service;
 import dataaccess.*;
 import model.AuthData;
 import model.GameData;
+import model.GameSummary;
 import org.junit.jupiter.api.*;
 import service.*;
 
@@ -60,7 +61,7 @@ public class GameServiceTest {
         int gameID2 = gameService.createGame(authData.authToken(), "Game2");
         int gameID3 = gameService.createGame(authData.authToken(), "Game3");
 
-        List<GameData> games = gameService.listGames(authData.authToken());
+        List<GameSummary> games = gameService.listGames(authData.authToken());
 
         assertEquals(3, games.size(), "There should be exactly three games listed");
         assertTrue(games.stream().anyMatch(game -> game.gameID() == gameID1), "Game1 should be in the list");
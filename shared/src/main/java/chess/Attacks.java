@@ -0,0 +1,265 @@
+package chess;
+
+/**
+ * Precomputed attack tables for move generation.
+ * <p>
+ * Knight, king and pawn attacks are plain 64-entry lookup tables. Rook and
+ * bishop attacks use magic bitboards: the blockers on a square's relevant
+ * rays are multiplied by a per-square magic number, and the high bits of the
+ * product index a table holding the attack set for that blocker pattern.
+ * Queen attacks are the union of the two. Squares follow {@link Bitboard}
+ * numbering.
+ */
+public final class Attacks {
+
+    private static final long[] ROOK_MAGICS = {
+            0x0080021620804001L, 0x0040001000200041L, 0x0200102200088040L, 0x4080040800821000L,
+            0x2200020004200810L, 0x4B00020C000D0008L, 0x01000C4183000600L, 0x2080010000402C80L,
+            0x8002800826864000L, 0x0410802000884000L, 0x0C01004010200100L, 0x020300100100203CL,
+            0x0450800801040080L, 0x4010800200040080L, 0x8804000208048110L, 0x0C40800080004100L,
+            0xA2018880024004A0L, 0x0080848020004004L, 0x1010410010200101L, 0x2010008008008010L,
+            0x0A08010004110008L, 0x0802080104209040L, 0x0080040090010802L, 0x0280020000841069L,
+            0x080C400080248000L, 0x2048850100224008L, 0x00200800C0300040L, 0x11400D0100201000L,
+            0x0041001100080204L, 0x4802000200040810L, 0x0100080C00103601L, 0x0020084200043085L,
+            0x0100804000800022L, 0x0460401000402002L, 0x8309002001001044L, 0x0000800800801000L,
+            0x0000800800800400L, 0xB542040080800200L, 0x1041000401000200L, 0x000318B04A000401L,
+            0x0280082000484000L, 0x0080400081010030L, 0x0010002000108080L, 0x012010002101000AL,
+            0x0801000408010012L, 0x0004008002008004L, 0x0AD1005200110014L, 0x4000004110820004L,
+            0x9400400080003080L, 0x0000802200490200L, 0x1521100080200280L, 0x9021000824100100L,
+            0x0081080080840280L, 0x0002000904100200L, 0x0130024801302400L, 0x0102008100442200L,
+            0x0080984063800101L, 0x0016810201412812L, 0x40200101603008C1L, 0x2851100004082101L,
+            0x1049001002880005L, 0x0081000804000201L, 0x100020901208410CL, 0x0101064400813102L
+    };
+
+    private static final long[] BISHOP_MAGICS = {
+            0x24E0440C00802202L, 0x00881808841A4500L, 0x29C1021085004190L, 0x18C4041080042020L,
+            0x0841104000008108L, 0x890828080880C088L, 0x0006021024062018L, 0x2000404044104040L,
+            0x09000504104A0210L, 0x0088390204040820L, 0x4001420082008402L, 0x028108048B001142L,
+            0x1C00140421001008L, 0x0008021212200400L, 0x080000581A082004L, 0x3000048208027204L,
+            0x0120004044148482L, 0x4021000808108090L, 0x0084011808009452L, 0x11C802242020E000L,
+            0x0124002210140002L, 0x4009008200420200L, 0x0000830202100202L, 0x9002042500420200L,
+            0x0A60200004480210L, 0x0402481020480080L, 0x8001100101004200L, 0x6240104004004080L,
+            0x1124848014002000L, 0x00180200204100A0L, 0x8020890844880800L, 0x0000802009040204L,
+            0x0410042041100280L, 0x0804022000020440L, 0x2418280400480024L, 0x0801080800420A00L,
+            0x4002248400020020L, 0x3020004102038084L, 0x84280110601C0200L, 0x2004004208088080L,
+            0x0008022220041210L, 0x00820E0120000440L, 0x0002002201020822L, 0x0000002019000804L,
+            0x0211204C10101100L, 0x0604808081001200L, 0x1010029204030041L, 0x1008090102110621L,
+            0x0002015002100C00L, 0x06002C040404400AL, 0xC030002201100011L, 0x4040008020884000L,
+            0x0248000903040100L, 0xC010092008008040L, 0x6008084108020494L, 0x28102182008E0042L,
+            0x0010210820842002L, 0x4080020111491002L, 0x0108100084008800L, 0x0022242100420221L,
+            0x10A8008110020210L, 0x400019122A900102L, 0x00800A1051080300L, 0x0420222088008080L
+    };
+
+    private static final int[][] ROOK_DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+    private static final int[][] KNIGHT_OFFSETS = {
+            {2, 1}, {2, -1}, {-2, 1}, {-2, -1},
+            {1, 2}, {1, -2}, {-1, 2}, {-1, -2}
+    };
+    private static final int[][] KING_OFFSETS = {
+            {1, -1}, {1, 0}, {1, 1},
+            {0, -1}, {0, 1},
+            {-1, -1}, {-1, 0}, {-1, 1}
+    };
+
+    private static final long[] KNIGHT = new long[64];
+    private static final long[] KING = new long[64];
+    private static final long[][] PAWN = new long[2][64];
+
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final int[] ROOK_OFFSETS = new int[64];
+    private static final int[] BISHOP_OFFSETS = new int[64];
+    private static final long[] ROOK_TABLE;
+    private static final long[] BISHOP_TABLE;
+
+    private static final long[][] BETWEEN = new long[64][64];
+    private static final long[][] LINE = new long[64][64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            KNIGHT[square] = offsets(square, KNIGHT_OFFSETS);
+            KING[square] = offsets(square, KING_OFFSETS);
+            PAWN[Bitboard.WHITE][square] = offsets(square, new int[][]{{1, -1}, {1, 1}});
+            PAWN[Bitboard.BLACK][square] = offsets(square, new int[][]{{-1, -1}, {-1, 1}});
+        }
+        ROOK_TABLE = buildSliderTable(ROOK_DIRECTIONS, ROOK_MAGICS, ROOK_MASKS, ROOK_SHIFTS, ROOK_OFFSETS);
+        BISHOP_TABLE = buildSliderTable(BISHOP_DIRECTIONS, BISHOP_MAGICS, BISHOP_MASKS, BISHOP_SHIFTS, BISHOP_OFFSETS);
+
+        for (int a = 0; a < 64; a++) {
+            for (int b = 0; b < 64; b++) {
+                if (a == b) {
+                    continue;
+                }
+                long ends = (1L << a) | (1L << b);
+                if ((rookAttacks(a, 0) & (1L << b)) != 0) {
+                    LINE[a][b] = (rookAttacks(a, 0) & rookAttacks(b, 0)) | ends;
+                    BETWEEN[a][b] = rookAttacks(a, 1L << b) & rookAttacks(b, 1L << a);
+                } else if ((bishopAttacks(a, 0) & (1L << b)) != 0) {
+                    LINE[a][b] = (bishopAttacks(a, 0) & bishopAttacks(b, 0)) | ends;
+                    BETWEEN[a][b] = bishopAttacks(a, 1L << b) & bishopAttacks(b, 1L << a);
+                }
+            }
+        }
+    }
+
+    private Attacks() {
+    }
+
+    public static long knightAttacks(int square) {
+        return KNIGHT[square];
+    }
+
+    public static long kingAttacks(int square) {
+        return KING[square];
+    }
+
+    /**
+     * @return the squares a pawn of the given color on the given square attacks
+     */
+    public static long pawnAttacks(int color, int square) {
+        return PAWN[color][square];
+    }
+
+    public static long rookAttacks(int square, long occupied) {
+        long blockers = occupied & ROOK_MASKS[square];
+        return ROOK_TABLE[ROOK_OFFSETS[square] + (int) ((blockers * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square])];
+    }
+
+    public static long bishopAttacks(int square, long occupied) {
+        long blockers = occupied & BISHOP_MASKS[square];
+        return BISHOP_TABLE[BISHOP_OFFSETS[square]
+                + (int) ((blockers * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square])];
+    }
+
+    public static long queenAttacks(int square, long occupied) {
+        return rookAttacks(square, occupied) | bishopAttacks(square, occupied);
+    }
+
+    /**
+     * @return the attack set of a non-pawn piece type on the given square
+     */
+    public static long attacks(int type, int square, long occupied) {
+        if (type == Bitboard.KNIGHT) {
+            return KNIGHT[square];
+        } else if (type == Bitboard.BISHOP) {
+            return bishopAttacks(square, occupied);
+        } else if (type == Bitboard.ROOK) {
+            return rookAttacks(square, occupied);
+        } else if (type == Bitboard.QUEEN) {
+            return queenAttacks(square, occupied);
+        } else if (type == Bitboard.KING) {
+            return KING[square];
+        }
+        throw new IllegalArgumentException("No attack table for piece type " + type);
+    }
+
+    /**
+     * @return the squares strictly between two squares on a shared rank, file or
+     * diagonal, or 0 if they are not aligned
+     */
+    public static long between(int a, int b) {
+        return BETWEEN[a][b];
+    }
+
+    /**
+     * @return the whole rank, file or diagonal through two squares, or 0 if they
+     * are not aligned
+     */
+    public static long line(int a, int b) {
+        return LINE[a][b];
+    }
+
+    /**
+     * @return the pieces of the given color attacking a square, with sliding
+     * attacks computed against the given occupancy
+     */
+    public static long attackers(Bitboard bits, int square, int byColor, long occupied) {
+        long queens = bits.pieces(byColor, Bitboard.QUEEN);
+        return (PAWN[byColor ^ 1][square] & bits.pieces(byColor, Bitboard.PAWN))
+                | (KNIGHT[square] & bits.pieces(byColor, Bitboard.KNIGHT))
+                | (KING[square] & bits.pieces(byColor, Bitboard.KING))
+                | (bishopAttacks(square, occupied) & (bits.pieces(byColor, Bitboard.BISHOP) | queens))
+                | (rookAttacks(square, occupied) & (bits.pieces(byColor, Bitboard.ROOK) | queens));
+    }
+
+    private static long offsets(int square, int[][] offsets) {
+        int row = square >>> 3;
+        int col = square & 7;
+        long attacks = 0;
+        for (int[] offset : offsets) {
+            int endRow = row + offset[0];
+            int endCol = col + offset[1];
+            if (onBoard(endRow, endCol)) {
+                attacks |= 1L << (endRow * 8 + endCol);
+            }
+        }
+        return attacks;
+    }
+
+    private static long[] buildSliderTable(int[][] directions, long[] magics, long[] masks, int[] shifts,
+                                           int[] offsets) {
+        int size = 0;
+        for (int square = 0; square < 64; square++) {
+            masks[square] = relevantBlockers(square, directions);
+            int bits = Long.bitCount(masks[square]);
+            shifts[square] = 64 - bits;
+            offsets[square] = size;
+            size += 1 << bits;
+        }
+
+        long[] table = new long[size];
+        for (int square = 0; square < 64; square++) {
+            long mask = masks[square];
+            long subset = 0;
+            do {
+                int index = (int) ((subset * magics[square]) >>> shifts[square]);
+                table[offsets[square] + index] = slowRays(square, subset, directions);
+                subset = (subset - mask) & mask;
+            } while (subset != 0);
+        }
+        return table;
+    }
+
+    /**
+     * Squares on the rays from a square whose occupancy can change the attack
+     * set. The last square of each ray never blocks anything, so it is left out.
+     */
+    private static long relevantBlockers(int square, int[][] directions) {
+        long mask = 0;
+        for (int[] direction : directions) {
+            int row = (square >>> 3) + direction[0];
+            int col = (square & 7) + direction[1];
+            while (onBoard(row + direction[0], col + direction[1])) {
+                mask |= 1L << (row * 8 + col);
+                row += direction[0];
+                col += direction[1];
+            }
+        }
+        return mask;
+    }
+
+    private static long slowRays(int square, long occupied, int[][] directions) {
+        long attacks = 0;
+        for (int[] direction : directions) {
+            int row = (square >>> 3) + direction[0];
+            int col = (square & 7) + direction[1];
+            while (onBoard(row, col)) {
+                long bit = 1L << (row * 8 + col);
+                attacks |= bit;
+                if ((occupied & bit) != 0) {
+                    break;
+                }
+                row += direction[0];
+                col += direction[1];
+            }
+        }
+        return attacks;
+    }
+
+    private static boolean onBoard(int row, int col) {
+        return row >= 0 && row < 8 && col >= 0 && col < 8;
+    }
+}
@@ -0,0 +1,287 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * Board engine backing {@link ChessBoard}. Pieces are stored as twelve 64-bit
+ * piece bitboards plus one occupancy mask per color.
+ * <p>
+ * Squares are numbered 0..63 starting at a1 (row 1, column 1) and running
+ * along each row, so square = (row - 1) * 8 + (column - 1). Pieces are
+ * identified by a piece code of color * 6 + {@link ChessPiece.PieceType#ordinal()},
+ * with {@link #EMPTY} for an empty square.
+ * <p>
+ * The Zobrist key of the piece placement, a separate key of the pawns alone,
+ * and a running material and piece-square score (see {@link PieceSquareTables})
+ * are kept up to date as pieces are put and removed, so none of them needs a
+ * scan of the board.
+ */
+public final class Bitboard {
+
+    public static final int WHITE = 0;
+    public static final int BLACK = 1;
+    public static final int EMPTY = -1;
+
+    public static final int KING = ChessPiece.PieceType.KING.ordinal();
+    public static final int QUEEN = ChessPiece.PieceType.QUEEN.ordinal();
+    public static final int BISHOP = ChessPiece.PieceType.BISHOP.ordinal();
+    public static final int KNIGHT = ChessPiece.PieceType.KNIGHT.ordinal();
+    public static final int ROOK = ChessPiece.PieceType.ROOK.ordinal();
+    public static final int PAWN = ChessPiece.PieceType.PAWN.ordinal();
+
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+    private static final ChessPiece[] PIECES = new ChessPiece[12];
+
+    static {
+        for (int code = 0; code < 12; code++) {
+            PIECES[code] = new ChessPiece(colorOf(code), TYPES[typeOf(code)]);
+        }
+    }
+
+    private final long[] pieces;
+    private final long[] colors;
+    private long key;
+    private long pawnKey;
+    private int midgame;
+    private int endgame;
+    private int phase;
+
+    public Bitboard() {
+        pieces = new long[12];
+        colors = new long[2];
+    }
+
+    public Bitboard(Bitboard other) {
+        pieces = other.pieces.clone();
+        colors = other.colors.clone();
+        key = other.key;
+        pawnKey = other.pawnKey;
+        midgame = other.midgame;
+        endgame = other.endgame;
+        phase = other.phase;
+    }
+
+    public static int square(int row, int col) {
+        return (row - 1) * 8 + (col - 1);
+    }
+
+    public static int square(ChessPosition position) {
+        return square(position.getRow(), position.getColumn());
+    }
+
+    public static int rowOf(int square) {
+        return (square >>> 3) + 1;
+    }
+
+    public static int columnOf(int square) {
+        return (square & 7) + 1;
+    }
+
+    public static int pieceCode(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return pieceCode(color == ChessGame.TeamColor.WHITE ? WHITE : BLACK, type.ordinal());
+    }
+
+    public static int pieceCode(int color, int type) {
+        return color * 6 + type;
+    }
+
+    public static int pieceCode(ChessPiece piece) {
+        return pieceCode(piece.getTeamColor(), piece.getPieceType());
+    }
+
+    public static int colorIndex(ChessGame.TeamColor color) {
+        return color == ChessGame.TeamColor.WHITE ? WHITE : BLACK;
+    }
+
+    public static int colorCode(int code) {
+        return code / 6;
+    }
+
+    public static int typeOf(int code) {
+        return code % 6;
+    }
+
+    public static ChessGame.TeamColor colorOf(int code) {
+        return code < 6 ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+    }
+
+    /**
+     * @return the shared, immutable ChessPiece for a piece code, or null for {@link #EMPTY}
+     */
+    public static ChessPiece pieceOf(int code) {
+        return code == EMPTY ? null : PIECES[code];
+    }
+
+    /**
+     * @return the piece code on the given square, or {@link #EMPTY}
+     */
+    public int pieceAt(int square) {
+        long bit = 1L << square;
+        int base;
+        if ((colors[WHITE] & bit) != 0) {
+            base = 0;
+        } else if ((colors[BLACK] & bit) != 0) {
+            base = 6;
+        } else {
+            return EMPTY;
+        }
+        for (int type = 0; type < 5; type++) {
+            if ((pieces[base + type] & bit) != 0) {
+                return base + type;
+            }
+        }
+        return base + PAWN;
+    }
+
+    /**
+     * Places a piece on an empty square.
+     */
+    public void put(int square, int code) {
+        long bit = 1L << square;
+        pieces[code] |= bit;
+        colors[colorCode(code)] |= bit;
+        long zobrist = Zobrist.piece(code, square);
+        key ^= zobrist;
+        if (typeOf(code) == PAWN) {
+            pawnKey ^= zobrist;
+        }
+        midgame += PieceSquareTables.MIDGAME[code][square];
+        endgame += PieceSquareTables.ENDGAME[code][square];
+        phase += PieceSquareTables.PHASE[code];
+    }
+
+    /**
+     * Clears a square, returning the piece code that was on it.
+     */
+    public int remove(int square) {
+        int code = pieceAt(square);
+        if (code != EMPTY) {
+            long bit = ~(1L << square);
+            pieces[code] &= bit;
+            colors[colorCode(code)] &= bit;
+            long zobrist = Zobrist.piece(code, square);
+            key ^= zobrist;
+            if (typeOf(code) == PAWN) {
+                pawnKey ^= zobrist;
+            }
+            midgame -= PieceSquareTables.MIDGAME[code][square];
+            endgame -= PieceSquareTables.ENDGAME[code][square];
+            phase -= PieceSquareTables.PHASE[code];
+        }
+        return code;
+    }
+
+    public void clear() {
+        Arrays.fill(pieces, 0L);
+        Arrays.fill(colors, 0L);
+        key = 0;
+        pawnKey = 0;
+        midgame = 0;
+        endgame = 0;
+        phase = 0;
+    }
+
+    /**
+     * Recomputes the keys and scores from the piece bitboards, for a board
+     * whose bitboards were filled in from outside, such as by reflection.
+     */
+    public void rebuild() {
+        long[] placed = pieces.clone();
+        clear();
+        for (int code = 0; code < placed.length; code++) {
+            for (long board = placed[code]; board != 0; board &= board - 1) {
+                put(Long.numberOfTrailingZeros(board), code);
+            }
+        }
+    }
+
+    public void reset() {
+        clear();
+        int[] backRank = {ROOK, KNIGHT, BISHOP, QUEEN, KING, BISHOP, KNIGHT, ROOK};
+        for (int col = 0; col < 8; col++) {
+            put(col, pieceCode(WHITE, backRank[col]));
+            put(8 + col, pieceCode(WHITE, PAWN));
+            put(48 + col, pieceCode(BLACK, PAWN));
+            put(56 + col, pieceCode(BLACK, backRank[col]));
+        }
+    }
+
+    public long pieces(int code) {
+        return pieces[code];
+    }
+
+    public long pieces(int color, int type) {
+        return pieces[pieceCode(color, type)];
+    }
+
+    public long occupancy(int color) {
+        return colors[color];
+    }
+
+    public long occupancy() {
+        return colors[WHITE] | colors[BLACK];
+    }
+
+    /**
+     * @return the square of the given color's king, or {@link #EMPTY} if it has none
+     */
+    public int kingSquare(int color) {
+        long king = pieces[pieceCode(color, KING)];
+        return king == 0 ? EMPTY : Long.numberOfTrailingZeros(king);
+    }
+
+    /**
+     * @return true if any piece of the given color attacks the square
+     */
+    public boolean isAttacked(int square, int byColor) {
+        return Attacks.attackers(this, square, byColor, occupancy()) != 0;
+    }
+
+    /**
+     * @return the Zobrist key of the piece placement
+     */
+    public long key() {
+        return key;
+    }
+
+    /**
+     * @return the Zobrist key of the pawns alone
+     */
+    public long pawnKey() {
+        return pawnKey;
+    }
+
+    /**
+     * @return the game phase, from {@link PieceSquareTables#MAX_PHASE} with all
+     * pieces on the board down to 0 with only kings and pawns
+     */
+    public int phase() {
+        return Math.min(phase, PieceSquareTables.MAX_PHASE);
+    }
+
+    /**
+     * @return the material and piece-square score from White's point of view,
+     * blended from the middlegame and endgame values by the game phase
+     */
+    public int score() {
+        int weight = phase();
+        return (midgame * weight + endgame * (PieceSquareTables.MAX_PHASE - weight)) / PieceSquareTables.MAX_PHASE;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        Bitboard that = (Bitboard) o;
+        return Arrays.equals(pieces, that.pieces);
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (key ^ (key >>> 32));
+    }
+}
@@ -0,0 +1,114 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * Castling rules over a {@link Bitboard}. Castling rights are four bits, one
+ * per king and side, kept by {@link ChessGame} and cleared as the kings and
+ * rooks leave (or are captured on) their starting squares.
+ */
+final class Castling {
+
+    static final int WHITE_KINGSIDE = 1;
+    static final int WHITE_QUEENSIDE = 2;
+    static final int BLACK_KINGSIDE = 4;
+    static final int BLACK_QUEENSIDE = 8;
+    static final int ALL = 15;
+
+    static final int[] KING_START = {4, 60};
+
+    /**
+     * Rights that survive a move from or to each square.
+     */
+    private static final int[] KEEP = new int[64];
+
+    static {
+        Arrays.fill(KEEP, ALL);
+        KEEP[0] = ALL & ~WHITE_QUEENSIDE;
+        KEEP[4] = ALL & ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        KEEP[7] = ALL & ~WHITE_KINGSIDE;
+        KEEP[56] = ALL & ~BLACK_QUEENSIDE;
+        KEEP[60] = ALL & ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        KEEP[63] = ALL & ~BLACK_KINGSIDE;
+    }
+
+    private Castling() {
+    }
+
+    static int kingside(int color) {
+        return WHITE_KINGSIDE << (2 * color);
+    }
+
+    static int queenside(int color) {
+        return WHITE_QUEENSIDE << (2 * color);
+    }
+
+    /**
+     * @return the rights left after a move between the given squares
+     */
+    static int update(int rights, int from, int to) {
+        return rights & KEEP[from] & KEEP[to];
+    }
+
+    /**
+     * @return the rights the placement of the pieces allows: a king and rook
+     * of the same color on their starting squares
+     */
+    static int available(Bitboard bits) {
+        int rights = 0;
+        for (int color = Bitboard.WHITE; color <= Bitboard.BLACK; color++) {
+            int king = KING_START[color];
+            if (bits.pieceAt(king) != Bitboard.pieceCode(color, Bitboard.KING)) {
+                continue;
+            }
+            int rook = Bitboard.pieceCode(color, Bitboard.ROOK);
+            if (bits.pieceAt(king + 3) == rook) {
+                rights |= kingside(color);
+            }
+            if (bits.pieceAt(king - 4) == rook) {
+                rights |= queenside(color);
+            }
+        }
+        return rights;
+    }
+
+    /**
+     * @return the squares the king of the given color can castle to. The king
+     * may not castle out of, through or into check, and the squares between it
+     * and the rook must be empty.
+     */
+    static long targets(Bitboard bits, int color, int rights) {
+        int kingside = rights & kingside(color);
+        int queenside = rights & queenside(color);
+        int king = KING_START[color];
+        int enemy = color ^ 1;
+        if ((kingside | queenside) == 0 || bits.isAttacked(king, enemy)) {
+            return 0;
+        }
+        long occupied = bits.occupancy();
+        long targets = 0;
+        if (kingside != 0 && (occupied & (3L << (king + 1))) == 0
+                && !bits.isAttacked(king + 1, enemy) && !bits.isAttacked(king + 2, enemy)) {
+            targets |= 1L << (king + 2);
+        }
+        if (queenside != 0 && (occupied & (7L << (king - 3))) == 0
+                && !bits.isAttacked(king - 1, enemy) && !bits.isAttacked(king - 2, enemy)) {
+            targets |= 1L << (king - 2);
+        }
+        return targets;
+    }
+
+    /**
+     * @return the square the rook castling with a king move starts on
+     */
+    static int rookFrom(int kingFrom, int kingTo) {
+        return kingTo > kingFrom ? kingTo + 1 : kingTo - 2;
+    }
+
+    /**
+     * @return the square the rook castling with a king move ends on
+     */
+    static int rookTo(int kingFrom, int kingTo) {
+        return (kingFrom + kingTo) / 2;
+    }
+}
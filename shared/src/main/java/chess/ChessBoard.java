@@ -1,14 +1,25 @@
 package chess;
 
-import java.util.Arrays;
+import com.google.gson.annotations.JsonAdapter;
+
 import java.util.Objects;
 
+@JsonAdapter(ChessBoardAdapter.class)
 public class ChessBoard {
 
-    private ChessPiece[][] board;
+    /**
+     * The game phase with every piece on the board. See {@link #getGamePhase()}.
+     */
+    public static final int MAX_GAME_PHASE = PieceSquareTables.MAX_PHASE;
+
+    private final Bitboard bits;
 
     public ChessBoard() {
-        board = new ChessPiece[8][8];
+        bits = new Bitboard();
+    }
+
+    public ChessBoard(ChessBoard other) {
+        bits = new Bitboard(other.bits);
     }
 
     @Override
@@ -20,70 +31,177 @@ public class ChessBoard {
             return false;
         }
         ChessBoard that = (ChessBoard) o;
-        return Objects.deepEquals(board, that.board);
+        return Objects.equals(bits, that.bits);
     }
 
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(board);
+        return bits.hashCode();
     }
 
+    /**
+     * Gets the Zobrist key of the pieces on this board. The key is updated
+     * incrementally by addPiece and removePiece.
+     *
+     * @return 64-bit key identifying the piece placement
+     */
+    public long getZobristKey() {
+        return bits.key();
+    }
+
+    /**
+     * Gets the material and piece-square score of this board, in centipawns
+     * from White's point of view. It is updated incrementally like the
+     * Zobrist key, so reading it costs nothing.
+     *
+     * @return the score, positive when White is better
+     */
+    public int getPositionalScore() {
+        return bits.score();
+    }
+
+    /**
+     * Gets how far the game has progressed by the material left:
+     * {@link #MAX_GAME_PHASE} with every piece on the board, down to 0 with
+     * only kings and pawns.
+     *
+     * @return the game phase
+     */
+    public int getGamePhase() {
+        return bits.phase();
+    }
+
+    /**
+     * Gets the Zobrist key of the pawns alone, for caching pawn structure.
+     *
+     * @return 64-bit key identifying the pawn placement
+     */
+    public long getPawnKey() {
+        return bits.pawnKey();
+    }
+
+    /**
+     * Writes the piece placement of this board in Forsyth-Edwards Notation,
+     * such as "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR".
+     *
+     * @return the placement field of a FEN string
+     */
+    public String toFen() {
+        StringBuilder fen = new StringBuilder(72);
+        Fen.writePlacement(bits, fen);
+        return fen.toString();
+    }
+
+    /**
+     * Reads a board from the piece placement of a FEN string. Anything after
+     * the placement field is ignored.
+     *
+     * @param fen a FEN string or just its placement field
+     * @return the board described
+     * @throws IllegalArgumentException if the placement is malformed
+     */
+    public static ChessBoard fromFen(String fen) {
+        ChessBoard board = new ChessBoard();
+        Fen.readPlacement(fen, 0, board.bits);
+        return board;
+    }
+
+    /**
+     * @throws IndexOutOfBoundsException if the position is off the board,
+     *                                   leaving the board unchanged
+     */
     public void addPiece(ChessPosition position, ChessPiece piece) {
-        int row = position.getRow() - 1;
-        int col = position.getColumn() - 1;
-        board[row][col] = piece;
+        int square = squareOf(position);
+        bits.remove(square);
+        if (piece != null) {
+            bits.put(square, Bitboard.pieceCode(piece));
+        }
     }
 
+    /**
+     * @throws IndexOutOfBoundsException if the position is off the board,
+     *                                   leaving the board unchanged
+     */
     public void removePiece(ChessPosition position) {
-        int row = position.getRow() - 1;
-        int col = position.getColumn() - 1;
-        board[row][col] = null;
+        bits.remove(squareOf(position));
     }
 
     public ChessPiece getPiece(ChessPosition position) {
-        int row = position.getRow() - 1;
-        int col = position.getColumn() - 1;
-        if (row < 0 || row >= 8 || col < 0 || col >= 8) {
+        int row = position.getRow();
+        int col = position.getColumn();
+        if (row < 1 || row > 8 || col < 1 || col > 8) {
             return null;
         }
-        return board[row][col];
+        return Bitboard.pieceOf(bits.pieceAt(Bitboard.square(row, col)));
     }
 
-    public ChessGame.TeamColor getTeamInTheLocation(ChessPosition position) {
-        if (getPiece(position) != null) {
-            return getPiece(position).getTeamColor();
-        } else {
-            return null;
+    private static int squareOf(ChessPosition position) {
+        int row = position.getRow();
+        int col = position.getColumn();
+        if (row < 1 || row > 8 || col < 1 || col > 8) {
+            throw new IndexOutOfBoundsException("Position off the board: row " + row + ", column " + col);
         }
+        return Bitboard.square(row, col);
+    }
+
+    /**
+     * Gets the piece on a square numbered as in {@link Move}: a1 is 0, h1 is 7
+     * and h8 is 63.
+     *
+     * @param square the square, 0 to 63
+     * @return the piece on the square, or null if it is empty
+     */
+    public ChessPiece getPiece(int square) {
+        return Bitboard.pieceOf(bits.pieceAt(square));
+    }
+
+    /**
+     * Gets the squares holding one kind of piece as a bitboard, where bit 0 is
+     * a1, bit 7 is h1 and bit 63 is h8.
+     *
+     * @param color the team of the pieces
+     * @param type the type of the pieces
+     * @return one bit set per square holding such a piece
+     */
+    public long getPieces(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return bits.pieces(Bitboard.colorIndex(color), type.ordinal());
+    }
+
+    public ChessGame.TeamColor getTeamInTheLocation(ChessPosition position) {
+        ChessPiece piece = getPiece(position);
+        return piece != null ? piece.getTeamColor() : null;
+    }
+
+    /**
+     * Determines if a square is attacked by the given team, by probing outward
+     * from the square with each piece's attack pattern instead of generating
+     * the attacker's moves.
+     *
+     * @param position the square to test
+     * @param byColor the attacking team
+     * @return True if any piece of that team attacks the square
+     */
+    public boolean isSquareAttacked(ChessPosition position, ChessGame.TeamColor byColor) {
+        return bits.isAttacked(Bitboard.square(position), Bitboard.colorIndex(byColor));
+    }
+
+    /**
+     * @param color the team whose king to find
+     * @return position of that team's king, or null if it has none
+     */
+    public ChessPosition getKingPosition(ChessGame.TeamColor color) {
+        int square = bits.kingSquare(Bitboard.colorIndex(color));
+        return square == Bitboard.EMPTY ? null : ChessPosition.of(square);
     }
 
     public void resetBoard() {
-        board = new ChessPiece[8][8];
-
-        board[0][0] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK);
-        board[0][1] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT);
-        board[0][2] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP);
-        board[0][3] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN);
-        board[0][4] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING);
-        board[0][5] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP);
-        board[0][6] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT);
-        board[0][7] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK);
-
-        for (int i = 0; i < 8; i++) {
-            board[1][i] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
-        }
+        bits.reset();
+    }
 
-        board[7][0] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK);
-        board[7][1] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT);
-        board[7][2] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP);
-        board[7][3] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN);
-        board[7][4] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING);
-        board[7][5] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP);
-        board[7][6] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT);
-        board[7][7] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK);
-
-        for (int i = 0; i < 8; i++) {
-            board[6][i] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN);
-        }
+    /**
+     * @return the bitboard engine holding this board's pieces
+     */
+    Bitboard bitboard() {
+        return bits;
     }
 }
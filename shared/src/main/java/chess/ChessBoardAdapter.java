@@ -0,0 +1,71 @@
+package chess;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Gson serialization for {@link ChessBoard}. Boards are written field by
+ * field, as their bitboards. Boards stored before the bitboard engine, as
+ * {@code {"board":[[{"pieceColor":"WHITE","type":"ROOK"},...],...]}} with
+ * row 1 first, are still read.
+ */
+public final class ChessBoardAdapter implements TypeAdapterFactory {
+
+    private static final String SQUARES = "board";
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        if (type.getRawType() != ChessBoard.class) {
+            return null;
+        }
+        TypeAdapter<ChessBoard> fields = gson.getDelegateAdapter(this, TypeToken.get(ChessBoard.class));
+        TypeAdapter<JsonElement> elements = gson.getAdapter(JsonElement.class);
+        TypeAdapter<ChessPiece[][]> squares = gson.getAdapter(ChessPiece[][].class);
+        return (TypeAdapter<T>) new TypeAdapter<ChessBoard>() {
+            @Override
+            public void write(JsonWriter out, ChessBoard board) throws IOException {
+                fields.write(out, board);
+            }
+
+            @Override
+            public ChessBoard read(JsonReader in) throws IOException {
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    return null;
+                }
+                JsonElement element = elements.read(in);
+                if (element.isJsonObject() && element.getAsJsonObject().has(SQUARES)
+                        && element.getAsJsonObject().get(SQUARES).isJsonArray()) {
+                    return fromSquares(squares.fromJsonTree(element.getAsJsonObject().get(SQUARES)));
+                }
+                ChessBoard board = fields.fromJsonTree(element);
+                board.bitboard().rebuild();
+                return board;
+            }
+        };
+    }
+
+    private static ChessBoard fromSquares(ChessPiece[][] squares) {
+        ChessBoard board = new ChessBoard();
+        Bitboard bits = board.bitboard();
+        for (int row = 0; row < Math.min(squares.length, 8); row++) {
+            for (int col = 0; squares[row] != null && col < Math.min(squares[row].length, 8); col++) {
+                ChessPiece piece = squares[row][col];
+                if (piece != null) {
+                    bits.put(Bitboard.square(row + 1, col + 1), Bitboard.pieceCode(piece));
+                }
+            }
+        }
+        bits.rebuild();
+        return board;
+    }
+}
@@ -1,7 +1,8 @@
 package chess;
 
+import com.google.gson.annotations.JsonAdapter;
+
 import java.util.Collection;
-import java.util.List;
 import java.util.ArrayList;
 import java.util.Objects;
 
@@ -11,11 +12,42 @@ import java.util.Objects;
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
  */
+@JsonAdapter(ChessGameAdapter.class)
 public class ChessGame {
 
     private ChessBoard board;
     private TeamColor currentTeamTurn;
     private boolean gameOver = false;
+    /**
+     * Castling rights in the low four bits (see {@link Castling}) and the file
+     * of the en passant square plus one above them, or 0 when no pawn can be
+     * taken en passant. The rank follows from the side to move. Above those,
+     * the halfmove clock in 8 bits and the fullmove number minus one in 16.
+     */
+    private int state = Castling.ALL;
+    private final transient UndoStack undoStack = new UndoStack();
+    /**
+     * Keys of the positions before each move, indexed by ply. Only the last
+     * halfmove clock's worth can repeat, and a game with a clock of 100 is
+     * drawn anyway, so a short ring is enough.
+     */
+    private transient long[] history;
+    private transient int ply;
+    private static final int CASTLING_MASK = 0xF;
+    private static final int EN_PASSANT_SHIFT = 4;
+    private static final int EN_PASSANT_MASK = 0xF << EN_PASSANT_SHIFT;
+    private static final int CLOCK_SHIFT = 8;
+    private static final int MAX_CLOCK = 0xFF;
+    private static final int FULLMOVE_SHIFT = 16;
+    private static final int MAX_FULLMOVE = 0xFFFF;
+    private static final int FIFTY_MOVE_PLIES = 100;
+    private static final int HISTORY_SIZE = 128;
+    private static final String CASTLING_SYMBOLS = "KQkq";
+    private static final long LIGHT_SQUARES = 0x55AA55AA55AA55AAL;
+    private static final GameStatus[] STATUSES = GameStatus.values();
+    private transient GameStatus status;
+    private transient long statusKey;
+    private transient MoveList cachedMoves;
     public boolean getGameOver() {
         return gameOver;
     }
@@ -28,6 +60,23 @@ public class ChessGame {
         board.resetBoard();
         this.currentTeamTurn = TeamColor.WHITE;
     }
+
+    /**
+     * Creates an independent copy of another game. The copy starts with an
+     * empty undo history but remembers earlier positions for repetitions.
+     *
+     * @param other the game to copy
+     */
+    public ChessGame(ChessGame other) {
+        this.board = new ChessBoard(other.board);
+        this.currentTeamTurn = other.currentTeamTurn;
+        this.gameOver = other.gameOver;
+        this.state = other.state;
+        if (other.history != null) {
+            this.history = other.history.clone();
+            this.ply = other.ply;
+        }
+    }
     /**
      * @return Which team's turn it is
      */
@@ -42,6 +91,7 @@ public class ChessGame {
      */
     public void setTeamTurn(TeamColor team) {
         this.currentTeamTurn = team;
+        this.state &= ~EN_PASSANT_MASK;
     }
 
     /**
@@ -55,6 +105,51 @@ public class ChessGame {
         }
     }
 
+    /**
+     * The state of a game for the team whose turn it is.
+     */
+    public enum GameStatus {
+        ONGOING,
+        CHECK,
+        CHECKMATE,
+        STALEMATE,
+        /**
+         * The same position, with the same side to move and the same
+         * castling and en passant rights, has occurred three times.
+         */
+        THREEFOLD_REPETITION,
+        /**
+         * Fifty moves by each side without a capture or a pawn move.
+         */
+        FIFTY_MOVE_RULE,
+        /**
+         * Neither side has enough material left to checkmate.
+         */
+        INSUFFICIENT_MATERIAL,
+        /**
+         * The installed {@link Tablebase} shows the side to move wins with
+         * best play.
+         */
+        TABLEBASE_WIN,
+        /**
+         * The installed {@link Tablebase} shows the side to move loses with
+         * best play.
+         */
+        TABLEBASE_LOSS,
+        /**
+         * The installed {@link Tablebase} shows neither side can force a win.
+         */
+        TABLEBASE_DRAW;
+
+        public boolean isGameOver() {
+            return this != ONGOING && this != CHECK;
+        }
+
+        public boolean isDraw() {
+            return isGameOver() && this != CHECKMATE && this != TABLEBASE_WIN && this != TABLEBASE_LOSS;
+        }
+    }
+
     /**
      * Gets valid moves for a piece at the given location.
      *
@@ -69,18 +164,72 @@ public class ChessGame {
             return null;
         }
 
-        Collection<ChessMove> moves = piece.pieceMoves(board, startPosition);
-        Collection<ChessMove> validMoves = new ArrayList<>();
+        int from = Bitboard.square(startPosition);
+        int entry = piece.getTeamColor() == currentTeamTurn ? cachedPosition() : -1;
+        if (entry != -1) {
+            Collection<ChessMove> validMoves = new ArrayList<>();
+            for (int i = 0; i < cachedMoves.size(); i++) {
+                if (Move.from(cachedMoves.get(i)) == from) {
+                    validMoves.add(Move.decode(cachedMoves.get(i)));
+                }
+            }
+            return validMoves;
+        }
+
+        long targets = MoveGenerator.legalTargets(board.bitboard(), from, getCastlingRights(), enPassantSquare());
+        MoveList validMoves = new MoveList();
+        MoveGenerator.addMoves(from, targets, piece.getPieceType() == ChessPiece.PieceType.PAWN, validMoves);
+        return validMoves.toChessMoves();
+    }
+
+    /**
+     * Gets every legal move for the team whose turn it is.
+     *
+     * @return Collection of legal moves, empty if the team has none
+     */
+    public Collection<ChessMove> legalMoves() {
+        return legalMoves(currentTeamTurn);
+    }
+
+    /**
+     * Gets every legal move for the given team. Pieces giving check and pieces
+     * pinned to the king are found once for the position, so unlike calling
+     * validMoves on each piece no move is tried out on the board.
+     *
+     * @param teamColor the team to get legal moves for
+     * @return Collection of legal moves, empty if the team has none
+     */
+    public Collection<ChessMove> legalMoves(TeamColor teamColor) {
+        if (teamColor == currentTeamTurn && cachedPosition() != -1) {
+            return cachedMoves.toChessMoves();
+        }
+        MoveList moves = new MoveList();
+        generateLegalMoves(teamColor, moves);
+        return moves.toChessMoves();
+    }
 
-        for (ChessMove move : moves) {
-            ChessPiece endPiece = board.getPiece(move.getEndPosition());
-            sim(move);
-            if (!isInCheck(piece.getTeamColor())) {
-                validMoves.add(move);
+    /**
+     * Gets every legal move for the team whose turn it is as packed
+     * {@link Move}s, without allocating. Searches and perft should use this
+     * with {@link #doMove(int)} rather than the {@link ChessMove} methods.
+     *
+     * @param moves cleared, then filled with the legal moves
+     */
+    public void legalMoves(MoveList moves) {
+        moves.clear();
+        if (cachedPosition() != -1) {
+            for (int i = 0; i < cachedMoves.size(); i++) {
+                moves.add(cachedMoves.get(i));
             }
-            undo(move, endPiece);
+            return;
         }
-        return validMoves;
+        generateLegalMoves(currentTeamTurn, moves);
+    }
+
+    private void generateLegalMoves(TeamColor teamColor, MoveList moves) {
+        int enPassant = teamColor == currentTeamTurn ? enPassantSquare() : Bitboard.EMPTY;
+        MoveGenerator.legalMoves(board.bitboard(), Bitboard.colorIndex(teamColor), getCastlingRights(), enPassant,
+                moves);
     }
 
     /**
@@ -91,89 +240,416 @@ public class ChessGame {
      */
     public void makeMove(ChessMove move) throws InvalidMoveException {
         boolean isTurn = getTeamTurn() == board.getTeamInTheLocation(move.getStartPosition());
-        Collection<ChessMove> moves = validMoves(move.getStartPosition());
 
         if (!isTurn) {
             throw new InvalidMoveException();
         }
-        if (!moves.contains(move)) {
+        if (!validMoves(move.getStartPosition()).contains(move)) {
             throw new InvalidMoveException();
         }
-        ChessPiece movingPiece = board.getPiece(move.getStartPosition());
-        if (move.getPromotionPiece() != null) {
-            movingPiece = new ChessPiece(movingPiece.getTeamColor(), move.getPromotionPiece());
-        }
+        doMove(move);
+    }
 
-        board.addPiece(move.getEndPosition(), movingPiece);
-        board.removePiece(move.getStartPosition());
+    /**
+     * Plays a move without checking that it is legal, recording what it
+     * changed so {@link #undoMove()} can take it back. Together they let
+     * legality tests and searches walk the move tree in place without
+     * allocating.
+     *
+     * @param move chess move to perform
+     * @throws IllegalArgumentException if there is no piece at the start position
+     */
+    public void doMove(ChessMove move) {
+        doMove(Move.encode(move));
+    }
+
+    /**
+     * Plays a packed {@link Move} without checking that it is legal, like
+     * {@link #doMove(ChessMove)}.
+     *
+     * @param move the packed move
+     * @throws IllegalArgumentException if there is no piece at the start square
+     */
+    public void doMove(int move) {
+        doMove(Move.from(move), Move.to(move), Move.promotion(move));
+    }
 
-        if (currentTeamTurn == TeamColor.WHITE) {
-            currentTeamTurn = TeamColor.BLACK;
+    void doMove(int from, int to, int promotionType) {
+        long key = getZobristKey();
+        Bitboard bits = board.bitboard();
+        int moving = bits.pieceAt(from);
+        if (moving == Bitboard.EMPTY) {
+            throw new IllegalArgumentException("No piece to move at square " + from);
+        }
+        int color = Bitboard.colorCode(moving);
+        int type = Bitboard.typeOf(moving);
+        int flags = 0;
+        bits.remove(from);
+        int captured = bits.remove(to);
+        if (type == Bitboard.PAWN && to == enPassantSquare()) {
+            captured = bits.remove(MoveGenerator.enPassantCapture(color, to));
+            flags = UndoStack.EN_PASSANT;
+        } else if (type == Bitboard.KING && Math.abs(to - from) == 2) {
+            bits.put(Castling.rookTo(from, to), bits.remove(Castling.rookFrom(from, to)));
+            flags = UndoStack.CASTLING;
+        }
+        if (promotionType != Bitboard.EMPTY) {
+            bits.put(to, Bitboard.pieceCode(color, promotionType));
+            flags = UndoStack.PROMOTION;
         } else {
-            currentTeamTurn = TeamColor.WHITE;
+            bits.put(to, moving);
+        }
+
+        long[] keys = history();
+        keys[ply++ & (HISTORY_SIZE - 1)] = key;
+        undoStack.push(UndoStack.record(from, to, captured, flags, state));
+        int clock = type == Bitboard.PAWN || captured != Bitboard.EMPTY ? 0
+                : Math.min(getHalfmoveClock() + 1, MAX_CLOCK);
+        int fullmove = Math.min(getFullmoveNumber() - 1 + color, MAX_FULLMOVE);
+        state = Castling.update(state & CASTLING_MASK, from, to) | (clock << CLOCK_SHIFT)
+                | (fullmove << FULLMOVE_SHIFT);
+        if (type == Bitboard.PAWN && Math.abs(to - from) == 16) {
+            state |= enPassantState(bits, (from + to) / 2, color ^ 1);
         }
+        currentTeamTurn = currentTeamTurn.opponent();
+        status = null;
     }
 
     /**
-     * Determines if the given team is in check.
+     * Determines if a packed {@link Move} takes a piece in this position,
+     * counting en passant captures.
      *
-     * @param teamColor which team to check for check
-     * @return True if the specified team is in check
+     * @param move the packed move
+     * @return True if the move captures
      */
-    public boolean isInCheck(TeamColor teamColor) {
-        ChessPosition kingPosition = findKing(teamColor);
+    public boolean isCapture(int move) {
+        Bitboard bits = board.bitboard();
+        int to = Move.to(move);
+        if (bits.pieceAt(to) != Bitboard.EMPTY) {
+            return true;
+        }
+        return to == enPassantSquare() && Bitboard.typeOf(bits.pieceAt(Move.from(move))) == Bitboard.PAWN;
+    }
 
-        TeamColor opponent = teamColor == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
+    /**
+     * Takes back the last move played with {@link #doMove} or {@link #makeMove}.
+     *
+     * @throws IllegalStateException if there is no move to take back
+     */
+    public void undoMove() {
+        long record = undoStack.pop();
+        Bitboard bits = board.bitboard();
+        int from = UndoStack.from(record);
+        int to = UndoStack.to(record);
+        int moved = bits.remove(to);
+        int color = Bitboard.colorCode(moved);
+        if (UndoStack.is(record, UndoStack.PROMOTION)) {
+            moved = Bitboard.pieceCode(color, Bitboard.PAWN);
+        }
+        bits.put(from, moved);
+        int captured = UndoStack.captured(record);
+        if (UndoStack.is(record, UndoStack.EN_PASSANT)) {
+            bits.put(MoveGenerator.enPassantCapture(color, to), captured);
+        } else if (captured != Bitboard.EMPTY) {
+            bits.put(to, captured);
+        }
+        if (UndoStack.is(record, UndoStack.CASTLING)) {
+            bits.put(Castling.rookFrom(from, to), bits.remove(Castling.rookTo(from, to)));
+        }
+        state = UndoStack.state(record);
+        ply--;
+        currentTeamTurn = currentTeamTurn.opponent();
+        status = null;
+    }
 
-        Collection<ChessPiece> opponentPieces = getTeamPieces(opponent);
+    /**
+     * Gets the castling rights still open in this game, as the bits defined in
+     * {@link Castling}. Rights are lost for good when a king or rook moves, and
+     * only count while the king and rook stand on their starting squares.
+     *
+     * @return the castling rights
+     */
+    int getCastlingRights() {
+        return state & CASTLING_MASK & Castling.available(board.bitboard());
+    }
 
-        for (ChessPiece piece : opponentPieces) {
-            Collection<ChessMove> moves = piece.pieceMoves(board, findPiece(piece));
-            for (ChessMove move : moves) {
-                if (move.getEndPosition().equals(kingPosition)) {
-                    return true;
-                }
-            }
+    /**
+     * @return the square the side to move can capture en passant on, or
+     * {@link Bitboard#EMPTY}
+     */
+    int enPassantSquare() {
+        int file = (state >>> EN_PASSANT_SHIFT) & 0xF;
+        if (file == 0) {
+            return Bitboard.EMPTY;
         }
-        return false;
+        return Bitboard.square(currentTeamTurn == TeamColor.WHITE ? 6 : 3, file);
     }
 
-    private ChessPosition findPiece(ChessPiece piece) {
-        for (int row = 0; row <= 8; row++) {
-            for (int col = 0; col <= 8; col++) {
-                if (board.getPiece(new ChessPosition(row, col)) == piece) {
-                    return new ChessPosition(row, col);
-                }
+    /**
+     * Gets the number of moves by either side since the last capture or pawn
+     * move, for the fifty-move rule.
+     *
+     * @return the halfmove clock
+     */
+    public int getHalfmoveClock() {
+        return (state >>> CLOCK_SHIFT) & MAX_CLOCK;
+    }
+
+    /**
+     * Gets the number of the current full move, which starts at 1 and goes up
+     * after each move by Black.
+     *
+     * @return the fullmove number
+     */
+    public int getFullmoveNumber() {
+        return ((state >>> FULLMOVE_SHIFT) & MAX_FULLMOVE) + 1;
+    }
+
+    /**
+     * Gets the number of half moves played to reach this position, counted
+     * from the fullmove number, so a game set up from FEN continues its count.
+     *
+     * @return the ply of the next move
+     */
+    public int getPly() {
+        return 2 * (getFullmoveNumber() - 1) + (currentTeamTurn == TeamColor.BLACK ? 1 : 0);
+    }
+
+    /**
+     * Determines if the current position has occurred before in this game.
+     * Only positions since the last capture or pawn move are compared, since
+     * no earlier one can come back.
+     *
+     * @return True if the position is a repetition
+     */
+    public boolean isRepetition() {
+        return repetitions(1) >= 1;
+    }
+
+    /**
+     * Counts earlier occurrences of the current position, stopping at the
+     * given limit. Positions repeat only with the same side to move, so every
+     * other ply is compared.
+     */
+    private int repetitions(int limit) {
+        if (history == null) {
+            return 0;
+        }
+        long key = getZobristKey();
+        int reach = Math.min(Math.min(getHalfmoveClock(), ply), HISTORY_SIZE);
+        int count = 0;
+        for (int back = 4; back <= reach && count < limit; back += 2) {
+            if (history[(ply - back) & (HISTORY_SIZE - 1)] == key) {
+                count++;
             }
         }
-        return null;
+        return count;
     }
 
-    private Collection<ChessPiece> getTeamPieces(TeamColor teamColor) {
-        List<ChessPiece> pieces = new ArrayList<>();
-        for (int row = 0; row <= 8; row++) {
-            for (int col = 0; col <= 8; col++) {
-                ChessPiece piece = board.getPiece(new ChessPosition(row, col));
-                if (piece != null && piece.getTeamColor() == teamColor) {
-                    pieces.add(piece);
-                }
+    private long[] history() {
+        if (history == null) {
+            history = new long[HISTORY_SIZE];
+        }
+        return history;
+    }
+
+    /**
+     * @return the keys of the positions since the last capture or pawn move,
+     * oldest first, for storing a game with its repetition history
+     */
+    long[] repetitionHistory() {
+        int length = Math.min(Math.min(getHalfmoveClock(), ply), HISTORY_SIZE);
+        long[] keys = new long[length];
+        for (int i = 0; i < length; i++) {
+            keys[i] = history[(ply - length + i) & (HISTORY_SIZE - 1)];
+        }
+        return keys;
+    }
+
+    /**
+     * Restores the keys written by {@link #repetitionHistory()}, as if the
+     * moves leading to them had just been played.
+     */
+    void restoreHistory(long[] keys) {
+        long[] ring = history();
+        int start = Math.max(keys.length - HISTORY_SIZE, 0);
+        ply = 0;
+        for (int i = start; i < keys.length; i++) {
+            ring[ply++ & (HISTORY_SIZE - 1)] = keys[i];
+        }
+        status = null;
+    }
+
+    /**
+     * Determines if neither side can possibly checkmate: only kings, or a
+     * single knight or bishop, or bishops all on squares of one color.
+     *
+     * @return True if the material left cannot force or even allow mate
+     */
+    public boolean isInsufficientMaterial() {
+        Bitboard bits = board.bitboard();
+        long heavy = 0;
+        long knights = 0;
+        long bishops = 0;
+        for (int color = Bitboard.WHITE; color <= Bitboard.BLACK; color++) {
+            heavy |= bits.pieces(color, Bitboard.PAWN) | bits.pieces(color, Bitboard.ROOK)
+                    | bits.pieces(color, Bitboard.QUEEN);
+            knights |= bits.pieces(color, Bitboard.KNIGHT);
+            bishops |= bits.pieces(color, Bitboard.BISHOP);
+        }
+        if (heavy != 0) {
+            return false;
+        }
+        int minors = Long.bitCount(knights | bishops);
+        if (minors <= 1) {
+            return true;
+        }
+        return knights == 0 && ((bishops & LIGHT_SQUARES) == 0 || (bishops & ~LIGHT_SQUARES) == 0);
+    }
+
+    /**
+     * The en passant square is only recorded when a pawn can take on it, so
+     * positions that differ only by a capture nobody can make are equal and
+     * share a key.
+     *
+     * @return the state bits recording the en passant square, or 0 if no pawn
+     * of the capturing color attacks it
+     */
+    private static int enPassantState(Bitboard bits, int square, int capturer) {
+        if ((Attacks.pawnAttacks(capturer ^ 1, square) & bits.pieces(capturer, Bitboard.PAWN)) == 0) {
+            return 0;
+        }
+        return Bitboard.columnOf(square) << EN_PASSANT_SHIFT;
+    }
+
+    /**
+     * Writes this game in Forsyth-Edwards Notation: piece placement, side to
+     * move, castling rights, en passant square, halfmove clock and fullmove
+     * number.
+     *
+     * @return the FEN string of the current position
+     */
+    public String toFen() {
+        StringBuilder fen = new StringBuilder(90);
+        Fen.writePlacement(board.bitboard(), fen);
+        fen.append(currentTeamTurn == TeamColor.WHITE ? " w " : " b ");
+        int rights = getCastlingRights();
+        if (rights == 0) {
+            fen.append('-');
+        }
+        for (int right = 0; right < 4; right++) {
+            if ((rights & (1 << right)) != 0) {
+                fen.append(CASTLING_SYMBOLS.charAt(right));
             }
         }
-        return pieces;
+        fen.append(' ');
+        int enPassant = enPassantSquare();
+        if (enPassant == Bitboard.EMPTY) {
+            fen.append('-');
+        } else {
+            Fen.writeSquare(enPassant, fen);
+        }
+        return fen.append(' ').append(getHalfmoveClock()).append(' ').append(getFullmoveNumber()).toString();
     }
 
-    private ChessPosition findKing(TeamColor teamColor) {
-        for (int row = 0; row <= 8; row++) {
-            for (int col = 0; col <= 8; col++) {
-                ChessPiece piece = board.getPiece(new ChessPosition(row, col));
-                if (piece != null &&
-                        piece.getPieceType() == ChessPiece.PieceType.KING &&
-                        piece.getTeamColor() == teamColor) {
-                    return new ChessPosition(row, col);
+    /**
+     * Reads a game from Forsyth-Edwards Notation. The move clock fields are
+     * optional and default to "0 1".
+     *
+     * @param fen the FEN string of the position
+     * @return a game at that position, with no move history
+     * @throws IllegalArgumentException if the string is not valid FEN
+     */
+    public static ChessGame fromFen(String fen) {
+        ChessBoard board = new ChessBoard();
+        Bitboard bits = board.bitboard();
+        int index = Fen.readPlacement(fen, 0, bits) + 1;
+
+        TeamColor turn = switch (charAt(fen, index)) {
+            case 'w' -> TeamColor.WHITE;
+            case 'b' -> TeamColor.BLACK;
+            default -> throw Fen.invalid(fen, "side to move must be w or b");
+        };
+        if (charAt(fen, index + 1) != ' ') {
+            throw Fen.invalid(fen, "missing castling rights");
+        }
+        index += 2;
+
+        int state = 0;
+        if (charAt(fen, index) == '-') {
+            index++;
+        } else {
+            for (char c = charAt(fen, index); c != ' ' && c != 0; c = charAt(fen, ++index)) {
+                int right = CASTLING_SYMBOLS.indexOf(c);
+                if (right < 0) {
+                    throw Fen.invalid(fen, "unknown castling right '%c'".formatted(c));
                 }
+                state |= 1 << right;
             }
         }
-        return null;
+        index++;
+
+        if (charAt(fen, index) != '-') {
+            int enPassant = Fen.readSquare(fen, index);
+            int rank = turn == TeamColor.WHITE ? 6 : 3;
+            if (enPassant == Bitboard.EMPTY || Bitboard.rowOf(enPassant) != rank) {
+                throw Fen.invalid(fen, "bad en passant square");
+            }
+            state |= enPassantState(bits, enPassant, Bitboard.colorIndex(turn));
+            index++;
+        }
+        index += 2;
+
+        int clock = 0;
+        int fullmove = 1;
+        if (index < fen.length()) {
+            int end = fen.indexOf(' ', index);
+            try {
+                clock = Integer.parseInt(fen, index, end < 0 ? fen.length() : end, 10);
+                fullmove = end < 0 ? 1 : Integer.parseInt(fen, end + 1, fen.length(), 10);
+            } catch (NumberFormatException e) {
+                throw Fen.invalid(fen, "move clocks must be numbers");
+            }
+            if (clock < 0 || fullmove < 1) {
+                throw Fen.invalid(fen, "move clocks out of range");
+            }
+        }
+        state |= (Math.min(clock, MAX_CLOCK) << CLOCK_SHIFT)
+                | (Math.min(fullmove - 1, MAX_FULLMOVE) << FULLMOVE_SHIFT);
+
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        game.currentTeamTurn = turn;
+        game.state = state;
+        return game;
+    }
+
+    private static char charAt(String fen, int index) {
+        return index < fen.length() ? fen.charAt(index) : 0;
+    }
+
+    /**
+     * Determines if the given team is in check.
+     *
+     * @param teamColor which team to check for check
+     * @return True if the specified team is in check
+     */
+    public boolean isInCheck(TeamColor teamColor) {
+        Bitboard bits = board.bitboard();
+        int color = Bitboard.colorIndex(teamColor);
+        int king = bits.kingSquare(color);
+        return king != Bitboard.EMPTY && bits.isAttacked(king, color ^ 1);
+    }
+
+    /**
+     * Determines if a square is attacked by the given team.
+     *
+     * @param position the square to test
+     * @param byColor the attacking team
+     * @return True if any piece of that team attacks the square
+     */
+    public boolean isSquareAttacked(ChessPosition position, TeamColor byColor) {
+        return board.isSquareAttacked(position, byColor);
     }
 
     /**
@@ -183,24 +659,7 @@ public class ChessGame {
      * @return True if the specified team is in checkmate
      */
     public boolean isInCheckmate(TeamColor teamColor) {
-        if (!isInCheck(teamColor)) {
-            return false;
-        }
-        Collection<ChessPiece> teamPieces = getTeamPieces(teamColor);
-        for (ChessPiece piece : teamPieces) {
-            ChessPosition currentPosition = findPiece(piece);
-            Collection<ChessMove> moves = piece.pieceMoves(board, currentPosition);
-            for (ChessMove move : moves) {
-                ChessPiece endPiece = board.getPiece(move.getEndPosition());
-                sim(move);
-                if (!isInCheck(teamColor)) {
-                    undo(move, endPiece);
-                    return false;
-                }
-                undo(move, endPiece);
-            }
-        }
-        return true;
+        return statusOf(teamColor) == GameStatus.CHECKMATE;
     }
 
     /**
@@ -210,31 +669,120 @@ public class ChessGame {
      * @return True if the specified team is in stalemate, otherwise false
      */
     public boolean isInStalemate(TeamColor teamColor) {
-        if (isInCheck(teamColor)) {
-            return false;
+        return statusOf(teamColor) == GameStatus.STALEMATE;
+    }
+
+    /**
+     * Gets the status of the team whose turn it is. Check and the legal moves
+     * are worked out in a single pass, and the result is kept until the
+     * position changes, so asking again after a move is free.
+     *
+     * @return the current game status
+     */
+    public GameStatus getStatus() {
+        long key = getZobristKey();
+        if (status == null || statusKey != key) {
+            status = computeStatus(currentTeamTurn);
+            statusKey = key;
         }
+        return status;
+    }
 
-        Collection<ChessPiece> teamPieces = getTeamPieces(teamColor);
-        for (ChessPiece piece : teamPieces) {
-            ChessPosition position = findPiece(piece);
-            Collection<ChessMove> moves = validMoves(position);
-            if (moves != null && !moves.isEmpty()) {
-                return false;
+    private GameStatus statusOf(TeamColor teamColor) {
+        return teamColor == currentTeamTurn ? getStatus() : computeStatus(teamColor);
+    }
+
+    /**
+     * Checkmate and stalemate come first; after that the draws that depend on
+     * how the game got here, which the position cache cannot hold, and last
+     * the installed {@link Tablebase}, which adjudicates endgames it covers.
+     */
+    private GameStatus computeStatus(TeamColor teamColor) {
+        GameStatus base = positionStatus(teamColor);
+        if (base.isGameOver() || teamColor != currentTeamTurn) {
+            return base;
+        }
+        if (isInsufficientMaterial()) {
+            return GameStatus.INSUFFICIENT_MATERIAL;
+        }
+        if (getHalfmoveClock() >= FIFTY_MOVE_PLIES) {
+            return GameStatus.FIFTY_MOVE_RULE;
+        }
+        if (repetitions(2) >= 2) {
+            return GameStatus.THREEFOLD_REPETITION;
+        }
+        Tablebase tablebase = Tablebase.installed();
+        if (tablebase != null) {
+            Tablebase.Result result = tablebase.probe(this);
+            if (result != null) {
+                return result.status();
             }
         }
-        return true;
+        return base;
     }
 
-    private void sim(ChessMove move) {
-        ChessPiece piece = board.getPiece(move.getStartPosition());
-        board.removePiece(move.getStartPosition());
-        board.addPiece(move.getEndPosition(), piece);
+    private GameStatus positionStatus(TeamColor teamColor) {
+        int entry = teamColor == currentTeamTurn ? cachedPosition() : -1;
+        if (entry != -1) {
+            return STATUSES[PositionCache.status(entry)];
+        }
+        MoveList moves = new MoveList();
+        generateLegalMoves(teamColor, moves);
+        return statusOf(isInCheck(teamColor), !moves.isEmpty());
+    }
+
+    private static GameStatus statusOf(boolean check, boolean canMove) {
+        if (canMove) {
+            return check ? GameStatus.CHECK : GameStatus.ONGOING;
+        }
+        return check ? GameStatus.CHECKMATE : GameStatus.STALEMATE;
     }
 
-    private void undo(ChessMove move, ChessPiece endPiece) {
-        ChessPiece piece = board.getPiece(move.getEndPosition());
-        board.addPiece(move.getStartPosition(), piece);
-        board.addPiece(move.getEndPosition(), endPiece);
+    /**
+     * Looks the position up in the installed {@link PositionCache}, generating
+     * its legal moves and status and adding it on a miss. The moves are left
+     * packed in {@code cachedMoves}.
+     *
+     * @return the cache entry, or -1 if no cache is installed or the position
+     * has too many moves to cache
+     */
+    private int cachedPosition() {
+        PositionCache cache = PositionCache.installed();
+        if (cache == null) {
+            return -1;
+        }
+        if (cachedMoves == null) {
+            cachedMoves = new MoveList();
+        }
+        long key = getZobristKey();
+        int entry = cache.probe(key, cachedMoves);
+        if (entry != -1) {
+            return entry;
+        }
+
+        cachedMoves.clear();
+        generateLegalMoves(currentTeamTurn, cachedMoves);
+        if (cachedMoves.size() > PositionCache.MAX_MOVES) {
+            return -1;
+        }
+        int status = statusOf(isInCheck(currentTeamTurn), !cachedMoves.isEmpty()).ordinal();
+        cache.store(key, status, cachedMoves);
+        return PositionCache.entry(status, cachedMoves.size());
+    }
+
+    /**
+     * Gets the Zobrist key of this position: the board's piece placement plus
+     * the side to move, castling rights and en passant file.
+     *
+     * @return 64-bit key identifying the position
+     */
+    public long getZobristKey() {
+        long key = board.getZobristKey() ^ Zobrist.castling(getCastlingRights());
+        int enPassant = enPassantSquare();
+        if (enPassant != Bitboard.EMPTY) {
+            key ^= Zobrist.enPassant(Bitboard.columnOf(enPassant));
+        }
+        return currentTeamTurn == TeamColor.BLACK ? key ^ Zobrist.SIDE : key;
     }
 
     /**
@@ -244,6 +792,9 @@ public class ChessGame {
      */
     public void setBoard(ChessBoard board) {
         this.board = board;
+        this.state = Castling.ALL;
+        undoStack.clear();
+        ply = 0;
     }
 
     /**
@@ -265,11 +816,14 @@ public class ChessGame {
         }
         ChessGame chessGame = (ChessGame) o;
         return Objects.equals(board, chessGame.board) &&
-                currentTeamTurn == chessGame.currentTeamTurn;
+                currentTeamTurn == chessGame.currentTeamTurn &&
+                getCastlingRights() == chessGame.getCastlingRights() &&
+                enPassantSquare() == chessGame.enPassantSquare();
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(board, currentTeamTurn);
+        long key = getZobristKey();
+        return (int) (key ^ (key >>> 32));
     }
 }
@@ -0,0 +1,119 @@
+package chess;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Gson serialization for {@link ChessGame}. A game is written as its FEN plus
+ * the game over flag, e.g. {@code {"fen":"rnbqkbnr/... w KQkq - 0 1","gameOver":false}},
+ * which keeps the stored games and websocket messages small. Once positions
+ * can repeat, the Zobrist keys of the positions since the last capture or
+ * pawn move follow as {@code "history"}, so threefold repetition still counts
+ * moves made before the game was stored.
+ * <p>
+ * Games stored field by field before FEN was used are still read, both in
+ * the original form, {@code {"board":{"board":[[...]]},"currentTeamTurn":...,"gameOver":...}},
+ * and with the board as bitboards. See {@link ChessBoardAdapter}.
+ */
+public final class ChessGameAdapter implements TypeAdapterFactory {
+
+    private static final String FEN = "fen";
+    private static final String GAME_OVER = "gameOver";
+    private static final String HISTORY = "history";
+    private static final String BOARD = "board";
+    private static final String TURN = "currentTeamTurn";
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        if (type.getRawType() != ChessGame.class) {
+            return null;
+        }
+        TypeAdapter<ChessGame> fields = gson.getDelegateAdapter(this, TypeToken.get(ChessGame.class));
+        TypeAdapter<JsonElement> elements = gson.getAdapter(JsonElement.class);
+        TypeAdapter<ChessBoard> boards = gson.getAdapter(ChessBoard.class);
+        TypeAdapter<ChessGame.TeamColor> colors = gson.getAdapter(ChessGame.TeamColor.class);
+        return (TypeAdapter<T>) new TypeAdapter<ChessGame>() {
+            @Override
+            public void write(JsonWriter out, ChessGame game) throws IOException {
+                if (game == null) {
+                    out.nullValue();
+                    return;
+                }
+                out.beginObject();
+                out.name(FEN).value(game.toFen());
+                out.name(GAME_OVER).value(game.getGameOver());
+                long[] history = game.repetitionHistory();
+                if (history.length >= 4) {
+                    out.name(HISTORY).beginArray();
+                    for (long key : history) {
+                        out.value(key);
+                    }
+                    out.endArray();
+                }
+                out.endObject();
+            }
+
+            @Override
+            public ChessGame read(JsonReader in) throws IOException {
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    return null;
+                }
+                JsonElement element = elements.read(in);
+                if (isOriginal(element)) {
+                    return readOriginal(element.getAsJsonObject());
+                }
+                if (!element.isJsonObject() || !element.getAsJsonObject().has(FEN)) {
+                    return fields.fromJsonTree(element);
+                }
+                JsonObject object = element.getAsJsonObject();
+                ChessGame game = ChessGame.fromFen(object.get(FEN).getAsString());
+                if (object.has(GAME_OVER)) {
+                    game.setGameOver(object.get(GAME_OVER).getAsBoolean());
+                }
+                if (object.has(HISTORY)) {
+                    JsonArray array = object.getAsJsonArray(HISTORY);
+                    long[] history = new long[array.size()];
+                    for (int i = 0; i < history.length; i++) {
+                        history[i] = array.get(i).getAsLong();
+                    }
+                    game.restoreHistory(history);
+                }
+                return game;
+            }
+
+            // The original form, with the board as a ChessPiece[8][8] and no castling or en passant state
+            private boolean isOriginal(JsonElement element) {
+                if (!element.isJsonObject() || !element.getAsJsonObject().has(BOARD)) {
+                    return false;
+                }
+                JsonElement board = element.getAsJsonObject().get(BOARD);
+                return board.isJsonObject() && board.getAsJsonObject().has(BOARD)
+                        && board.getAsJsonObject().get(BOARD).isJsonArray();
+            }
+
+            private ChessGame readOriginal(JsonObject object) {
+                ChessGame game = new ChessGame();
+                game.setBoard(boards.fromJsonTree(object.get(BOARD)));
+                if (object.has(TURN) && !object.get(TURN).isJsonNull()) {
+                    game.setTeamTurn(colors.fromJsonTree(object.get(TURN)));
+                }
+                if (object.has(GAME_OVER)) {
+                    game.setGameOver(object.get(GAME_OVER).getAsBoolean());
+                }
+                return game;
+            }
+        };
+    }
+}
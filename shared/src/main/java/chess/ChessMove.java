@@ -26,12 +26,27 @@ public class ChessMove {
 
     @Override
     public int hashCode() {
-        return Objects.hash(startPos, endPos, promo);
+        return (startPos.hashCode() * 31 + endPos.hashCode()) * 31 + Objects.hashCode(promo);
     }
 
-    private ChessPosition startPos;
-    private ChessPosition endPos;
-    private ChessPiece.PieceType promo;
+    /**
+     * Every move between two squares without a promotion, indexed by
+     * from + 64 * to with squares numbered as in {@link Move}. Moves never
+     * change, so these are shared instead of made per call.
+     */
+    private static final ChessMove[] MOVES = new ChessMove[64 * 64];
+
+    static {
+        for (int to = 0; to < 64; to++) {
+            for (int from = 0; from < 64; from++) {
+                MOVES[from + 64 * to] = new ChessMove(ChessPosition.of(from), ChessPosition.of(to), null);
+            }
+        }
+    }
+
+    private final ChessPosition startPos;
+    private final ChessPosition endPos;
+    private final ChessPiece.PieceType promo;
 
     public ChessMove(ChessPosition startPos, ChessPosition endPos,
                      ChessPiece.PieceType promo) {
@@ -40,6 +55,31 @@ public class ChessMove {
         this.promo = promo;
     }
 
+    /**
+     * Gets a move, sharing one instance per pair of squares for moves that do
+     * not promote.
+     *
+     * @return the move; a new one if it promotes or leaves the board
+     */
+    public static ChessMove of(ChessPosition startPos, ChessPosition endPos, ChessPiece.PieceType promo) {
+        if (promo != null || !onBoard(startPos) || !onBoard(endPos)) {
+            return new ChessMove(startPos, endPos, promo);
+        }
+        return MOVES[Bitboard.square(startPos) + 64 * Bitboard.square(endPos)];
+    }
+
+    /**
+     * @return the shared move between two squares numbered as in {@link Move}
+     */
+    static ChessMove of(int from, int to) {
+        return MOVES[from + 64 * to];
+    }
+
+    private static boolean onBoard(ChessPosition position) {
+        return position.getRow() >= 1 && position.getRow() <= 8
+                && position.getColumn() >= 1 && position.getColumn() <= 8;
+    }
+
     /**
      * @return ChessPosition of starting location
      */
@@ -1,17 +1,47 @@
 package chess;
 
-import java.util.Objects;
-
+/**
+ * A square on the board, by row and column from 1 to 8. Positions never
+ * change once made, so the 64 squares of the board are shared: code that
+ * looks up squares should use {@link #of} rather than the constructor.
+ */
 public class ChessPosition {
 
-    private int row;
-    private int col;
+    private static final ChessPosition[] SQUARES = new ChessPosition[64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            SQUARES[square] = new ChessPosition(square / 8 + 1, square % 8 + 1);
+        }
+    }
+
+    private final int row;
+    private final int col;
 
     public ChessPosition(int row, int col) {
         this.row = row;
         this.col = col;
     }
 
+    /**
+     * Gets the shared position of a square, without allocating.
+     *
+     * @return the position; a new one if it is off the board
+     */
+    public static ChessPosition of(int row, int col) {
+        if (row < 1 || row > 8 || col < 1 || col > 8) {
+            return new ChessPosition(row, col);
+        }
+        return SQUARES[(row - 1) * 8 + col - 1];
+    }
+
+    /**
+     * @return the shared position of a square numbered as in {@link Move}
+     */
+    static ChessPosition of(int square) {
+        return SQUARES[square];
+    }
+
     public static ChessPosition fromAlgebraic(String notation) {
         if (notation == null || notation.length() != 2) {
             throw new IllegalArgumentException("Invalid algebraic notation: " + notation);
@@ -27,8 +57,9 @@ public class ChessPosition {
         int col = file - 'a' + 1;
         int row = rank - '1' + 1;
 
-        return new ChessPosition(row, col);
+        return of(row, col);
     }
+
     public String toAlgebraic() {
         char file = (char) ('a' + col - 1);
         int rank = row;
@@ -49,7 +80,7 @@ public class ChessPosition {
 
     @Override
     public int hashCode() {
-        return Objects.hash(row, col);
+        return row * 31 + col;
     }
 
     public int getRow() {
@@ -0,0 +1,117 @@
+package chess;
+
+/**
+ * Hand-written reader and writer for Forsyth-Edwards Notation. Parsing walks
+ * the string once by index and writes straight into a {@link Bitboard}, and
+ * writing appends to a caller's {@link StringBuilder}, so neither allocates
+ * per square.
+ */
+final class Fen {
+
+    private static final char[] SYMBOLS = {'K', 'Q', 'B', 'N', 'R', 'P', 'k', 'q', 'b', 'n', 'r', 'p'};
+
+    private Fen() {
+    }
+
+    /**
+     * Reads the piece placement field starting at the given index into an
+     * empty board.
+     *
+     * @return the index just past the placement field
+     * @throws IllegalArgumentException if the placement is malformed
+     */
+    static int readPlacement(String fen, int index, Bitboard bits) {
+        int row = 8;
+        int col = 1;
+        int length = fen.length();
+        for (; index < length; index++) {
+            char c = fen.charAt(index);
+            if (c == ' ') {
+                break;
+            }
+            if (c == '/') {
+                if (row == 1) {
+                    throw invalid(fen, "more than 8 ranks");
+                }
+                if (col != 9) {
+                    throw invalid(fen, "rank %d does not have 8 squares".formatted(row));
+                }
+                row--;
+                col = 1;
+            } else if (c >= '1' && c <= '8') {
+                col += c - '0';
+            } else {
+                int code = codeOf(c);
+                if (code == Bitboard.EMPTY || col > 8) {
+                    throw invalid(fen, "unexpected '%c' on rank %d".formatted(c, row));
+                }
+                bits.put(Bitboard.square(row, col), code);
+                col++;
+            }
+            if (col > 9) {
+                throw invalid(fen, "rank %d has more than 8 squares".formatted(row));
+            }
+        }
+        if (row != 1 || col != 9) {
+            throw invalid(fen, "expected 8 ranks of 8 squares");
+        }
+        return index;
+    }
+
+    static void writePlacement(Bitboard bits, StringBuilder out) {
+        for (int row = 8; row >= 1; row--) {
+            int empty = 0;
+            for (int col = 1; col <= 8; col++) {
+                int code = bits.pieceAt(Bitboard.square(row, col));
+                if (code == Bitboard.EMPTY) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    out.append((char) ('0' + empty));
+                    empty = 0;
+                }
+                out.append(SYMBOLS[code]);
+            }
+            if (empty > 0) {
+                out.append((char) ('0' + empty));
+            }
+            if (row > 1) {
+                out.append('/');
+            }
+        }
+    }
+
+    /**
+     * @return the square named by the two characters at the given index, such
+     * as "e3", or {@link Bitboard#EMPTY} if they do not name one
+     */
+    static int readSquare(String fen, int index) {
+        if (index + 1 >= fen.length()) {
+            return Bitboard.EMPTY;
+        }
+        int col = fen.charAt(index) - 'a' + 1;
+        int row = fen.charAt(index + 1) - '0';
+        if (col < 1 || col > 8 || row < 1 || row > 8) {
+            return Bitboard.EMPTY;
+        }
+        return Bitboard.square(row, col);
+    }
+
+    static void writeSquare(int square, StringBuilder out) {
+        out.append((char) ('a' + Bitboard.columnOf(square) - 1)).append((char) ('0' + Bitboard.rowOf(square)));
+    }
+
+    private static int codeOf(char c) {
+        for (int code = 0; code < SYMBOLS.length; code++) {
+            if (SYMBOLS[code] == c) {
+                return code;
+            }
+        }
+        return Bitboard.EMPTY;
+    }
+
+    static IllegalArgumentException invalid(String fen, String reason) {
+        return new IllegalArgumentException("Invalid FEN \"%s\": %s".formatted(fen, reason));
+    }
+}
@@ -0,0 +1,85 @@
+package chess;
+
+/**
+ * Moves packed into the low 16 bits of an int, for code that handles many of
+ * them: move generation, the {@link PositionCache} and the engine's tables.
+ * Bits 0-5 hold the start square, bits 6-11 the end square (a1 is 0, h8 is
+ * 63) and bits 12-14 the ordinal of the promotion piece type, 0 for none since
+ * a pawn never promotes to a king.
+ * <p>
+ * Captures, en passant and castling are not flagged: the board being moved on
+ * tells them apart, so the same move always packs to the same value. Convert
+ * with {@link #encode} and {@link #decode} at the {@link ChessMove} API.
+ */
+public final class Move {
+
+    /**
+     * No move. Never a real move, since a move's start and end squares differ.
+     */
+    public static final int NONE = 0;
+
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+    private static final String PROMOTION_SYMBOLS = "kqbnrp";
+
+    private Move() {
+    }
+
+    public static int of(int from, int to) {
+        return from | (to << 6);
+    }
+
+    /**
+     * @param promotionType the promotion piece type ordinal, or {@link Bitboard#EMPTY}
+     */
+    public static int of(int from, int to, int promotionType) {
+        return promotionType == Bitboard.EMPTY ? of(from, to) : of(from, to) | (promotionType << 12);
+    }
+
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    /**
+     * @return the promotion piece type ordinal, or {@link Bitboard#EMPTY}
+     */
+    public static int promotion(int move) {
+        int type = (move >>> 12) & 7;
+        return type == 0 ? Bitboard.EMPTY : type;
+    }
+
+    public static boolean isPromotion(int move) {
+        return (move & (7 << 12)) != 0;
+    }
+
+    public static int encode(ChessMove move) {
+        ChessPiece.PieceType promotion = move.getPromotionPiece();
+        return of(Bitboard.square(move.getStartPosition()), Bitboard.square(move.getEndPosition()),
+                promotion == null ? Bitboard.EMPTY : promotion.ordinal());
+    }
+
+    public static ChessMove decode(int move) {
+        int promotion = promotion(move);
+        if (promotion == Bitboard.EMPTY) {
+            return ChessMove.of(from(move), to(move));
+        }
+        return new ChessMove(ChessPosition.of(from(move)), ChessPosition.of(to(move)), TYPES[promotion]);
+    }
+
+    /**
+     * @return the move in coordinate notation, such as "e2e4" or "e7e8q"
+     */
+    public static String toString(int move) {
+        StringBuilder text = new StringBuilder(5);
+        Fen.writeSquare(from(move), text);
+        Fen.writeSquare(to(move), text);
+        int promotion = promotion(move);
+        if (promotion != Bitboard.EMPTY) {
+            text.append(PROMOTION_SYMBOLS.charAt(promotion));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,247 @@
+package chess;
+
+import java.util.Collection;
+
+/**
+ * Table-driven move generation over a {@link Bitboard}.
+ * <p>
+ * {@link #pieceMoves} and {@link #targets} are pseudo-legal: they follow how
+ * each piece moves but do not take into account leaving the king in danger.
+ * The legal generators compute the pieces giving check and the pieces pinned
+ * to their king once per position and restrict each piece's targets with them,
+ * so no move has to be tried on the board. They also take the castling rights
+ * and en passant square of the game, which the board alone does not know.
+ * Moves are written to a {@link MoveList} packed as {@link Move}s.
+ */
+final class MoveGenerator {
+
+    private static final long RANK_1 = 0xFFL;
+    private static final long RANK_8 = 0xFFL << 56;
+    static final int[] PROMOTIONS = {Bitboard.QUEEN, Bitboard.ROOK, Bitboard.BISHOP, Bitboard.KNIGHT};
+
+    private MoveGenerator() {
+    }
+
+    /**
+     * Generates the moves of the given piece as if it stood on the given position.
+     */
+    static Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition position, ChessPiece piece) {
+        MoveList moves = new MoveList();
+        int color = Bitboard.colorIndex(piece.getTeamColor());
+        int type = piece.getPieceType().ordinal();
+        int square = Bitboard.square(position);
+        long targets = targets(board.bitboard(), color, type, square);
+        addMoves(square, targets, type == Bitboard.PAWN, moves);
+        return moves.toChessMoves();
+    }
+
+    /**
+     * @return every square the piece can move to, ignoring checks
+     */
+    static long targets(Bitboard bits, int color, int type, int square) {
+        long own = bits.occupancy(color);
+        long occupied = bits.occupancy();
+        if (type != Bitboard.PAWN) {
+            return Attacks.attacks(type, square, occupied) & ~own;
+        }
+        return pawnPushes(color, square, occupied)
+                | (Attacks.pawnAttacks(color, square) & bits.occupancy(color ^ 1));
+    }
+
+    /**
+     * Adds every legal move of the given color.
+     *
+     * @param castling   the castling rights, see {@link Castling}
+     * @param enPassant  the square a pawn may capture en passant on, or {@link Bitboard#EMPTY}
+     */
+    static void legalMoves(Bitboard bits, int color, int castling, int enPassant, MoveList moves) {
+        long own = bits.occupancy(color);
+        long kingBoard = bits.pieces(color, Bitboard.KING);
+        if (kingBoard == 0) {
+            addPseudoLegalMoves(bits, color, own, enPassant, moves);
+            return;
+        }
+
+        int king = Long.numberOfTrailingZeros(kingBoard);
+        addMoves(king, kingTargets(bits, color, king) | Castling.targets(bits, color, castling),
+                false, moves);
+
+        long checkers = Attacks.attackers(bits, king, color ^ 1, bits.occupancy());
+        if (Long.bitCount(checkers) > 1) {
+            return;
+        }
+        long checkMask = checkMask(king, checkers);
+        long pinned = pinned(bits, color, king);
+
+        long pieces = own & ~kingBoard;
+        while (pieces != 0) {
+            int from = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            int type = Bitboard.typeOf(bits.pieceAt(from));
+            long targets = targets(bits, color, type, from) & checkMask;
+            if ((pinned & (1L << from)) != 0) {
+                targets &= Attacks.line(king, from);
+            }
+            if (type == Bitboard.PAWN) {
+                targets |= enPassantTarget(bits, color, from, enPassant, king);
+            }
+            addMoves(from, targets, type == Bitboard.PAWN, moves);
+        }
+    }
+
+    /**
+     * @return the squares the piece on the given square can legally move to
+     */
+    static long legalTargets(Bitboard bits, int from, int castling, int enPassant) {
+        int code = bits.pieceAt(from);
+        int color = Bitboard.colorCode(code);
+        int type = Bitboard.typeOf(code);
+        long kingBoard = bits.pieces(color, Bitboard.KING);
+        int king = kingBoard == 0 ? Bitboard.EMPTY : Long.numberOfTrailingZeros(kingBoard);
+        long special = type == Bitboard.PAWN ? enPassantTarget(bits, color, from, enPassant, king) : 0;
+        if (king == Bitboard.EMPTY) {
+            return targets(bits, color, type, from) | special;
+        }
+
+        if (from == king) {
+            return kingTargets(bits, color, king) | Castling.targets(bits, color, castling);
+        }
+        long checkers = Attacks.attackers(bits, king, color ^ 1, bits.occupancy());
+        if (Long.bitCount(checkers) > 1) {
+            return 0;
+        }
+        long targets = targets(bits, color, type, from) & checkMask(king, checkers);
+        if ((pinned(bits, color, king) & (1L << from)) != 0) {
+            targets &= Attacks.line(king, from);
+        }
+        return targets | special;
+    }
+
+    private static void addPseudoLegalMoves(Bitboard bits, int color, long pieces, int enPassant, MoveList moves) {
+        while (pieces != 0) {
+            int from = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            int type = Bitboard.typeOf(bits.pieceAt(from));
+            long targets = targets(bits, color, type, from);
+            if (type == Bitboard.PAWN) {
+                targets |= enPassantTarget(bits, color, from, enPassant, Bitboard.EMPTY);
+            }
+            addMoves(from, targets, type == Bitboard.PAWN, moves);
+        }
+    }
+
+    /**
+     * En passant takes two pieces off one rank at once, which the pin masks do
+     * not cover, so the capture is tested by looking for attacks on the king
+     * with the occupancy it leaves behind.
+     *
+     * @return the en passant square as a bitboard if the pawn on the given
+     * square can legally capture onto it, otherwise 0
+     */
+    private static long enPassantTarget(Bitboard bits, int color, int from, int enPassant, int king) {
+        if (enPassant == Bitboard.EMPTY || (Attacks.pawnAttacks(color, from) & (1L << enPassant)) == 0) {
+            return 0;
+        }
+        int captured = enPassantCapture(color, enPassant);
+        if (bits.pieceAt(captured) != Bitboard.pieceCode(color ^ 1, Bitboard.PAWN)) {
+            return 0;
+        }
+        if (king == Bitboard.EMPTY) {
+            return 1L << enPassant;
+        }
+        long occupied = (bits.occupancy() & ~(1L << from) & ~(1L << captured)) | (1L << enPassant);
+        long attackers = Attacks.attackers(bits, king, color ^ 1, occupied) & ~(1L << captured);
+        return attackers == 0 ? 1L << enPassant : 0;
+    }
+
+    /**
+     * @return the square of the pawn taken by an en passant capture onto the
+     * given square
+     */
+    static int enPassantCapture(int color, int enPassant) {
+        return color == Bitboard.WHITE ? enPassant - 8 : enPassant + 8;
+    }
+
+    /**
+     * King moves to squares the enemy does not attack. The king is taken off
+     * the board for the test so it cannot hide behind itself from a slider.
+     */
+    private static long kingTargets(Bitboard bits, int color, int king) {
+        long candidates = Attacks.kingAttacks(king) & ~bits.occupancy(color);
+        long occupied = bits.occupancy() & ~(1L << king);
+        long targets = 0;
+        while (candidates != 0) {
+            int to = Long.numberOfTrailingZeros(candidates);
+            candidates &= candidates - 1;
+            if (Attacks.attackers(bits, to, color ^ 1, occupied) == 0) {
+                targets |= 1L << to;
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * @return the squares that resolve a single check (capturing the checker or
+     * blocking its ray), or every square when not in check
+     */
+    private static long checkMask(int king, long checkers) {
+        if (checkers == 0) {
+            return -1L;
+        }
+        return checkers | Attacks.between(king, Long.numberOfTrailingZeros(checkers));
+    }
+
+    /**
+     * @return the pieces of the given color that are the only blocker between
+     * their king and an enemy slider
+     */
+    private static long pinned(Bitboard bits, int color, int king) {
+        int enemy = color ^ 1;
+        long enemies = bits.occupancy(enemy);
+        long queens = bits.pieces(enemy, Bitboard.QUEEN);
+        long snipers = (Attacks.rookAttacks(king, enemies) & (bits.pieces(enemy, Bitboard.ROOK) | queens))
+                | (Attacks.bishopAttacks(king, enemies) & (bits.pieces(enemy, Bitboard.BISHOP) | queens));
+        long occupied = bits.occupancy();
+        long pinned = 0;
+        while (snipers != 0) {
+            int sniper = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+            long blockers = Attacks.between(king, sniper) & occupied;
+            if (Long.bitCount(blockers) == 1) {
+                pinned |= blockers & bits.occupancy(color);
+            }
+        }
+        return pinned;
+    }
+
+    static long pawnPushes(int color, int square, long occupied) {
+        long empty = ~occupied;
+        long from = 1L << square;
+        if (color == Bitboard.WHITE) {
+            long single = (from << 8) & empty;
+            long twice = ((single & (0xFFL << 16)) << 8) & empty;
+            return single | twice;
+        }
+        long single = (from >>> 8) & empty;
+        long twice = ((single & (0xFFL << 40)) >>> 8) & empty;
+        return single | twice;
+    }
+
+    /**
+     * Adds one move per target square, expanding pawn moves onto the last rank
+     * into the four promotion choices.
+     */
+    static void addMoves(int from, long targets, boolean pawn, MoveList moves) {
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            if (pawn && ((1L << to) & (RANK_1 | RANK_8)) != 0) {
+                for (int promotion : PROMOTIONS) {
+                    moves.add(Move.of(from, to, promotion));
+                }
+            } else {
+                moves.add(Move.of(from, to));
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package chess;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Perft (performance test) driver: counts the leaf nodes of the legal move
+ * tree to a fixed depth. Counts for the reference positions are known, so a
+ * mismatch points at a move generation bug, and the node rate measures raw
+ * move generation speed.
+ * <p>
+ * Usage: {@code Perft [position] [depth]}, where position is one of the
+ * {@link Reference} names (default START) and depth defaults to the deepest
+ * known count for that position.
+ */
+public final class Perft {
+
+    /**
+     * Reference positions with their known node counts, indexed by depth - 1.
+     */
+    public enum Reference {
+        START("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1", 20, 400, 8902, 197281, 4865609),
+        KIWIPETE("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                48, 2039, 97862, 4085603),
+        EN_PASSANT_PINS("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", 14, 191, 2812, 43238, 674624),
+        CASTLING_PROMOTIONS("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+                6, 264, 9467, 422333),
+        DEVELOPED_MIDDLEGAME("rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+                44, 1486, 62379, 2103487),
+        PROMOTION_FROM_CHECK("4k3/1P6/8/8/8/8/K7/8 w - - 0 1", 9, 40, 472, 2661, 38983, 217342),
+        UNDER_PROMOTION("8/P1k5/K7/8/8/8/8/8 w - - 0 1", 6, 27, 273, 1329, 18135, 92683),
+        SELF_STALEMATE("K1k5/8/P7/8/8/8/8/8 w - - 0 1", 2, 6, 13, 63, 382, 2217),
+        DISCOVERED_CHECK("8/8/2k5/5q2/5n2/8/5K2/8 b - - 0 1", 37, 183, 6559, 23527),
+        KNIGHT_FORK("8/8/1P2K3/8/2n5/1q6/8/5k2 b - - 0 1", 29, 165, 5160, 31961, 1004658),
+        PROMOTION_RACE("8/k1P5/8/1K6/8/8/8/8 w - - 0 1", 10, 25, 268, 926, 10857, 43261, 567584);
+
+        private final String fen;
+        private final long[] counts;
+
+        Reference(String fen, long... counts) {
+            this.fen = fen;
+            this.counts = counts;
+        }
+
+        public ChessGame game() {
+            return ChessGame.fromFen(fen);
+        }
+
+        public int maxDepth() {
+            return counts.length;
+        }
+
+        public long expected(int depth) {
+            return counts[depth - 1];
+        }
+    }
+
+    private Perft() {
+    }
+
+    /**
+     * @return the number of leaf nodes of the legal move tree of the given depth
+     */
+    public static long perft(ChessGame game, int depth) {
+        MoveList[] lists = new MoveList[Math.max(depth, 0)];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = new MoveList();
+        }
+        return perft(game, depth, lists);
+    }
+
+    /**
+     * Walks the tree with one reusable move list per remaining depth, so the
+     * count itself allocates nothing.
+     */
+    private static long perft(ChessGame game, int depth, MoveList[] lists) {
+        if (depth == 0) {
+            return 1;
+        }
+        MoveList moves = lists[depth - 1];
+        game.legalMoves(moves);
+        if (depth == 1) {
+            return moves.size();
+        }
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            game.doMove(moves.get(i));
+            nodes += perft(game, depth - 1, lists);
+            game.undoMove();
+        }
+        return nodes;
+    }
+
+    /**
+     * @return the perft count below each legal root move, in generation order
+     */
+    public static Map<ChessMove, Long> divide(ChessGame game, int depth) {
+        Map<ChessMove, Long> split = new LinkedHashMap<>();
+        for (ChessMove move : game.legalMoves()) {
+            game.doMove(move);
+            split.put(move, perft(game, depth - 1));
+            game.undoMove();
+        }
+        return split;
+    }
+
+    public static void main(String[] args) {
+        Reference reference = args.length > 0 ? Reference.valueOf(args[0].toUpperCase()) : Reference.START;
+        int depth = args.length > 1 ? Integer.parseInt(args[1]) : reference.maxDepth();
+        ChessGame game = reference.game();
+
+        long start = System.nanoTime();
+        Map<ChessMove, Long> split = divide(game, depth);
+        long elapsed = System.nanoTime() - start;
+
+        long nodes = 0;
+        for (Map.Entry<ChessMove, Long> entry : split.entrySet()) {
+            System.out.printf("%s: %d%n", Move.toString(Move.encode(entry.getKey())), entry.getValue());
+            nodes += entry.getValue();
+        }
+        System.out.println();
+        System.out.printf("Position: %s, depth %d%n", reference, depth);
+        System.out.printf("Nodes: %d%n", nodes);
+        if (depth <= reference.maxDepth()) {
+            System.out.printf("Expected: %d (%s)%n", reference.expected(depth),
+                    nodes == reference.expected(depth) ? "ok" : "MISMATCH");
+        }
+        System.out.printf("Time: %.3f s%n", elapsed / 1e9);
+        System.out.printf("Nodes/sec: %.0f%n", nodes / Math.max(elapsed / 1e9, 1e-9));
+    }
+}
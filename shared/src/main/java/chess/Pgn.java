@@ -0,0 +1,306 @@
+package chess;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Reader for Portable Game Notation, the usual format of game collections.
+ * Games are read one at a time, so a corpus of any size streams through in
+ * constant memory. Comments, variations and annotation glyphs are skipped;
+ * only the tag pairs, the main line and the result are kept.
+ */
+public final class Pgn {
+
+    private static final String PIECE_LETTERS = "KQBNR";
+
+    /**
+     * One game of a PGN file.
+     *
+     * @param tags   the tag pairs, such as Event and White, in file order
+     * @param start  the position the moves start from; the standard start
+     *               unless the game has a FEN tag
+     * @param moves  the main line as packed {@link Move}s
+     * @param result "1-0", "0-1", "1/2-1/2" or "*"
+     */
+    public record Game(Map<String, String> tags, ChessGame start, MoveList moves, String result) {
+    }
+
+    private Pgn() {
+    }
+
+    /**
+     * Reads every game of a PGN stream. A game with a move that cannot be
+     * read or is illegal is skipped rather than failing the whole file.
+     *
+     * @param in       the PGN text
+     * @param consumer receives each game read, in file order
+     * @return the number of games skipped
+     * @throws IOException if reading fails
+     */
+    public static int read(Reader in, Consumer<Game> consumer) throws IOException {
+        BufferedReader lines = in instanceof BufferedReader buffered ? buffered : new BufferedReader(in);
+        Map<String, String> tags = new LinkedHashMap<>();
+        StringBuilder movetext = new StringBuilder();
+        int skipped = 0;
+        for (String line = lines.readLine(); line != null; line = lines.readLine()) {
+            String trimmed = line.strip();
+            if (trimmed.startsWith("%")) {
+                continue;
+            }
+            if (trimmed.startsWith("[") && trimmed.endsWith("]") && movetext.isEmpty()) {
+                readTag(trimmed, tags);
+                continue;
+            }
+            if (trimmed.startsWith("[") && trimmed.endsWith("]")) {
+                skipped += readMovetext(tags, movetext, consumer);
+                tags = new LinkedHashMap<>();
+                movetext.setLength(0);
+                readTag(trimmed, tags);
+                continue;
+            }
+            movetext.append(line).append('\n');
+        }
+        if (!movetext.isEmpty() || !tags.isEmpty()) {
+            skipped += readMovetext(tags, movetext, consumer);
+        }
+        return skipped;
+    }
+
+    private static void readTag(String line, Map<String, String> tags) {
+        int space = line.indexOf(' ');
+        int open = line.indexOf('"');
+        int close = line.lastIndexOf('"');
+        if (space > 1 && open > space && close > open) {
+            tags.put(line.substring(1, space), line.substring(open + 1, close).replace("\\\"", "\""));
+        }
+    }
+
+    /**
+     * Reads the movetext after one set of tags. It normally holds one game,
+     * but a result token always ends a game, so untagged games that follow
+     * are read too.
+     *
+     * @return the number of games skipped
+     */
+    private static int readMovetext(Map<String, String> tags, CharSequence text, Consumer<Game> consumer) {
+        int skipped = 0;
+        ChessGame start = startOf(tags);
+        ChessGame game = start == null ? null : new ChessGame(start);
+        MoveList moves = new MoveList();
+        MoveList legal = new MoveList();
+        boolean started = false;
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '{') {
+                i = skipPast(text, i, '}');
+            } else if (c == ';') {
+                i = skipPast(text, i, '\n');
+            } else if (c == '(') {
+                i = skipVariation(text, i);
+            } else if (c == '$') {
+                i = endOfToken(text, i + 1);
+            } else {
+                int end = endOfToken(text, i);
+                String token = text.subSequence(i, end).toString();
+                i = end;
+                String result = resultOf(token);
+                if (result != null) {
+                    if (game != null) {
+                        consumer.accept(new Game(Collections.unmodifiableMap(tags), start, moves, result));
+                    } else {
+                        skipped++;
+                    }
+                    tags = Map.of();
+                    start = new ChessGame();
+                    game = new ChessGame(start);
+                    moves = new MoveList();
+                    started = false;
+                    continue;
+                }
+                String san = stripMoveNumber(token);
+                if (san.isEmpty() || game == null) {
+                    continue;
+                }
+                started = true;
+                try {
+                    int move = parseSan(game, san, legal);
+                    game.doMove(move);
+                    moves.add(move);
+                } catch (IllegalArgumentException e) {
+                    game = null;
+                }
+            }
+        }
+        if (started || !moves.isEmpty() || game == null) {
+            if (game != null) {
+                consumer.accept(new Game(Collections.unmodifiableMap(tags), start, moves, "*"));
+            } else {
+                skipped++;
+            }
+        }
+        return skipped;
+    }
+
+    private static ChessGame startOf(Map<String, String> tags) {
+        String fen = tags.get("FEN");
+        if (fen == null) {
+            return new ChessGame();
+        }
+        try {
+            return ChessGame.fromFen(fen);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static int skipPast(CharSequence text, int index, char close) {
+        while (index < text.length() && text.charAt(index) != close) {
+            index++;
+        }
+        return index + 1;
+    }
+
+    private static int skipVariation(CharSequence text, int index) {
+        int depth = 0;
+        for (; index < text.length(); index++) {
+            char c = text.charAt(index);
+            if (c == '{') {
+                index = skipPast(text, index, '}') - 1;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth == 0) {
+                return index + 1;
+            }
+        }
+        return index;
+    }
+
+    private static int endOfToken(CharSequence text, int index) {
+        while (index < text.length()) {
+            char c = text.charAt(index);
+            if (Character.isWhitespace(c) || c == '{' || c == '(' || c == ')' || c == ';') {
+                break;
+            }
+            index++;
+        }
+        return index;
+    }
+
+    private static String resultOf(String token) {
+        return switch (token) {
+            case "1-0", "0-1", "1/2-1/2", "*" -> token;
+            default -> null;
+        };
+    }
+
+    /**
+     * @return the token without a leading move number such as "12." or "12..."
+     */
+    private static String stripMoveNumber(String token) {
+        int i = 0;
+        while (i < token.length() && Character.isDigit(token.charAt(i))) {
+            i++;
+        }
+        if (i == 0) {
+            return token;
+        }
+        while (i < token.length() && token.charAt(i) == '.') {
+            i++;
+        }
+        return token.substring(i);
+    }
+
+    /**
+     * Reads a move in Standard Algebraic Notation, such as "Nbd7", "exd5",
+     * "e8=Q+" or "O-O", in the given position.
+     *
+     * @param game  the position the move is played in
+     * @param san   the move text
+     * @param legal scratch list for the legal moves of the position
+     * @return the packed move
+     * @throws IllegalArgumentException if the text does not name exactly one legal move
+     */
+    public static int parseSan(ChessGame game, String san, MoveList legal) {
+        String text = san;
+        while (!text.isEmpty() && "+#!?".indexOf(text.charAt(text.length() - 1)) >= 0) {
+            text = text.substring(0, text.length() - 1);
+        }
+        game.legalMoves(legal);
+        Bitboard bits = game.getBoard().bitboard();
+        int color = Bitboard.colorIndex(game.getTeamTurn());
+
+        if (text.equals("O-O") || text.equals("0-0") || text.equals("O-O-O") || text.equals("0-0-0")) {
+            int king = Castling.KING_START[color];
+            int to = text.length() == 3 ? king + 2 : king - 2;
+            int move = Move.of(king, to);
+            if (bits.pieceAt(king) != Bitboard.pieceCode(color, Bitboard.KING) || !legal.contains(move)) {
+                throw new IllegalArgumentException("Illegal castling: " + san);
+            }
+            return move;
+        }
+
+        int promotion = Bitboard.EMPTY;
+        int equals = text.indexOf('=');
+        if (equals >= 0 && equals + 1 < text.length()) {
+            promotion = PIECE_LETTERS.indexOf(text.charAt(equals + 1));
+            text = text.substring(0, equals);
+        } else if (text.length() > 2 && PIECE_LETTERS.indexOf(text.charAt(text.length() - 1)) > 0) {
+            promotion = PIECE_LETTERS.indexOf(text.charAt(text.length() - 1));
+            text = text.substring(0, text.length() - 1);
+        }
+        int type = text.isEmpty() ? -1 : PIECE_LETTERS.indexOf(text.charAt(0));
+        if (type < 0) {
+            type = Bitboard.PAWN;
+        } else {
+            text = text.substring(1);
+        }
+        if (text.length() < 2) {
+            throw new IllegalArgumentException("Unreadable move: " + san);
+        }
+        int to = Fen.readSquare(text, text.length() - 2);
+        if (to == Bitboard.EMPTY) {
+            throw new IllegalArgumentException("Unreadable move: " + san);
+        }
+        int fromFile = 0;
+        int fromRank = 0;
+        for (int i = 0; i < text.length() - 2; i++) {
+            char c = text.charAt(i);
+            if (c >= 'a' && c <= 'h') {
+                fromFile = c - 'a' + 1;
+            } else if (c >= '1' && c <= '8') {
+                fromRank = c - '0';
+            } else if (c != 'x' && c != ':' && c != '-') {
+                throw new IllegalArgumentException("Unreadable move: " + san);
+            }
+        }
+
+        int found = Move.NONE;
+        for (int i = 0; i < legal.size(); i++) {
+            int move = legal.get(i);
+            int from = Move.from(move);
+            if (Move.to(move) != to || Move.promotion(move) != promotion
+                    || Bitboard.typeOf(bits.pieceAt(from)) != type
+                    || (fromFile != 0 && Bitboard.columnOf(from) != fromFile)
+                    || (fromRank != 0 && Bitboard.rowOf(from) != fromRank)) {
+                continue;
+            }
+            if (found != Move.NONE) {
+                throw new IllegalArgumentException("Ambiguous move: " + san);
+            }
+            found = move;
+        }
+        if (found == Move.NONE) {
+            throw new IllegalArgumentException("Illegal move: " + san);
+        }
+        return found;
+    }
+}
@@ -0,0 +1,166 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size table of the legal moves and status of positions, keyed by
+ * {@link ChessGame#getZobristKey()} and shared by every game in the JVM. Games
+ * that pass through the same position (most of all the openings) find its
+ * moves here instead of generating them again.
+ * <p>
+ * Everything lives in one {@code long[]}. Each slot holds a check word, a
+ * header (move count, status and age) and up to {@link #MAX_MOVES}
+ * {@link Move}s packed four to a word. The check word is the key XOR the header and every
+ * move word, so a reader that races a writer sees a mismatch and treats the
+ * slot as a miss. The table never locks.
+ * <p>
+ * Slots come in buckets of two. A new position replaces the slot of the same
+ * position if there is one, then an empty slot, then the slot written the
+ * longest ago; the age advances each time the table has seen as many writes
+ * as it has slots.
+ */
+public final class PositionCache {
+
+    /**
+     * Positions with more legal moves than this are not cached.
+     */
+    static final int MAX_MOVES = 64;
+
+    private static final int MOVE_WORDS = MAX_MOVES / 4;
+    private static final int STRIDE = 2 + MOVE_WORDS;
+    private static final int WAYS = 2;
+    private static final long OCCUPIED = 1L << 24;
+
+    private static volatile PositionCache installed;
+
+    private final long[] table;
+    private final int mask;
+    private final int ageShift;
+    private long writes;
+
+    /**
+     * @param megabytes memory budget, rounded down to a power-of-two number of slots
+     */
+    public PositionCache(int megabytes) {
+        if (megabytes < 1) {
+            throw new IllegalArgumentException("Position cache size must be at least 1 MB");
+        }
+        long slots = Long.highestOneBit(Math.min((long) megabytes * 1024 * 1024 / (STRIDE * Long.BYTES), 1L << 26));
+        table = new long[(int) slots * STRIDE];
+        mask = (int) slots / WAYS - 1;
+        ageShift = Long.numberOfTrailingZeros(slots);
+    }
+
+    /**
+     * Makes the given cache the one every {@link ChessGame} in this JVM uses.
+     *
+     * @param cache the cache to use, or null to stop caching
+     */
+    public static void install(PositionCache cache) {
+        installed = cache;
+    }
+
+    /**
+     * @return the cache games use, or null if none is installed
+     */
+    public static PositionCache installed() {
+        return installed;
+    }
+
+    /**
+     * Reads a position into the given list.
+     *
+     * @param moves cleared, then receives the legal moves; its contents are
+     *              undefined on a miss
+     * @return the entry (see {@link #status} and {@link #count}), or -1 if the
+     * position is not in the table
+     */
+    int probe(long key, MoveList moves) {
+        int bucket = ((int) key & mask) * WAYS * STRIDE;
+        for (int slot = bucket; slot < bucket + WAYS * STRIDE; slot += STRIDE) {
+            long header = table[slot + 1];
+            int count = (int) header & 0xFF;
+            if (header == 0 || count > MAX_MOVES) {
+                continue;
+            }
+            long check = header;
+            moves.clear();
+            for (int word = 0; word < (count + 3) / 4; word++) {
+                long packed = table[slot + 2 + word];
+                check ^= packed;
+                for (int i = 0; i < 4 && word * 4 + i < count; i++) {
+                    moves.add((int) (packed >>> (16 * i)) & 0xFFFF);
+                }
+            }
+            if ((table[slot] ^ check) == key) {
+                return entry((int) (header >>> 8) & 0xFF, count);
+            }
+        }
+        return -1;
+    }
+
+    void store(long key, int status, MoveList moves) {
+        int count = moves.size();
+        if (count > MAX_MOVES) {
+            return;
+        }
+        int age = (int) (writes++ >>> ageShift) & 0xFF;
+        int bucket = ((int) key & mask) * WAYS * STRIDE;
+        int target = bucket;
+        int oldest = -1;
+        for (int slot = bucket; slot < bucket + WAYS * STRIDE; slot += STRIDE) {
+            long header = table[slot + 1];
+            if (header == 0 || holds(slot, key)) {
+                target = slot;
+                break;
+            }
+            int distance = (age - (int) (header >>> 16)) & 0xFF;
+            if (distance > oldest) {
+                oldest = distance;
+                target = slot;
+            }
+        }
+
+        long header = count | ((long) status << 8) | ((long) age << 16) | OCCUPIED;
+        long check = header;
+        table[target + 1] = header;
+        for (int word = 0; word < (count + 3) / 4; word++) {
+            long packed = 0;
+            for (int i = 0; i < 4 && word * 4 + i < count; i++) {
+                packed |= (long) moves.get(word * 4 + i) << (16 * i);
+            }
+            table[target + 2 + word] = packed;
+            check ^= packed;
+        }
+        table[target] = key ^ check;
+    }
+
+    public void clear() {
+        Arrays.fill(table, 0);
+    }
+
+    private boolean holds(int slot, long key) {
+        long header = table[slot + 1];
+        int count = (int) header & 0xFF;
+        if (count > MAX_MOVES) {
+            return false;
+        }
+        long check = header;
+        for (int word = 0; word < (count + 3) / 4; word++) {
+            check ^= table[slot + 2 + word];
+        }
+        return (table[slot] ^ check) == key;
+    }
+
+    static int entry(int status, int count) {
+        return (status << 8) | count;
+    }
+
+    static int status(int entry) {
+        return entry >>> 8;
+    }
+
+    static int count(int entry) {
+        return entry & 0xFF;
+    }
+}
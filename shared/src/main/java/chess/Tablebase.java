@@ -0,0 +1,307 @@
+package chess;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Endgame tablebases for positions with at most {@link #MAX_PIECES} pieces,
+ * kings included, read straight from memory-mapped files. Each file holds one
+ * material balance, named like {@code KRvK.tb}, with White the stronger side;
+ * positions where Black is stronger are looked up with the board mirrored.
+ * <p>
+ * A file is a 16-byte header followed by one byte per position. The position
+ * index packs the side to move and the square of every piece, six bits each:
+ * the white king, the black king, then the other white and black pieces in
+ * the order queen, rook, bishop, knight, pawn. A positive byte is a win for
+ * the side to move, mating in that many plies; a negative byte {@code -n} is a
+ * loss, mated in {@code n - 1} plies; zero is a draw, or a position that
+ * cannot occur. Castling and en passant are not part of any table.
+ * <p>
+ * Files are written by {@link TablebaseGenerator}. Tablebases are immutable
+ * once opened and safe to use from any number of threads.
+ */
+public final class Tablebase {
+
+    public static final int MAX_PIECES = 4;
+
+    static final int MAGIC = 0x43485442;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    static final String EXTENSION = ".tb";
+    /**
+     * Returned by {@link #value} for positions no table covers.
+     */
+    static final int MISSING = Integer.MIN_VALUE;
+    /**
+     * Piece types other than the king, in the order they appear in table
+     * names and indexes.
+     */
+    static final int[] NAME_ORDER = {Bitboard.QUEEN, Bitboard.ROOK, Bitboard.BISHOP, Bitboard.KNIGHT, Bitboard.PAWN};
+
+    private static final String LETTERS = "KQBNRP";
+    private static final int[] VALUES = {0, 9, 3, 3, 5, 1};
+
+    private static volatile Tablebase installed;
+
+    private final Map<String, ByteBuffer> tables = new HashMap<>();
+
+    public enum Outcome {
+        WIN,
+        DRAW,
+        LOSS
+    }
+
+    /**
+     * What a table says about a position.
+     *
+     * @param outcome     for the side to move, with best play by both sides
+     * @param pliesToMate plies until the winning side mates, or 0 for a draw
+     */
+    public record Result(Outcome outcome, int pliesToMate) {
+
+        /**
+         * @return the status a game in this position is adjudicated with
+         */
+        public ChessGame.GameStatus status() {
+            return switch (outcome) {
+                case WIN -> ChessGame.GameStatus.TABLEBASE_WIN;
+                case LOSS -> ChessGame.GameStatus.TABLEBASE_LOSS;
+                case DRAW -> ChessGame.GameStatus.TABLEBASE_DRAW;
+            };
+        }
+    }
+
+    Tablebase() {
+    }
+
+    /**
+     * Maps every table file in a directory. The files stay mapped for as long
+     * as the tablebase is reachable; closing is not needed.
+     *
+     * @throws IOException if the directory or a table cannot be read
+     */
+    public static Tablebase open(Path directory) throws IOException {
+        Tablebase tablebase = new Tablebase();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+            for (Path file : files) {
+                tablebase.load(file);
+            }
+        }
+        return tablebase;
+    }
+
+    /**
+     * Makes the given tablebase the one every {@link ChessGame} in this JVM
+     * adjudicates with.
+     *
+     * @param tablebase the tablebase to use, or null to stop adjudicating
+     */
+    public static void install(Tablebase tablebase) {
+        installed = tablebase;
+    }
+
+    /**
+     * @return the tablebase games use, or null if none is installed
+     */
+    public static Tablebase installed() {
+        return installed;
+    }
+
+    /**
+     * @return the number of tables mapped
+     */
+    public int size() {
+        return tables.size();
+    }
+
+    /**
+     * @return whether a table for the given material, such as "KQvKR", is mapped
+     */
+    public boolean contains(String material) {
+        return tables.containsKey(canonical(material));
+    }
+
+    /**
+     * Looks up the position of a game.
+     *
+     * @return the result, or null if the game has castling or en passant
+     * rights, too many pieces, or material no mapped table covers
+     */
+    public Result probe(ChessGame game) {
+        if (game.getCastlingRights() != 0 || game.enPassantSquare() != Bitboard.EMPTY) {
+            return null;
+        }
+        int value = value(game.getBoard().bitboard(), Bitboard.colorIndex(game.getTeamTurn()));
+        return value == MISSING ? null : result(value);
+    }
+
+    /**
+     * @return the table byte of the position with the given side to move,
+     * 0 for bare kings, or {@link #MISSING}
+     */
+    int value(Bitboard bits, int color) {
+        int pieces = Long.bitCount(bits.occupancy());
+        if (pieces > MAX_PIECES) {
+            return MISSING;
+        }
+        if (pieces == 2) {
+            return 0;
+        }
+        String name = name(bits);
+        String canonical = canonical(name);
+        ByteBuffer table = tables.get(canonical);
+        if (table == null) {
+            return MISSING;
+        }
+        return table.get(HEADER_BYTES + index(bits, color, !name.equals(canonical)));
+    }
+
+    void load(Path file) throws IOException {
+        String fileName = file.getFileName().toString();
+        String name = fileName.substring(0, fileName.length() - EXTENSION.length());
+        int pieces;
+        try {
+            pieces = codes(name).length;
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Not a tablebase: " + file, e);
+        }
+        if (!name.equals(canonical(name))) {
+            throw new IOException("Tablebase is not named with the stronger side first: " + file);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() != HEADER_BYTES + positions(pieces)) {
+                throw new IOException("Not a tablebase: " + file);
+            }
+            ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION || mapped.getInt(8) != pieces) {
+                throw new IOException("Not a tablebase: " + file);
+            }
+            tables.put(name, mapped);
+        }
+    }
+
+    static Result result(int value) {
+        if (value > 0) {
+            return new Result(Outcome.WIN, value);
+        }
+        if (value < 0) {
+            return new Result(Outcome.LOSS, -value - 1);
+        }
+        return new Result(Outcome.DRAW, 0);
+    }
+
+    /**
+     * @return the number of indexes of a table with the given number of pieces
+     */
+    static long positions(int pieces) {
+        return 2L << (6 * pieces);
+    }
+
+    /**
+     * @param mirror whether to swap the colors and flip the ranks, so that a
+     *               position where Black is stronger indexes the table
+     *               where White is
+     */
+    static int index(Bitboard bits, int color, boolean mirror) {
+        int flip = mirror ? 1 : 0;
+        int squares = mirror ? 56 : 0;
+        int index = 0;
+        int shift = 0;
+        for (int side = 0; side < 2; side++) {
+            index |= (bits.kingSquare(side ^ flip) ^ squares) << shift;
+            shift += 6;
+        }
+        for (int side = 0; side < 2; side++) {
+            for (int type : NAME_ORDER) {
+                for (long pieces = bits.pieces(side ^ flip, type); pieces != 0; pieces &= pieces - 1) {
+                    index |= (Long.numberOfTrailingZeros(pieces) ^ squares) << shift;
+                    shift += 6;
+                }
+            }
+        }
+        return index | (color ^ flip) << shift;
+    }
+
+    /**
+     * @return the material on the board, such as "KRvKP"
+     */
+    static String name(Bitboard bits) {
+        StringBuilder name = new StringBuilder(MAX_PIECES + 1);
+        for (int side = 0; side < 2; side++) {
+            name.append(side == 0 ? "K" : "vK");
+            for (int type : NAME_ORDER) {
+                name.repeat(LETTERS.charAt(type), Long.bitCount(bits.pieces(side, type)));
+            }
+        }
+        return name.toString();
+    }
+
+    /**
+     * @return the name with the stronger side first: more material, or
+     * for equal material the side whose pieces sort first
+     */
+    static String canonical(String name) {
+        int split = name.indexOf('v');
+        String white = name.substring(0, split);
+        String black = name.substring(split + 1);
+        int balance = material(white) - material(black);
+        return balance < 0 || balance == 0 && white.compareTo(black) > 0 ? black + 'v' + white : name;
+    }
+
+    /**
+     * Parses a table name into the piece code of every index slot.
+     *
+     * @throws IllegalArgumentException if the name is not material in the
+     *                                  form {@link #name} writes
+     */
+    static int[] codes(String name) {
+        int split = name.indexOf('v');
+        if (split < 1 || name.length() - 1 > MAX_PIECES || name.charAt(0) != 'K' || name.charAt(split + 1) != 'K') {
+            throw new IllegalArgumentException("Not a tablebase material: " + name);
+        }
+        int[] codes = new int[name.length() - 1];
+        codes[0] = Bitboard.pieceCode(Bitboard.WHITE, Bitboard.KING);
+        codes[1] = Bitboard.pieceCode(Bitboard.BLACK, Bitboard.KING);
+        int slot = 2;
+        int order = 0;
+        for (int i = 1; i < name.length(); i++) {
+            if (i == split) {
+                i++;
+                order = 0;
+                continue;
+            }
+            int type = LETTERS.indexOf(name.charAt(i));
+            int rank = indexOf(NAME_ORDER, type);
+            if (rank < order) {
+                throw new IllegalArgumentException("Not a tablebase material: " + name);
+            }
+            order = rank;
+            codes[slot++] = Bitboard.pieceCode(i < split ? Bitboard.WHITE : Bitboard.BLACK, type);
+        }
+        return codes;
+    }
+
+    private static int material(String side) {
+        int material = 0;
+        for (int i = 0; i < side.length(); i++) {
+            material += VALUES[LETTERS.indexOf(side.charAt(i))];
+        }
+        return material;
+    }
+
+    private static int indexOf(int[] types, int type) {
+        for (int i = 0; i < types.length; i++) {
+            if (types[i] == type) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,451 @@
+package chess;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Writes {@link Tablebase} files by retrograde analysis. Every position of a
+ * material balance is first classified on its own: checkmates and stalemates,
+ * and captures and promotions, which leave the table and are looked up in the
+ * smaller tables generated before it. From then on the results spread
+ * backwards one ply at a time: the positions a move away from a loss are wins,
+ * and a position all of whose moves reach wins is a loss. Whatever is left
+ * when nothing changes is a draw.
+ * <p>
+ * Each pass walks the whole table split into ranges on a fork-join pool, and
+ * the shared state is one {@code int} per position updated by compare and set,
+ * so the passes scale with the cores. Generating a table first generates the
+ * tables it depends on, and tables already in the directory are reused.
+ * <p>
+ * Usage: {@code TablebaseGenerator directory [material...]}, where material
+ * is written like {@code KRvKP} and defaults to every table of up to
+ * {@link Tablebase#MAX_PIECES} pieces.
+ */
+public final class TablebaseGenerator {
+
+    private static final int UNKNOWN = 0;
+    private static final int WIN = 1;
+    private static final int LOSS = 2;
+    private static final int DRAW = 3;
+
+    /**
+     * An undecided position holds the number of its moves not yet known to
+     * reach a win for the opponent, and the longest mate among those that
+     * are. A decided one holds its kind and distance to mate in plies.
+     */
+    private static final int COUNT_MASK = 0xFF;
+    private static final int DISTANCE_SHIFT = 8;
+    private static final int KIND_SHIFT = 16;
+    private static final int LONGEST_SHIFT = 18;
+    private static final int MAX_DISTANCE = 126;
+    private static final int LEAF_SIZE = 1 << 14;
+    private static final VarHandle ENTRIES = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final String PIECE_LETTERS = "QRBNP";
+
+    private final Path directory;
+    private final ForkJoinPool pool;
+    private final Tablebase tables = new Tablebase();
+
+    /**
+     * @param directory where tables are read from and written to
+     * @param pool      the pool the passes run on
+     */
+    public TablebaseGenerator(Path directory, ForkJoinPool pool) {
+        this.directory = directory;
+        this.pool = pool;
+    }
+
+    /**
+     * Generates the table of a material balance, and before it every table
+     * its captures and promotions lead to, skipping any already written.
+     *
+     * @param material such as "KQvKR", in either order of the sides
+     * @return the names of the tables written, in the order they were written
+     * @throws IOException if a table cannot be read or written
+     */
+    public List<String> generate(String material) throws IOException {
+        List<String> written = new ArrayList<>();
+        generate(Tablebase.codes(material), written);
+        return written;
+    }
+
+    private void generate(int[] codes, List<String> written) throws IOException {
+        String name = Tablebase.canonical(name(codes));
+        if (tables.contains(name)) {
+            return;
+        }
+        codes = Tablebase.codes(name);
+        for (int[] child : children(codes)) {
+            if (child.length > 2) {
+                generate(child, written);
+            }
+        }
+        Path file = directory.resolve(name + Tablebase.EXTENSION);
+        if (!Files.exists(file)) {
+            write(file, codes.length, build(codes));
+            written.add(name);
+        }
+        tables.load(file);
+    }
+
+    /**
+     * @return the material left by every capture of a piece and every
+     * promotion of a pawn
+     */
+    private static List<int[]> children(int[] codes) {
+        List<int[]> children = new ArrayList<>();
+        for (int slot = 2; slot < codes.length; slot++) {
+            int[] captured = new int[codes.length - 1];
+            System.arraycopy(codes, 0, captured, 0, slot);
+            System.arraycopy(codes, slot + 1, captured, slot, codes.length - slot - 1);
+            children.add(captured);
+            if (Bitboard.typeOf(codes[slot]) == Bitboard.PAWN) {
+                for (int type : MoveGenerator.PROMOTIONS) {
+                    int[] promoted = codes.clone();
+                    promoted[slot] = Bitboard.pieceCode(Bitboard.colorCode(codes[slot]), type);
+                    children.add(promoted);
+                }
+            }
+        }
+        return children;
+    }
+
+    private static String name(int[] codes) {
+        Bitboard bits = new Bitboard();
+        for (int slot = 0; slot < codes.length; slot++) {
+            bits.put(slot, codes[slot]);
+        }
+        return Tablebase.name(bits);
+    }
+
+    private byte[] build(int[] codes) {
+        int size = (int) Tablebase.positions(codes.length);
+        int[] entries = new int[size];
+        forEach(size, (from, to) -> new Worker(codes).classify(entries, from, to));
+
+        AtomicBoolean pending = new AtomicBoolean(true);
+        for (int distance = 0; pending.get(); distance++) {
+            pending.set(false);
+            int level = distance;
+            forEach(size, (from, to) -> new Worker(codes).propagate(entries, level, pending, from, to));
+        }
+
+        byte[] table = new byte[size];
+        for (int i = 0; i < size; i++) {
+            int entry = entries[i];
+            int distance = (entry >>> DISTANCE_SHIFT) & 0xFF;
+            switch (entry >>> KIND_SHIFT & 3) {
+                case WIN -> table[i] = (byte) distance;
+                case LOSS -> table[i] = (byte) -(distance + 1);
+                default -> table[i] = 0;
+            }
+        }
+        return table;
+    }
+
+    private static void write(Path file, int pieces, byte[] table) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(Tablebase.HEADER_BYTES)
+                .putInt(Tablebase.MAGIC).putInt(Tablebase.VERSION).putInt(pieces).putInt(0).flip();
+        ByteBuffer body = ByteBuffer.wrap(table);
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (header.hasRemaining()) {
+                out.write(header);
+            }
+            while (body.hasRemaining()) {
+                out.write(body);
+            }
+        }
+    }
+
+    private void forEach(int size, Range range) {
+        pool.invoke(new Split(0, size, range));
+    }
+
+    private static int decided(int kind, int distance) {
+        if (distance > MAX_DISTANCE) {
+            throw new IllegalStateException("Mate is longer than a table can hold: " + distance + " plies");
+        }
+        return kind << KIND_SHIFT | distance << DISTANCE_SHIFT;
+    }
+
+    @FunctionalInterface
+    private interface Range {
+        void run(int from, int to);
+    }
+
+    private static final class Split extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        // Tasks are never serialized; RecursiveAction is Serializable only by inheritance
+        private final transient Range range;
+
+        Split(int from, int to, Range range) {
+            this.from = from;
+            this.to = to;
+            this.range = range;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= LEAF_SIZE) {
+                range.run(from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Split(from, middle, range), new Split(middle, to, range));
+        }
+    }
+
+    /**
+     * Scratch board and move list for one range of a pass.
+     */
+    private final class Worker {
+
+        private final int[] codes;
+        private final int sideShift;
+        private final Bitboard bits = new Bitboard();
+        private final MoveList moves = new MoveList();
+
+        Worker(int[] codes) {
+            this.codes = codes;
+            this.sideShift = 6 * codes.length;
+        }
+
+        void classify(int[] entries, int from, int to) {
+            for (int index = from; index < to; index++) {
+                int color = index >>> sideShift;
+                if (!decode(index) || bits.isAttacked(bits.kingSquare(color ^ 1), color)) {
+                    entries[index] = DRAW << KIND_SHIFT;
+                    continue;
+                }
+                moves.clear();
+                MoveGenerator.legalMoves(bits, color, 0, Bitboard.EMPTY, moves);
+                if (moves.isEmpty()) {
+                    boolean check = bits.isAttacked(bits.kingSquare(color), color ^ 1);
+                    entries[index] = check ? decided(LOSS, 0) : DRAW << KIND_SHIFT;
+                    continue;
+                }
+
+                int count = 0;
+                int shortest = Integer.MAX_VALUE;
+                int longest = 0;
+                for (int i = 0; i < moves.size(); i++) {
+                    int move = moves.get(i);
+                    if (bits.pieceAt(Move.to(move)) == Bitboard.EMPTY && !Move.isPromotion(move)) {
+                        count++;
+                        continue;
+                    }
+                    int value = exit(move, color);
+                    if (value < 0) {
+                        shortest = Math.min(shortest, -value);
+                    } else if (value > 0) {
+                        longest = Math.max(longest, value);
+                    } else {
+                        count++;
+                    }
+                }
+                if (shortest != Integer.MAX_VALUE) {
+                    entries[index] = decided(WIN, shortest);
+                } else if (count == 0) {
+                    entries[index] = decided(LOSS, longest + 1);
+                } else {
+                    entries[index] = count | longest << LONGEST_SHIFT;
+                }
+            }
+        }
+
+        /**
+         * Publishes the positions decided at the given distance to the
+         * positions one move before them.
+         */
+        void propagate(int[] entries, int distance, AtomicBoolean pending, int from, int to) {
+            for (int index = from; index < to; index++) {
+                int entry = entries[index];
+                int kind = entry >>> KIND_SHIFT & 3;
+                if (kind != WIN && kind != LOSS) {
+                    continue;
+                }
+                int entryDistance = (entry >>> DISTANCE_SHIFT) & 0xFF;
+                if (entryDistance > distance && !pending.get()) {
+                    pending.set(true);
+                }
+                if (entryDistance != distance) {
+                    continue;
+                }
+                decode(index);
+                int color = index >>> sideShift;
+                int mover = color ^ 1;
+                long occupied = bits.occupancy();
+                for (int slot = 0; slot < codes.length; slot++) {
+                    int code = codes[slot];
+                    if (Bitboard.colorCode(code) != mover) {
+                        continue;
+                    }
+                    int square = (index >>> (6 * slot)) & 63;
+                    int type = Bitboard.typeOf(code);
+                    long sources = type == Bitboard.PAWN
+                            ? pawnSources(mover, square, occupied)
+                            : Attacks.attacks(type, square, occupied) & ~occupied;
+                    for (; sources != 0; sources &= sources - 1) {
+                        int source = Long.numberOfTrailingZeros(sources);
+                        bits.remove(square);
+                        bits.put(source, code);
+                        if (!bits.isAttacked(bits.kingSquare(color), mover)) {
+                            int previous = (index ^ (1 << sideShift)) + ((source - square) << (6 * slot));
+                            if (update(entries, previous, kind, distance)) {
+                                pending.set(true);
+                            }
+                        }
+                        bits.remove(source);
+                        bits.put(square, code);
+                    }
+                }
+            }
+        }
+
+        /**
+         * @return whether the position was decided
+         */
+        private boolean update(int[] entries, int index, int kind, int distance) {
+            while (true) {
+                int entry = (int) ENTRIES.getVolatile(entries, index);
+                int current = entry >>> KIND_SHIFT & 3;
+                int next;
+                if (kind == LOSS) {
+                    boolean longer = current == WIN && ((entry >>> DISTANCE_SHIFT) & 0xFF) > distance + 1;
+                    if (current != UNKNOWN && !longer) {
+                        return false;
+                    }
+                    next = decided(WIN, distance + 1);
+                } else {
+                    if (current != UNKNOWN) {
+                        return false;
+                    }
+                    int count = (entry & COUNT_MASK) - 1;
+                    int longest = Math.max(entry >>> LONGEST_SHIFT & 0xFF, distance);
+                    next = count == 0 ? decided(LOSS, longest + 1) : count | longest << LONGEST_SHIFT;
+                }
+                if (ENTRIES.compareAndSet(entries, index, entry, next)) {
+                    return (next >>> KIND_SHIFT & 3) != UNKNOWN;
+                }
+            }
+        }
+
+        /**
+         * @return the table byte, for the opponent, of the position a capture
+         * or promotion leads to
+         */
+        private int exit(int move, int color) {
+            int from = Move.from(move);
+            int to = Move.to(move);
+            int moving = bits.remove(from);
+            int captured = bits.remove(to);
+            int promotion = Move.promotion(move);
+            bits.put(to, promotion == Bitboard.EMPTY ? moving : Bitboard.pieceCode(color, promotion));
+            int value = tables.value(bits, color ^ 1);
+            if (value == Tablebase.MISSING) {
+                throw new IllegalStateException("No table for " + Tablebase.name(bits));
+            }
+            bits.remove(to);
+            if (captured != Bitboard.EMPTY) {
+                bits.put(to, captured);
+            }
+            bits.put(from, moving);
+            return value;
+        }
+
+        /**
+         * Sets up the position of an index.
+         *
+         * @return false if two pieces share a square or a pawn stands on
+         * the first or last rank
+         */
+        private boolean decode(int index) {
+            bits.clear();
+            for (int slot = 0; slot < codes.length; slot++) {
+                int square = (index >>> (6 * slot)) & 63;
+                if (bits.pieceAt(square) != Bitboard.EMPTY) {
+                    return false;
+                }
+                if (Bitboard.typeOf(codes[slot]) == Bitboard.PAWN && (square < 8 || square >= 56)) {
+                    return false;
+                }
+                bits.put(square, codes[slot]);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * @return the squares a pawn of the given color on the square could have
+     * pushed from
+     */
+    private static long pawnSources(int color, int square, long occupied) {
+        int step = color == Bitboard.WHITE ? -8 : 8;
+        int single = square + step;
+        if (single < 8 || single >= 56 || (occupied & (1L << single)) != 0) {
+            return 0;
+        }
+        long sources = 1L << single;
+        int rank = square >>> 3;
+        int doubled = single + step;
+        if (rank == (color == Bitboard.WHITE ? 3 : 4) && (occupied & (1L << doubled)) == 0) {
+            sources |= 1L << doubled;
+        }
+        return sources;
+    }
+
+    /**
+     * @return every material balance of three to {@link Tablebase#MAX_PIECES}
+     * pieces, each once with the stronger side first
+     */
+    static Set<String> allMaterial() {
+        Set<String> names = new LinkedHashSet<>();
+        for (int i = 0; i < PIECE_LETTERS.length(); i++) {
+            char first = PIECE_LETTERS.charAt(i);
+            names.add("K" + first + "vK");
+            for (int j = i; j < PIECE_LETTERS.length(); j++) {
+                names.add("K" + first + PIECE_LETTERS.charAt(j) + "vK");
+            }
+            for (int j = 0; j < PIECE_LETTERS.length(); j++) {
+                names.add(Tablebase.canonical("K" + first + "vK" + PIECE_LETTERS.charAt(j)));
+            }
+        }
+        return names;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: TablebaseGenerator directory [material...]");
+            System.exit(2);
+        }
+        Path directory = Path.of(args[0]);
+        Files.createDirectories(directory);
+        TablebaseGenerator generator = new TablebaseGenerator(directory, ForkJoinPool.commonPool());
+        Iterable<String> materials = args.length > 1 ? List.of(args).subList(1, args.length) : allMaterial();
+        for (String material : materials) {
+            long start = System.nanoTime();
+            for (String name : generator.generate(material)) {
+                System.out.printf("%s written%n", name);
+            }
+            System.out.printf("%s: %.3f s%n", material, (System.nanoTime() - start) / 1e9);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * Preallocated stack of undo records for {@link ChessGame#doMove}. Each record
+ * is a single long packing the move with the piece it captured, what kind of
+ * move it was and the game state (castling rights, en passant square and
+ * move clocks) from before it, so nothing is allocated per move once the
+ * stack has grown to the game's depth. The array is only allocated by the
+ * first push, since most games, such as copies made for snapshots and
+ * analysis, never have a move undone.
+ */
+final class UndoStack {
+
+    static final int PROMOTION = 1 << 16;
+    static final int EN_PASSANT = 1 << 17;
+    static final int CASTLING = 1 << 18;
+
+    private static final int INITIAL_CAPACITY = 32;
+    private static final long[] NONE = {};
+
+    private long[] moves = NONE;
+    private int size;
+
+    /**
+     * Packs a move record: from and to squares, the captured piece code (or
+     * {@link Bitboard#EMPTY}), any of the {@link #PROMOTION}, {@link #EN_PASSANT}
+     * and {@link #CASTLING} flags, and the game state to restore.
+     */
+    static long record(int from, int to, int captured, int flags, int state) {
+        return (from | (to << 6) | ((captured + 1) << 12) | flags) | ((long) state << 32);
+    }
+
+    static int from(long record) {
+        return (int) record & 63;
+    }
+
+    static int to(long record) {
+        return ((int) record >>> 6) & 63;
+    }
+
+    static int captured(long record) {
+        return (((int) record >>> 12) & 15) - 1;
+    }
+
+    static boolean is(long record, int flag) {
+        return ((int) record & flag) != 0;
+    }
+
+    static int state(long record) {
+        return (int) (record >>> 32);
+    }
+
+    void push(long record) {
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, Math.max(INITIAL_CAPACITY, size * 2));
+        }
+        moves[size++] = record;
+    }
+
+    long pop() {
+        if (size == 0) {
+            throw new IllegalStateException("No move to undo");
+        }
+        return moves[--size];
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        size = 0;
+    }
+}
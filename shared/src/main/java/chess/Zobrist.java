@@ -0,0 +1,72 @@
+package chess;
+
+/**
+ * Random keys for Zobrist hashing of positions. A position's key is the XOR of
+ * one key per (piece, square) pair on the board, plus {@link #SIDE} when black
+ * is to move and keys for the castling rights and en passant file, so a key can
+ * be updated in O(1) as pieces move.
+ * <p>
+ * Keys come from a fixed-seed SplitMix64 sequence, so they are identical in
+ * every JVM and can be persisted or shared between servers.
+ */
+public final class Zobrist {
+
+    private static final long SEED = 0x3C6EF372FE94F82BL;
+
+    private static final long[][] PIECES = new long[12][64];
+    public static final long SIDE;
+    private static final long[] CASTLING = new long[16];
+    private static final long[] EN_PASSANT = new long[8];
+
+    static {
+        long state = SEED;
+        for (int code = 0; code < 12; code++) {
+            for (int square = 0; square < 64; square++) {
+                state += 0x9E3779B97F4A7C15L;
+                PIECES[code][square] = mix(state);
+            }
+        }
+        state += 0x9E3779B97F4A7C15L;
+        SIDE = mix(state);
+        for (int right = 1; right < CASTLING.length; right <<= 1) {
+            state += 0x9E3779B97F4A7C15L;
+            long key = mix(state);
+            for (int rights = 0; rights < CASTLING.length; rights++) {
+                if ((rights & right) != 0) {
+                    CASTLING[rights] ^= key;
+                }
+            }
+        }
+        for (int file = 0; file < EN_PASSANT.length; file++) {
+            state += 0x9E3779B97F4A7C15L;
+            EN_PASSANT[file] = mix(state);
+        }
+    }
+
+    private Zobrist() {
+    }
+
+    public static long piece(int code, int square) {
+        return PIECES[code][square];
+    }
+
+    /**
+     * @param rights castling rights as the bits defined in {@link Castling}
+     */
+    public static long castling(int rights) {
+        return CASTLING[rights];
+    }
+
+    /**
+     * @param file en passant file, 1 to 8
+     */
+    public static long enPassant(int file) {
+        return EN_PASSANT[file - 1];
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,67 @@
+package chess.engine;
+
+import chess.ChessGame;
+
+/**
+ * Measures how {@link ParallelSearch} scales: for each thread count it
+ * searches a fixed set of positions to a fixed depth and reports the time to
+ * reach that depth, the node rate, and both relative to one thread.
+ * <p>
+ * Usage: {@code Benchmark [depth] [maxThreads]}, where depth defaults to 9 and
+ * maxThreads to the number of cores. Thread counts double from 1 up to
+ * maxThreads, after a shallower warm-up run so the JIT does not favor the
+ * later rows.
+ */
+public final class Benchmark {
+
+    private static final String[] POSITIONS = {
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "r1bqkb1r/pppp1ppp/2n2n2/4p3/2B1P3/5N2/PPPP1PPP/RNBQK2R w KQkq - 4 4",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+    };
+    private static final int TABLE_MEGABYTES = 64;
+
+    private Benchmark() {
+    }
+
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 9;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        try (ParallelSearch warmUp = new ParallelSearch(1, TABLE_MEGABYTES)) {
+            for (String fen : POSITIONS) {
+                warmUp.search(ChessGame.fromFen(fen), SearchLimits.depth(Math.max(1, depth - 2)));
+            }
+        }
+
+        System.out.printf("%-8s %12s %14s %14s %10s %10s%n",
+                "Threads", "Time (ms)", "Nodes", "Nodes/sec", "Speedup", "NPS scale");
+        double baseTime = 0;
+        double baseRate = 0;
+        int threads = 1;
+        while (true) {
+            long nodes = 0;
+            long start = System.nanoTime();
+            try (ParallelSearch search = new ParallelSearch(threads, TABLE_MEGABYTES)) {
+                for (String fen : POSITIONS) {
+                    search.clear();
+                    nodes += search.search(ChessGame.fromFen(fen), SearchLimits.depth(depth)).nodes();
+                }
+            }
+            double millis = (System.nanoTime() - start) / 1e6;
+            double rate = nodes / (millis / 1000);
+            if (threads == 1) {
+                baseTime = millis;
+                baseRate = rate;
+            }
+            System.out.printf("%-8d %12.0f %14d %14.0f %9.2fx %9.2fx%n",
+                    threads, millis, nodes, rate, baseTime / millis, rate / baseRate);
+            if (threads >= maxThreads) {
+                break;
+            }
+            threads = Math.min(threads * 2, maxThreads);
+        }
+    }
+}
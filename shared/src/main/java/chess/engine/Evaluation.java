@@ -0,0 +1,133 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+
+/**
+ * Static evaluation of a position, in centipawns. The material and
+ * piece-square score comes from {@link ChessBoard#getPositionalScore()}, which
+ * the board keeps up to date as pieces move. Pawn structure (doubled, isolated
+ * and passed pawns) is added on top and cached by pawn key, so a typical call
+ * does no scanning at all.
+ */
+public final class Evaluation {
+
+    private static final int DOUBLED_MIDGAME = -10;
+    private static final int DOUBLED_ENDGAME = -20;
+    private static final int ISOLATED_MIDGAME = -10;
+    private static final int ISOLATED_ENDGAME = -15;
+    /**
+     * Passed pawn bonus by rank counted from the pawn's own side, 1 to 8.
+     */
+    private static final int[] PASSED_MIDGAME = {0, 0, 5, 10, 15, 25, 40, 60, 0};
+    private static final int[] PASSED_ENDGAME = {0, 0, 10, 20, 35, 60, 100, 150, 0};
+
+    private static final long FILE_A = 0x0101010101010101L;
+    private static final long[] FILES = new long[8];
+    private static final long[] ADJACENT_FILES = new long[8];
+    private static final long[][] AHEAD = new long[2][64];
+
+    private static final PawnCache PAWNS = new PawnCache(1024);
+
+    static {
+        for (int file = 0; file < 8; file++) {
+            FILES[file] = FILE_A << file;
+        }
+        for (int file = 0; file < 8; file++) {
+            ADJACENT_FILES[file] = (file > 0 ? FILES[file - 1] : 0) | (file < 7 ? FILES[file + 1] : 0);
+        }
+        for (int square = 0; square < 64; square++) {
+            long span = FILES[square & 7] | ADJACENT_FILES[square & 7];
+            int rank = square >>> 3;
+            long above = rank == 7 ? 0 : -1L << ((rank + 1) * 8);
+            long below = rank == 0 ? 0 : -1L >>> ((8 - rank) * 8);
+            AHEAD[0][square] = span & above;
+            AHEAD[1][square] = span & below;
+        }
+    }
+
+    private Evaluation() {
+    }
+
+    /**
+     * @return the usual value of a piece in centipawns; the king has no
+     * material value
+     */
+    public static int value(ChessPiece.PieceType type) {
+        return switch (type) {
+            case KING -> 0;
+            case QUEEN -> 900;
+            case ROOK -> 500;
+            case BISHOP -> 330;
+            case KNIGHT -> 320;
+            case PAWN -> 100;
+        };
+    }
+
+    /**
+     * @return the score from the point of view of the side to move
+     */
+    public static int evaluate(ChessGame game) {
+        int score = forWhite(game);
+        return game.getTeamTurn() == ChessGame.TeamColor.WHITE ? score : -score;
+    }
+
+    /**
+     * Scores a position from White's point of view without searching, cheap
+     * enough to send with every board update or to adjudicate a game that was
+     * left unfinished.
+     *
+     * @return the score, positive when White is better
+     */
+    public static int forWhite(ChessGame game) {
+        ChessBoard board = game.getBoard();
+        long key = board.getPawnKey();
+        long entry = PAWNS.probe(key);
+        if (entry == 0) {
+            entry = pawnStructure(board, key);
+        }
+        int phase = board.getGamePhase();
+        int pawns = (PawnCache.midgame(entry) * phase
+                + PawnCache.endgame(entry) * (ChessBoard.MAX_GAME_PHASE - phase)) / ChessBoard.MAX_GAME_PHASE;
+        return board.getPositionalScore() + pawns;
+    }
+
+    private static long pawnStructure(ChessBoard board, long key) {
+        long white = board.getPieces(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
+        long black = board.getPieces(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN);
+        int midgame = 0;
+        int endgame = 0;
+        for (int file = 0; file < 8; file++) {
+            int whiteDoubled = Math.max(Long.bitCount(white & FILES[file]) - 1, 0);
+            int blackDoubled = Math.max(Long.bitCount(black & FILES[file]) - 1, 0);
+            midgame += (whiteDoubled - blackDoubled) * DOUBLED_MIDGAME;
+            endgame += (whiteDoubled - blackDoubled) * DOUBLED_ENDGAME;
+        }
+        for (long pawns = white; pawns != 0; pawns &= pawns - 1) {
+            int square = Long.numberOfTrailingZeros(pawns);
+            if ((white & ADJACENT_FILES[square & 7]) == 0) {
+                midgame += ISOLATED_MIDGAME;
+                endgame += ISOLATED_ENDGAME;
+            }
+            if ((black & AHEAD[0][square]) == 0) {
+                int rank = (square >>> 3) + 1;
+                midgame += PASSED_MIDGAME[rank];
+                endgame += PASSED_ENDGAME[rank];
+            }
+        }
+        for (long pawns = black; pawns != 0; pawns &= pawns - 1) {
+            int square = Long.numberOfTrailingZeros(pawns);
+            if ((black & ADJACENT_FILES[square & 7]) == 0) {
+                midgame -= ISOLATED_MIDGAME;
+                endgame -= ISOLATED_ENDGAME;
+            }
+            if ((white & AHEAD[1][square]) == 0) {
+                int rank = 8 - (square >>> 3);
+                midgame -= PASSED_MIDGAME[rank];
+                endgame -= PASSED_ENDGAME[rank];
+            }
+        }
+        return PAWNS.store(key, midgame, endgame);
+    }
+}
@@ -0,0 +1,154 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.Move;
+import chess.MoveList;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * Opening book read straight from a memory-mapped file. The file is a
+ * 16-byte header followed by 16-byte records sorted by position key: the
+ * Zobrist key (8 bytes), the packed {@link Move} (2), its weight (2) and the
+ * number of games that played it (4). A lookup is a binary search over the
+ * mapping, so nothing is loaded onto the heap and processes on one host share
+ * the pages through the operating system's cache.
+ * <p>
+ * Files are written by {@link OpeningBookBuilder}. A book is immutable once
+ * opened and safe to use from any number of threads.
+ */
+public final class OpeningBook {
+
+    static final int MAGIC = 0x4348424B;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    static final int RECORD_BYTES = 16;
+
+    private final ByteBuffer records;
+    private final int size;
+
+    /**
+     * A book move with how strongly the book recommends it.
+     *
+     * @param weight relative weight among the moves of the position
+     * @param games  the number of games in the corpus that played it
+     */
+    public record BookMove(ChessMove move, int weight, int games) {
+    }
+
+    private OpeningBook(ByteBuffer records) {
+        this.records = records;
+        this.size = records.capacity() / RECORD_BYTES;
+    }
+
+    /**
+     * Maps a book file. The file stays mapped for as long as the book is
+     * reachable; closing is not needed.
+     *
+     * @throws IOException if the file cannot be read or is not a book
+     */
+    public static OpeningBook open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length < HEADER_BYTES || (length - HEADER_BYTES) % RECORD_BYTES != 0
+                    || length > Integer.MAX_VALUE) {
+                throw new IOException("Not an opening book: " + path);
+            }
+            ByteBuffer file = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            if (file.getInt(0) != MAGIC || file.getInt(4) != VERSION
+                    || file.getLong(8) != (length - HEADER_BYTES) / RECORD_BYTES) {
+                throw new IOException("Not an opening book: " + path);
+            }
+            return new OpeningBook(file.slice(HEADER_BYTES, (int) length - HEADER_BYTES));
+        }
+    }
+
+    /**
+     * @return the number of position and move records
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the book moves of a position, best weighted first. Moves that are
+     * not legal in the game, which only a key collision could produce, are
+     * left out.
+     *
+     * @return the book moves, empty if the position is not in the book
+     */
+    public List<BookMove> lookup(ChessGame game) {
+        List<BookMove> found = new ArrayList<>();
+        long key = game.getZobristKey();
+        int first = firstRecord(key);
+        if (first == size) {
+            return found;
+        }
+        MoveList legal = new MoveList();
+        game.legalMoves(legal);
+        for (int i = first; i < size && keyAt(i) == key; i++) {
+            int offset = i * RECORD_BYTES;
+            int move = Short.toUnsignedInt(records.getShort(offset + 8));
+            if (legal.contains(move)) {
+                found.add(new BookMove(Move.decode(move), Short.toUnsignedInt(records.getShort(offset + 10)),
+                        records.getInt(offset + 12)));
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Picks a book move at random in proportion to the weights, so a bot
+     * does not play the same opening every game.
+     *
+     * @return the move, or null if the position is not in the book
+     */
+    public ChessMove pick(ChessGame game, RandomGenerator random) {
+        List<BookMove> moves = lookup(game);
+        int total = 0;
+        for (BookMove move : moves) {
+            total += move.weight();
+        }
+        if (total == 0) {
+            return null;
+        }
+        int choice = random.nextInt(total);
+        for (BookMove move : moves) {
+            choice -= move.weight();
+            if (choice < 0) {
+                return move.move();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the index of the first record with the key, or {@link #size}
+     * if there is none
+     */
+    private int firstRecord(long key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keyAt(middle) < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low < size && keyAt(low) == key ? low : size;
+    }
+
+    private long keyAt(int index) {
+        return records.getLong(index * RECORD_BYTES);
+    }
+}
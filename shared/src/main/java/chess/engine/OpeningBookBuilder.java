@@ -0,0 +1,176 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.MoveList;
+import chess.Pgn;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Builds an {@link OpeningBook} file from PGN games. The first plies of
+ * every game are counted by position and move; a move scores 2 for each game
+ * its side won and 1 for each draw, and moves that never scored are left out.
+ * <p>
+ * Usage: {@code OpeningBookBuilder output.book [--plies N] [--min-games N] games.pgn...},
+ * where plies defaults to 20 and min-games, the number of games a move needs
+ * to be kept, to 2.
+ */
+public final class OpeningBookBuilder {
+
+    private static final int DEFAULT_PLIES = 20;
+    private static final int DEFAULT_MIN_GAMES = 2;
+    private static final int MAX_WEIGHT = 0xFFFF;
+
+    private final int plies;
+    private final int minGames;
+    /**
+     * Per position key and packed move, the score in the high 32 bits and the
+     * game count in the low 32.
+     */
+    private final Map<Long, Map<Integer, Long>> counts = new HashMap<>();
+    private int games;
+    private int skipped;
+
+    /**
+     * @param plies    how many plies of each game to take into the book
+     * @param minGames how many games must play a move for it to be kept
+     */
+    public OpeningBookBuilder(int plies, int minGames) {
+        if (plies < 1 || minGames < 1) {
+            throw new IllegalArgumentException("Plies and minimum games must be positive");
+        }
+        this.plies = plies;
+        this.minGames = minGames;
+    }
+
+    /**
+     * Adds every game of a PGN stream.
+     *
+     * @throws IOException if reading fails
+     */
+    public void addPgn(Reader pgn) throws IOException {
+        skipped += Pgn.read(pgn, this::addGame);
+    }
+
+    public void addGame(Pgn.Game game) {
+        int whiteScore = switch (game.result()) {
+            case "1-0" -> 2;
+            case "1/2-1/2" -> 1;
+            default -> 0;
+        };
+        int blackScore = switch (game.result()) {
+            case "0-1" -> 2;
+            case "1/2-1/2" -> 1;
+            default -> 0;
+        };
+        ChessGame replay = new ChessGame(game.start());
+        MoveList moves = game.moves();
+        for (int i = 0; i < Math.min(plies, moves.size()); i++) {
+            int score = replay.getTeamTurn() == ChessGame.TeamColor.WHITE ? whiteScore : blackScore;
+            counts.computeIfAbsent(replay.getZobristKey(), key -> new HashMap<>())
+                    .merge(moves.get(i), ((long) score << 32) | 1, Long::sum);
+            replay.doMove(moves.get(i));
+        }
+        games++;
+    }
+
+    public int games() {
+        return games;
+    }
+
+    public int skipped() {
+        return skipped;
+    }
+
+    /**
+     * Writes the book, replacing the file if it exists.
+     *
+     * @return the number of records written
+     * @throws IOException if writing fails
+     */
+    public int write(Path path) throws IOException {
+        Long[] keys = counts.keySet().toArray(new Long[0]);
+        Arrays.sort(keys);
+        ByteBuffer records = ByteBuffer.allocate(countRecords() * OpeningBook.RECORD_BYTES);
+        for (long key : keys) {
+            counts.get(key).entrySet().stream()
+                    .filter(entry -> keep(entry.getValue()))
+                    .sorted((a, b) -> Long.compare(b.getValue() >>> 32, a.getValue() >>> 32))
+                    .forEach(entry -> records.putLong(key)
+                            .putShort((short) (int) entry.getKey())
+                            .putShort((short) Math.min(entry.getValue() >>> 32, MAX_WEIGHT))
+                            .putInt((int) (long) entry.getValue()));
+        }
+        records.flip();
+        int size = records.remaining() / OpeningBook.RECORD_BYTES;
+
+        ByteBuffer header = ByteBuffer.allocate(OpeningBook.HEADER_BYTES)
+                .putInt(OpeningBook.MAGIC).putInt(OpeningBook.VERSION).putLong(size).flip();
+        try (FileChannel out = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (header.hasRemaining()) {
+                out.write(header);
+            }
+            while (records.hasRemaining()) {
+                out.write(records);
+            }
+        }
+        return size;
+    }
+
+    private int countRecords() {
+        int records = 0;
+        for (Map<Integer, Long> moves : counts.values()) {
+            for (long count : moves.values()) {
+                if (keep(count)) {
+                    records++;
+                }
+            }
+        }
+        return records;
+    }
+
+    private boolean keep(long count) {
+        return (count >>> 32) > 0 && (int) count >= minGames;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: OpeningBookBuilder output.book [--plies N] [--min-games N] games.pgn...");
+            System.exit(2);
+        }
+        int plies = DEFAULT_PLIES;
+        int minGames = DEFAULT_MIN_GAMES;
+        int first = 1;
+        while (first + 1 < args.length && args[first].startsWith("--")) {
+            switch (args[first]) {
+                case "--plies" -> plies = Integer.parseInt(args[first + 1]);
+                case "--min-games" -> minGames = Integer.parseInt(args[first + 1]);
+                default -> throw new IllegalArgumentException("Unknown option: " + args[first]);
+            }
+            first += 2;
+        }
+
+        OpeningBookBuilder builder = new OpeningBookBuilder(plies, minGames);
+        long start = System.nanoTime();
+        for (int i = first; i < args.length; i++) {
+            try (Reader pgn = Files.newBufferedReader(Path.of(args[i]), StandardCharsets.ISO_8859_1)) {
+                builder.addPgn(pgn);
+            }
+        }
+        int records = builder.write(Path.of(args[0]));
+        System.out.printf("Games: %d (%d skipped)%n", builder.games(), builder.skipped());
+        System.out.printf("Records: %d%n", records);
+        System.out.printf("Time: %.3f s%n", (System.nanoTime() - start) / 1e9);
+    }
+}
@@ -0,0 +1,142 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Searches one position with several threads (Lazy SMP). Every thread runs
+ * its own {@link Search} on the same root and they cooperate only through a
+ * shared {@link TranspositionTable}: a thread that finishes a subtree first
+ * leaves its result in the table for the others. Odd-numbered helpers start
+ * one ply deeper so the threads spread out over the tree instead of all
+ * searching the same nodes in step.
+ * <p>
+ * The first thread is the caller's own and decides when to stop; its result
+ * is returned with the nodes of all threads added up. Close the instance to
+ * stop its helper threads.
+ */
+public final class ParallelSearch implements AutoCloseable {
+
+    private final TranspositionTable table;
+    private final Search[] workers;
+    private final ExecutorService helpers;
+    private OpeningBook book;
+
+    /**
+     * @param threads        threads to search with, from 1 to the number of cores
+     * @param tableMegabytes memory budget of the shared transposition table
+     */
+    public ParallelSearch(int threads, int tableMegabytes) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        if (threads < 1 || threads > cores) {
+            throw new IllegalArgumentException("Thread count must be between 1 and " + cores);
+        }
+        table = new TranspositionTable(tableMegabytes);
+        workers = new Search[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Search(table);
+        }
+        helpers = threads == 1 ? null : Executors.newFixedThreadPool(threads - 1, runnable -> {
+            Thread thread = new Thread(runnable, "chess-search-helper");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public int threads() {
+        return workers.length;
+    }
+
+    /**
+     * Plays out of the given book while the game is in it, instead of
+     * searching.
+     *
+     * @param book the opening book, or null to always search
+     */
+    public void setBook(OpeningBook book) {
+        this.book = book;
+    }
+
+    /**
+     * Finds the best move for the side to move, using every thread.
+     *
+     * @param position the game to search; it is not changed
+     * @param limits   when to stop; a node limit counts the nodes of all threads
+     * @return the best move found and its score
+     */
+    public SearchResult search(ChessGame position, SearchLimits limits) {
+        ChessMove bookMove = Search.bookMove(book, position);
+        if (bookMove != null) {
+            return SearchResult.fromBook(bookMove);
+        }
+        table.newSearch();
+        for (Search worker : workers) {
+            worker.reset();
+        }
+        SearchLimits helperLimits = SearchLimits.depth(SearchLimits.MAX_DEPTH);
+        List<Future<SearchResult>> running = new ArrayList<>();
+        for (int i = 1; i < workers.length; i++) {
+            Search worker = workers[i];
+            int firstDepth = 1 + (i & 1);
+            running.add(helpers.submit(() -> worker.iterate(position, helperLimits, firstDepth)));
+        }
+
+        SearchLimits mainLimits = limits.nodes() == Long.MAX_VALUE ? limits
+                : new SearchLimits(limits.depth(), Math.max(1, limits.nodes() / workers.length), limits.millis());
+        SearchResult main;
+        try {
+            main = workers[0].iterate(position, mainLimits, 1);
+        } finally {
+            for (int i = 1; i < workers.length; i++) {
+                workers[i].stop();
+            }
+        }
+
+        long nodes = main.nodes();
+        for (Future<SearchResult> helper : running) {
+            nodes += join(helper).nodes();
+        }
+        return new SearchResult(main.bestMove(), main.score(), main.depth(), nodes, main.principalVariation());
+    }
+
+    /**
+     * Stops a running search; it returns the best move found so far.
+     */
+    public void stop() {
+        for (Search worker : workers) {
+            worker.stop();
+        }
+    }
+
+    public void clear() {
+        for (Search worker : workers) {
+            worker.clear();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (helpers != null) {
+            stop();
+            helpers.shutdownNow();
+        }
+    }
+
+    private static SearchResult join(Future<SearchResult> helper) {
+        try {
+            return helper.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for a search thread", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Search thread failed", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package chess.engine;
+
+/**
+ * Fixed-size hash table of pawn structure scores keyed by
+ * {@link chess.ChessBoard#getPawnKey()}. Pawns move rarely compared to the
+ * other pieces, so most positions a search evaluates find their pawn terms
+ * here. Like {@link TranspositionTable}, entries are a key XOR data check word
+ * and the data, so threads share the table without locks.
+ * <p>
+ * Each entry packs the middlegame score (16 bits) and the endgame score (16),
+ * with a presence bit so an entry never packs to 0.
+ */
+final class PawnCache {
+
+    private static final long PRESENT = 1L << 32;
+    private static final int ENTRY_BYTES = 16;
+
+    private final long[] keys;
+    private final long[] data;
+    private final int mask;
+
+    /**
+     * @param kilobytes memory budget, rounded down to a power-of-two number of entries
+     */
+    PawnCache(int kilobytes) {
+        int entries = Integer.highestOneBit(Math.max(kilobytes * 1024 / ENTRY_BYTES, 1));
+        keys = new long[entries];
+        data = new long[entries];
+        mask = entries - 1;
+    }
+
+    /**
+     * @return the entry for the key, or 0 if the table holds none
+     */
+    long probe(long key) {
+        int index = (int) key & mask;
+        long entry = data[index];
+        return (keys[index] ^ entry) == key ? entry : 0;
+    }
+
+    /**
+     * @return the stored entry
+     */
+    long store(long key, int midgame, int endgame) {
+        long entry = (midgame & 0xFFFFL) | ((long) (endgame & 0xFFFF) << 16) | PRESENT;
+        int index = (int) key & mask;
+        data[index] = entry;
+        keys[index] = key ^ entry;
+        return entry;
+    }
+
+    static int midgame(long entry) {
+        return (short) entry;
+    }
+
+    static int endgame(long entry) {
+        return (short) (entry >>> 16);
+    }
+}
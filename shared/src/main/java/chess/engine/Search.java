@@ -0,0 +1,575 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.Move;
+import chess.MoveList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Iterative-deepening alpha-beta search for computer opponents and hints.
+ * <p>
+ * Each iteration runs a principal variation search: the first move of a node
+ * gets the full window and the rest a null window, re-searched only if they
+ * turn out better. Leaves are extended with a quiescence search over captures
+ * and promotions so the evaluation is never taken in the middle of an
+ * exchange. Moves are tried in the order: transposition table move, captures
+ * by most valuable victim / least valuable attacker, killer moves, then quiet
+ * moves by their history score. Moves are handled packed (see {@link Move})
+ * in one reusable {@link MoveList} per ply, so a node allocates nothing.
+ * <p>
+ * A Search is not thread-safe; give each bot game its own instance, or use
+ * {@link ParallelSearch} to put several threads on one position. The searched
+ * game is copied, so the caller's game is never changed.
+ */
+public final class Search {
+
+    static final int MAX_PLY = 128;
+    static final int MATE = 31000;
+    private static final int INFINITY = 32000;
+    private static final int DEFAULT_TABLE_MEGABYTES = 4;
+    private static final int CHECK_INTERVAL = 1023;
+    private static final int FIFTY_MOVE_PLIES = 100;
+
+    private static final int TABLE_MOVE_ORDER = 1 << 30;
+    private static final int CAPTURE_ORDER = 1 << 24;
+    private static final int KILLER_ORDER = 1 << 22;
+    private static final int HISTORY_LIMIT = 1 << 20;
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+    private static final BooleanSupplier NEVER = () -> false;
+
+    private final TranspositionTable table;
+    private final int[][] killers = new int[MAX_PLY][2];
+    private final int[][] history = new int[64][64];
+    private final MoveList[] moveLists = new MoveList[MAX_PLY];
+    private final int[][] orders = new int[MAX_PLY][];
+    /**
+     * Root moves left out of the current search, see {@link #analyze}.
+     */
+    private final MoveList excluded = new MoveList();
+
+    private volatile boolean stopped;
+    private BooleanSupplier cancelled = NEVER;
+    private OpeningBook book;
+    private ChessGame game;
+    private long nodes;
+    private long nodeLimit;
+    private long deadline;
+    private int rootBest;
+    private int rootScore;
+
+    public Search() {
+        this(DEFAULT_TABLE_MEGABYTES);
+    }
+
+    /**
+     * @param tableMegabytes memory budget of the transposition table
+     */
+    public Search(int tableMegabytes) {
+        this(new TranspositionTable(tableMegabytes));
+    }
+
+    Search(TranspositionTable table) {
+        this.table = table;
+        for (int ply = 0; ply < MAX_PLY; ply++) {
+            moveLists[ply] = new MoveList();
+            orders[ply] = new int[256];
+        }
+    }
+
+    /**
+     * Plays out of the given book while the game is in it, instead of
+     * searching.
+     *
+     * @param book the opening book, or null to always search
+     */
+    public void setBook(OpeningBook book) {
+        this.book = book;
+    }
+
+    /**
+     * Finds the best move for the side to move.
+     *
+     * @param position the game to search; it is not changed
+     * @param limits   when to stop searching
+     * @return the best move found and its score
+     */
+    public SearchResult search(ChessGame position, SearchLimits limits) {
+        ChessMove bookMove = bookMove(book, position);
+        if (bookMove != null) {
+            return SearchResult.fromBook(bookMove);
+        }
+        table.newSearch();
+        stopped = false;
+        return iterate(position, limits, 1);
+    }
+
+    /**
+     * Runs the iterative deepening loop starting at the given depth. Unlike
+     * {@link #search} it neither starts a new table generation nor clears an
+     * earlier {@link #stop()}, so a coordinating thread can set up and stop
+     * several searches sharing a table.
+     */
+    SearchResult iterate(ChessGame position, SearchLimits limits, int firstDepth) {
+        long start = prepare(position, limits);
+        MoveList rootMoves = moveLists[0];
+        game.legalMoves(rootMoves);
+        if (rootMoves.isEmpty()) {
+            int score = game.isInCheck(game.getTeamTurn()) ? -MATE : 0;
+            return new SearchResult(null, score, 0, 0, List.of());
+        }
+
+        int best = rootMoves.get(0);
+        int bestScore = 0;
+        int completed = 0;
+        for (int depth = Math.min(firstDepth, limits.depth()); depth <= limits.depth(); depth++) {
+            rootBest = Move.NONE;
+            int score = search(depth, 0, -INFINITY, INFINITY);
+            if (rootBest != Move.NONE) {
+                best = rootBest;
+                bestScore = stopped ? rootScore : score;
+            }
+            if (stopped) {
+                break;
+            }
+            completed = depth;
+            if (Math.abs(bestScore) >= MATE - depth) {
+                break;
+            }
+            if (pastHalfTime(start)) {
+                break;
+            }
+        }
+        return new SearchResult(Move.decode(best), bestScore, completed, nodes, principalVariation(best));
+    }
+
+    /**
+     * Finds the best few moves of a position, each with its score and line,
+     * for analysis rather than play. Every iteration searches the root once
+     * per line, each time leaving out the moves already found, and hands the
+     * lines to the listener as soon as the iteration completes. The opening
+     * book is not used.
+     *
+     * @param position the game to analyze; it is not changed
+     * @param limits   when to stop searching
+     * @param lines    how many moves to report, at most
+     * @param listener called on the searching thread after every completed
+     *                 iteration with its lines, best first
+     * @return the lines of the deepest completed iteration, best first, or an
+     * empty list if the side to move has no moves or no iteration completed
+     */
+    public List<SearchResult> analyze(ChessGame position, SearchLimits limits, int lines,
+                                      Consumer<List<SearchResult>> listener) {
+        return analyze(position, limits, lines, listener, NEVER);
+    }
+
+    /**
+     * Like {@link #analyze(ChessGame, SearchLimits, int, Consumer)}, but also
+     * stops once {@code cancelled} returns true. It is polled with the clock,
+     * every thousand or so nodes. Unlike {@link #stop()}, the condition
+     * belongs to this one analysis, so a caller reusing the instance cannot
+     * stop the next analysis by mistake.
+     *
+     * @param cancelled polled on the searching thread; true stops the analysis
+     */
+    public List<SearchResult> analyze(ChessGame position, SearchLimits limits, int lines,
+                                      Consumer<List<SearchResult>> listener, BooleanSupplier cancelled) {
+        this.cancelled = cancelled;
+        try {
+            return multiPv(position, limits, lines, listener);
+        } finally {
+            this.cancelled = NEVER;
+        }
+    }
+
+    private List<SearchResult> multiPv(ChessGame position, SearchLimits limits, int lines,
+                                       Consumer<List<SearchResult>> listener) {
+        if (lines < 1) {
+            throw new IllegalArgumentException("Analysis needs at least one line");
+        }
+        table.newSearch();
+        stopped = false;
+        long start = prepare(position, limits);
+        MoveList rootMoves = new MoveList();
+        game.legalMoves(rootMoves);
+        int count = Math.min(lines, rootMoves.size());
+
+        List<SearchResult> completed = List.of();
+        for (int depth = 1; depth <= limits.depth() && count > 0; depth++) {
+            List<SearchResult> found = new ArrayList<>(count);
+            excluded.clear();
+            for (int line = 0; line < count; line++) {
+                rootBest = Move.NONE;
+                int score = search(depth, 0, -INFINITY, INFINITY);
+                if (stopped || rootBest == Move.NONE) {
+                    break;
+                }
+                found.add(new SearchResult(Move.decode(rootBest), score, depth, nodes, principalVariation(rootBest)));
+                excluded.add(rootBest);
+            }
+            excluded.clear();
+            if (stopped) {
+                break;
+            }
+            found.sort((a, b) -> Integer.compare(b.score(), a.score()));
+            completed = List.copyOf(found);
+            listener.accept(completed);
+            if (pastHalfTime(start)) {
+                break;
+            }
+        }
+        return completed;
+    }
+
+    /**
+     * Copies the position and resets the per-search state.
+     *
+     * @return the start time, in {@link System#nanoTime()} units
+     */
+    private long prepare(ChessGame position, SearchLimits limits) {
+        game = new ChessGame(position);
+        nodes = 0;
+        nodeLimit = limits.nodes();
+        long start = System.nanoTime();
+        deadline = limits.millis() >= Long.MAX_VALUE / 1_000_000 ? Long.MAX_VALUE
+                : start + limits.millis() * 1_000_000;
+        for (int[] killer : killers) {
+            killer[0] = 0;
+            killer[1] = 0;
+        }
+        for (int[] row : history) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] /= 8;
+            }
+        }
+        return start;
+    }
+
+    /**
+     * An iteration takes longer than all the ones before it together, so one
+     * is not started once half the time is gone.
+     */
+    private boolean pastHalfTime(long start) {
+        return deadline != Long.MAX_VALUE && System.nanoTime() - start > (deadline - start) / 2;
+    }
+
+    /**
+     * @return a move picked from the book by weight, or null if there is no
+     * book or the position is not in it
+     */
+    static ChessMove bookMove(OpeningBook book, ChessGame position) {
+        return book == null ? null : book.pick(position, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Asks a running search to stop as soon as possible. It still returns the
+     * best move found so far.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    void reset() {
+        stopped = false;
+    }
+
+    /**
+     * Forgets everything learned in earlier searches, for example when the
+     * instance moves on to a different game.
+     */
+    public void clear() {
+        table.clear();
+        for (int[] row : history) {
+            Arrays.fill(row, 0);
+        }
+    }
+
+    private int search(int depth, int ply, int alpha, int beta) {
+        if (depth <= 0) {
+            return quiesce(ply, alpha, beta);
+        }
+        long key = game.getZobristKey();
+        if (ply > 0) {
+            if (game.isRepetition() || game.getHalfmoveClock() >= FIFTY_MOVE_PLIES) {
+                return 0;
+            }
+            alpha = Math.max(alpha, -MATE + ply);
+            beta = Math.min(beta, MATE - ply - 1);
+            if (alpha >= beta) {
+                return alpha;
+            }
+        }
+        if (countNode() || ply >= MAX_PLY - 1) {
+            return Evaluation.evaluate(game);
+        }
+
+        boolean pvNode = beta - alpha > 1;
+        long entry = table.probe(key);
+        int tableMove = 0;
+        if (entry != 0) {
+            tableMove = TranspositionTable.move(entry);
+            if (!pvNode && TranspositionTable.depth(entry) >= depth) {
+                int score = fromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER && score >= beta)
+                        || (bound == TranspositionTable.UPPER && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+
+        boolean inCheck = game.isInCheck(game.getTeamTurn());
+        if (inCheck) {
+            depth++;
+        }
+        MoveList moves = moveLists[ply];
+        game.legalMoves(moves);
+        if (moves.isEmpty()) {
+            return inCheck ? -MATE + ply : 0;
+        }
+        int[] order = orderMoves(moves, tableMove, ply);
+
+        int originalAlpha = alpha;
+        int bestScore = -INFINITY;
+        int bestMove = Move.NONE;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = selectNext(moves, order, i);
+            if (ply == 0 && excluded.contains(move)) {
+                continue;
+            }
+            boolean capture = game.isCapture(move);
+            game.doMove(move);
+            int score;
+            if (bestMove == Move.NONE) {
+                score = -search(depth - 1, ply + 1, -beta, -alpha);
+            } else {
+                score = -search(depth - 1, ply + 1, -alpha - 1, -alpha);
+                if (score > alpha && score < beta) {
+                    score = -search(depth - 1, ply + 1, -beta, -alpha);
+                }
+            }
+            game.undoMove();
+            if (stopped) {
+                return 0;
+            }
+
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = move;
+                if (ply == 0) {
+                    rootBest = move;
+                    rootScore = score;
+                }
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        if (!capture && !Move.isPromotion(move)) {
+                            rememberQuietCutoff(bestMove, depth, ply);
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+
+        if (bestMove == Move.NONE) {
+            return bestScore;
+        }
+        int bound = bestScore >= beta ? TranspositionTable.LOWER
+                : bestScore > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+        if (ply > 0 || excluded.isEmpty()) {
+            table.store(key, bestMove, toTable(bestScore, ply), depth, bound);
+        }
+        return bestScore;
+    }
+
+    /**
+     * Searches only captures and promotions (or every move when in check)
+     * until the position is quiet, so the static evaluation is not taken
+     * while a piece is hanging.
+     */
+    private int quiesce(int ply, int alpha, int beta) {
+        if (countNode() || ply >= MAX_PLY - 1) {
+            return Evaluation.evaluate(game);
+        }
+        boolean inCheck = game.isInCheck(game.getTeamTurn());
+        MoveList moves = moveLists[ply];
+        game.legalMoves(moves);
+        if (moves.isEmpty()) {
+            return inCheck ? -MATE + ply : 0;
+        }
+
+        int bestScore = -INFINITY;
+        if (!inCheck) {
+            bestScore = Evaluation.evaluate(game);
+            if (bestScore >= beta) {
+                return bestScore;
+            }
+            alpha = Math.max(alpha, bestScore);
+        }
+
+        if (!inCheck) {
+            int kept = 0;
+            for (int i = 0; i < moves.size(); i++) {
+                int move = moves.get(i);
+                if (Move.isPromotion(move) || game.isCapture(move)) {
+                    moves.set(kept++, move);
+                }
+            }
+            moves.truncate(kept);
+        }
+        int[] order = orderMoves(moves, Move.NONE, ply);
+        for (int i = 0; i < moves.size(); i++) {
+            int move = selectNext(moves, order, i);
+            game.doMove(move);
+            int score = -quiesce(ply + 1, -beta, -alpha);
+            game.undoMove();
+            if (stopped) {
+                return 0;
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        return bestScore;
+    }
+
+    /**
+     * @return True if the search has to stop, checking the clock only every
+     * few thousand nodes
+     */
+    private boolean countNode() {
+        nodes++;
+        if (nodes >= nodeLimit) {
+            stopped = true;
+        } else if ((nodes & CHECK_INTERVAL) == 0 && (deadline != Long.MAX_VALUE && System.nanoTime() - deadline > 0
+                || cancelled.getAsBoolean())) {
+            stopped = true;
+        }
+        return stopped;
+    }
+
+    private int[] orderMoves(MoveList moves, int tableMove, int ply) {
+        ChessBoard board = game.getBoard();
+        int[] order = orders[ply];
+        if (order.length < moves.size()) {
+            order = orders[ply] = new int[moves.size()];
+        }
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            boolean promotion = Move.isPromotion(move);
+            if (move == tableMove) {
+                order[i] = TABLE_MOVE_ORDER;
+            } else if (promotion || game.isCapture(move)) {
+                ChessPiece victim = board.getPiece(Move.to(move));
+                int gain = victim != null ? Evaluation.value(victim.getPieceType())
+                        : promotion ? 0 : Evaluation.value(ChessPiece.PieceType.PAWN);
+                if (promotion) {
+                    gain += Evaluation.value(TYPES[Move.promotion(move)]);
+                }
+                ChessPiece attacker = board.getPiece(Move.from(move));
+                order[i] = CAPTURE_ORDER + gain * 16 - Evaluation.value(attacker.getPieceType()) / 10;
+            } else if (move == killers[ply][0]) {
+                order[i] = KILLER_ORDER + 1;
+            } else if (move == killers[ply][1]) {
+                order[i] = KILLER_ORDER;
+            } else {
+                order[i] = history[Move.from(move)][Move.to(move)];
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Moves the best remaining move to the given index. Picking one move at a
+     * time is cheaper than sorting, since most nodes cut off after a few moves.
+     */
+    private static int selectNext(MoveList moves, int[] order, int index) {
+        int best = index;
+        for (int i = index + 1; i < moves.size(); i++) {
+            if (order[i] > order[best]) {
+                best = i;
+            }
+        }
+        if (best != index) {
+            int score = order[index];
+            order[index] = order[best];
+            order[best] = score;
+            moves.swap(index, best);
+        }
+        return moves.get(index);
+    }
+
+    private void rememberQuietCutoff(int move, int depth, int ply) {
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        int from = Move.from(move);
+        int to = Move.to(move);
+        history[from][to] = Math.min(history[from][to] + depth * depth, HISTORY_LIMIT);
+    }
+
+    private List<ChessMove> principalVariation(int best) {
+        List<ChessMove> line = new ArrayList<>();
+        List<Long> keys = new ArrayList<>();
+        ChessGame replay = new ChessGame(game);
+        MoveList legal = new MoveList();
+        int move = best;
+        while (move != Move.NONE && line.size() < MAX_PLY) {
+            line.add(Move.decode(move));
+            replay.doMove(move);
+            long key = replay.getZobristKey();
+            if (keys.contains(key)) {
+                break;
+            }
+            keys.add(key);
+            long entry = table.probe(key);
+            move = entry != 0 ? TranspositionTable.move(entry) : Move.NONE;
+            replay.legalMoves(legal);
+            if (!legal.contains(move)) {
+                move = Move.NONE;
+            }
+        }
+        return line;
+    }
+
+    /**
+     * Mate scores are stored relative to the node rather than the root, so a
+     * table entry stays correct when reached at a different ply.
+     */
+    private static int toTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) {
+            return score + ply;
+        }
+        if (score <= -MATE + MAX_PLY) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) {
+            return score - ply;
+        }
+        if (score <= -MATE + MAX_PLY) {
+            return score + ply;
+        }
+        return score;
+    }
+}
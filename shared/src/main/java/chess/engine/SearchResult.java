@@ -0,0 +1,58 @@
+package chess.engine;
+
+import chess.ChessMove;
+
+import java.util.List;
+
+/**
+ * The outcome of a {@link Search}.
+ *
+ * @param bestMove           the move to play, or null if the side to move has none
+ * @param score              centipawns from the side to move's point of view, or a
+ *                           mate score, see {@link #isMate()}
+ * @param depth              deepest iteration that finished, which is 0 if the
+ *                           first was cut short or the move came from the book
+ * @param nodes              positions visited
+ * @param principalVariation the expected line of play, starting with the best move
+ * @param bookMove           whether the move came from the opening book
+ */
+public record SearchResult(ChessMove bestMove, int score, int depth, long nodes,
+                           List<ChessMove> principalVariation, boolean bookMove) {
+
+    /**
+     * A result found by searching.
+     */
+    public SearchResult(ChessMove bestMove, int score, int depth, long nodes, List<ChessMove> principalVariation) {
+        this(bestMove, score, depth, nodes, principalVariation, false);
+    }
+
+    static SearchResult fromBook(ChessMove move) {
+        return new SearchResult(move, 0, 0, 0, List.of(move), true);
+    }
+
+    /**
+     * @return True if the move was played from the opening book without searching
+     */
+    public boolean isBookMove() {
+        return bookMove;
+    }
+
+    /**
+     * @return True if the score is a forced mate, for either side
+     */
+    public boolean isMate() {
+        return Math.abs(score) >= Search.MATE - Search.MAX_PLY;
+    }
+
+    /**
+     * @return the number of moves until mate, negative if the side to move is
+     * being mated, or 0 if the score is not a mate
+     */
+    public int mateIn() {
+        if (!isMate()) {
+            return 0;
+        }
+        int plies = Search.MATE - Math.abs(score);
+        return score > 0 ? (plies + 1) / 2 : -(plies / 2);
+    }
+}
@@ -0,0 +1,102 @@
+package chess.engine;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size hash table of search results keyed by Zobrist key. Entries are
+ * two parallel longs: the packed data and the key XOR the data. A reader
+ * recomputes key ^ data and only trusts the entry if it matches, so a torn
+ * write from another thread is seen as a miss and the table needs no locks.
+ * <p>
+ * Each entry packs the best move (16 bits, see {@link chess.Move}), the
+ * score (16), the depth (8), the bound type (2) and the search generation
+ * (6). Entries from older searches are replaced first, then shallower ones.
+ */
+public final class TranspositionTable {
+
+    static final int EXACT = 1;
+    static final int LOWER = 2;
+    static final int UPPER = 3;
+
+    private static final int ENTRY_BYTES = 16;
+
+    private final long[] keys;
+    private final long[] data;
+    private final int mask;
+    private int generation;
+
+    /**
+     * @param megabytes memory budget, rounded down to a power-of-two number of entries
+     */
+    public TranspositionTable(int megabytes) {
+        if (megabytes < 1) {
+            throw new IllegalArgumentException("Table size must be at least 1 MB");
+        }
+        int entries = Integer.highestOneBit((int) Math.min((long) megabytes * 1024 * 1024 / ENTRY_BYTES,
+                1 << 30));
+        keys = new long[entries];
+        data = new long[entries];
+        mask = entries - 1;
+    }
+
+    /**
+     * @return the entry data for the key, or 0 if the table holds no entry for it
+     */
+    long probe(long key) {
+        int index = (int) key & mask;
+        long entry = data[index];
+        return (keys[index] ^ entry) == key ? entry : 0;
+    }
+
+    void store(long key, int move, int score, int depth, int bound) {
+        int index = (int) key & mask;
+        long old = data[index];
+        boolean same = (keys[index] ^ old) == key;
+        if (!same && old != 0 && generation(old) == generation && depth(old) > depth) {
+            return;
+        }
+        if (same && move == 0) {
+            move = move(old);
+        }
+        long entry = (move & 0xFFFFL)
+                | ((long) (score & 0xFFFF) << 16)
+                | ((long) Math.min(depth, 255) << 32)
+                | ((long) bound << 40)
+                | ((long) generation << 42);
+        data[index] = entry;
+        keys[index] = key ^ entry;
+    }
+
+    /**
+     * Marks the start of a new search, so entries left by earlier searches are
+     * the first to be replaced.
+     */
+    void newSearch() {
+        generation = (generation + 1) & 63;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(data, 0);
+    }
+
+    static int move(long entry) {
+        return (int) (entry & 0xFFFF);
+    }
+
+    static int score(long entry) {
+        return (short) (entry >>> 16);
+    }
+
+    static int depth(long entry) {
+        return (int) (entry >>> 32) & 0xFF;
+    }
+
+    static int bound(long entry) {
+        return (int) (entry >>> 40) & 3;
+    }
+
+    private static int generation(long entry) {
+        return (int) (entry >>> 42) & 63;
+    }
+}
@@ -0,0 +1,8 @@
+package model;
+
+/**
+ * One move in a game's move log: the ply it was played at, counted as by
+ * {@link chess.ChessGame#getPly()}, the packed {@link chess.Move}, and when it
+ * was played, in epoch milliseconds.
+ */
+public record GameMove(int gameID, int ply, int move, long playedAt) {}
@@ -0,0 +1,8 @@
+package model;
+
+/**
+ * A game as listed in the lobby: who is playing it and whether it has ended,
+ * without its board.
+ */
+public record GameSummary(int gameID, String whiteUsername, String blackUsername, String gameName,
+                          boolean gameOver) {}
@@ -3,4 +3,4 @@ package model;
 
 import java.util.List;
 
-public record ListGames(List <GameData> games){}
+public record ListGames(List <GameSummary> games){}
@@ -0,0 +1,27 @@
+package websocket.commands;
+
+/**
+ * Asks the server for the best few moves of the game's current position.
+ * The results stream back as {@link websocket.messages.Analysis} messages,
+ * one per finished search depth, until the depth is reached or the user
+ * leaves the game.
+ */
+public class Analyze extends UserGameCommand {
+
+    private final int lines;
+    private final int depth;
+
+    public Analyze(String authToken, int gameID, int lines, int depth) {
+        super(CommandType.ANALYZE, authToken, gameID);
+        this.lines = lines;
+        this.depth = depth;
+    }
+
+    public int getLines() {
+        return lines;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+}
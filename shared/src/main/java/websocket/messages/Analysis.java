@@ -0,0 +1,69 @@
+package websocket.messages;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.engine.SearchResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class Analysis extends ServerMessage {
+
+    private final int gameID;
+    private final int depth;
+    /**
+     * True on the last message of an analysis, which repeats the lines of
+     * the deepest search.
+     */
+    private final boolean complete;
+    private final List<Line> lines;
+
+    /**
+     * One candidate move and how the game is expected to go after it.
+     *
+     * @param score  centipawns from White's point of view
+     * @param mateIn moves until mate, positive if White mates, or 0 if the
+     *               line is not a forced mate
+     * @param moves  the expected line of play, starting with the candidate
+     */
+    public record Line(int score, int mateIn, List<ChessMove> moves) {
+    }
+
+    public Analysis(int gameID, int depth, boolean complete, List<Line> lines) {
+        super(ServerMessageType.ANALYSIS);
+        this.gameID = gameID;
+        this.depth = depth;
+        this.complete = complete;
+        this.lines = lines;
+    }
+
+    /**
+     * Converts search results, which score for the side to move, into lines
+     * scored for White.
+     */
+    public static Analysis of(int gameID, ChessGame.TeamColor sideToMove, List<SearchResult> results,
+                              boolean complete) {
+        int sign = sideToMove == ChessGame.TeamColor.WHITE ? 1 : -1;
+        List<Line> lines = new ArrayList<>(results.size());
+        for (SearchResult result : results) {
+            lines.add(new Line(sign * result.score(), sign * result.mateIn(), result.principalVariation()));
+        }
+        return new Analysis(gameID, results.isEmpty() ? 0 : results.get(0).depth(), complete, lines);
+    }
+
+    public int getGameID() {
+        return gameID;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public List<Line> getLines() {
+        return lines;
+    }
+}
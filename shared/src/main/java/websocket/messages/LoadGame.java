@@ -1,16 +1,24 @@
 package websocket.messages;
 
 import chess.ChessGame;
+import chess.engine.Evaluation;
 
 public class LoadGame extends ServerMessage {
 
     private final int gameID;
     private final ChessGame game;
+    /**
+     * Static evaluation in centipawns from White's point of view, for an
+     * evaluation bar. The board keeps it up to date as moves are made, so it
+     * is sent with every update.
+     */
+    private final int evaluation;
 
     public LoadGame(int gameID, ChessGame game) {
         super(ServerMessageType.LOAD_GAME);
         this.gameID = gameID;
         this.game = game;
+        this.evaluation = Evaluation.forWhite(game);
     }
 
     public int getGameID() {
@@ -20,4 +28,8 @@ public class LoadGame extends ServerMessage {
     public ChessGame getGame() {
         return game;
     }
-}
\ No newline at end of file
+
+    public int getEvaluation() {
+        return evaluation;
+    }
+}
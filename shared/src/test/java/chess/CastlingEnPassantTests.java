@@ -0,0 +1,101 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class CastlingEnPassantTests {
+
+    private static final ChessPiece WHITE_ROOK = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK);
+    private static final ChessPiece WHITE_KING = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING);
+    private static final ChessPiece BLACK_PAWN = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN);
+
+    private static ChessGame castlingGame() {
+        var game = new ChessGame();
+        game.setBoard(ChessBoard.fromFen("r3k2r/8/8/8/8/8/8/R3K2R"));
+        return game;
+    }
+
+    @Test
+    @DisplayName("King Castles Both Ways")
+    public void castleBothWays() throws InvalidMoveException {
+        var game = castlingGame();
+        var king = new ChessPosition(1, 5);
+        var kingside = new ChessMove(king, new ChessPosition(1, 7), null);
+        var queenside = new ChessMove(king, new ChessPosition(1, 3), null);
+        Assertions.assertTrue(game.validMoves(king).contains(kingside), "Missing kingside castle");
+        Assertions.assertTrue(game.validMoves(king).contains(queenside), "Missing queenside castle");
+
+        game.makeMove(kingside);
+        Assertions.assertEquals(WHITE_KING, game.getBoard().getPiece(new ChessPosition(1, 7)));
+        Assertions.assertEquals(WHITE_ROOK, game.getBoard().getPiece(new ChessPosition(1, 6)), "Rook did not move");
+        Assertions.assertNull(game.getBoard().getPiece(new ChessPosition(1, 8)));
+
+        game.undoMove();
+        Assertions.assertEquals(castlingGame(), game, "Undo did not restore the castling position");
+    }
+
+    @Test
+    @DisplayName("Moving A Rook Loses Its Castling Right")
+    public void rookMoveLosesRight() throws InvalidMoveException {
+        var game = castlingGame();
+        long startKey = game.getZobristKey();
+        game.makeMove(new ChessMove(new ChessPosition(1, 8), new ChessPosition(2, 8), null));
+        game.makeMove(new ChessMove(new ChessPosition(8, 1), new ChessPosition(7, 1), null));
+        game.makeMove(new ChessMove(new ChessPosition(2, 8), new ChessPosition(1, 8), null));
+        game.makeMove(new ChessMove(new ChessPosition(7, 1), new ChessPosition(8, 1), null));
+
+        var king = new ChessPosition(1, 5);
+        Assertions.assertFalse(game.validMoves(king).contains(new ChessMove(king, new ChessPosition(1, 7), null)),
+                "Castled with a rook that has moved");
+        Assertions.assertTrue(game.validMoves(king).contains(new ChessMove(king, new ChessPosition(1, 3), null)),
+                "Queenside right should be kept");
+        Assertions.assertNotEquals(startKey, game.getZobristKey(), "Castling rights are not part of the key");
+    }
+
+    @Test
+    @DisplayName("No Castling Through Check")
+    public void noCastlingThroughCheck() {
+        var game = castlingGame();
+        game.getBoard().addPiece(new ChessPosition(5, 6), new ChessPiece(ChessGame.TeamColor.BLACK,
+                ChessPiece.PieceType.ROOK));
+        var king = new ChessPosition(1, 5);
+        Assertions.assertFalse(game.validMoves(king).contains(new ChessMove(king, new ChessPosition(1, 7), null)),
+                "King castled through an attacked square");
+        Assertions.assertTrue(game.validMoves(king).contains(new ChessMove(king, new ChessPosition(1, 3), null)));
+    }
+
+    @Test
+    @DisplayName("Pawn Captures En Passant")
+    public void enPassant() throws InvalidMoveException {
+        var game = new ChessGame();
+        game.setBoard(ChessBoard.fromFen("4k3/3p4/8/4P3/8/8/8/4K3"));
+        game.setTeamTurn(ChessGame.TeamColor.BLACK);
+        game.makeMove(new ChessMove(new ChessPosition(7, 4), new ChessPosition(5, 4), null));
+        var before = new ChessGame(game);
+
+        var capture = new ChessMove(new ChessPosition(5, 5), new ChessPosition(6, 4), null);
+        Assertions.assertTrue(game.validMoves(capture.getStartPosition()).contains(capture), "Missing en passant");
+        game.makeMove(capture);
+        Assertions.assertNull(game.getBoard().getPiece(new ChessPosition(5, 4)), "Captured pawn was not removed");
+
+        game.undoMove();
+        Assertions.assertEquals(before, game, "Undo did not restore the en passant position");
+        Assertions.assertEquals(BLACK_PAWN, game.getBoard().getPiece(new ChessPosition(5, 4)));
+    }
+
+    @Test
+    @DisplayName("En Passant Only On The Next Move")
+    public void missedEnPassant() throws InvalidMoveException {
+        var game = new ChessGame();
+        game.setBoard(ChessBoard.fromFen("4k3/3p4/8/4P3/8/8/8/4K3"));
+        game.setTeamTurn(ChessGame.TeamColor.BLACK);
+        game.makeMove(new ChessMove(new ChessPosition(7, 4), new ChessPosition(5, 4), null));
+        game.makeMove(new ChessMove(new ChessPosition(1, 5), new ChessPosition(2, 5), null));
+        game.makeMove(new ChessMove(new ChessPosition(8, 5), new ChessPosition(8, 6), null));
+
+        var capture = new ChessMove(new ChessPosition(5, 5), new ChessPosition(6, 4), null);
+        Assertions.assertFalse(game.validMoves(capture.getStartPosition()).contains(capture),
+                "En passant allowed after another move");
+    }
+}
@@ -0,0 +1,114 @@
+package chess;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class DrawTests {
+
+    private static final ChessMove WHITE_OUT = move("g1", "f3");
+    private static final ChessMove BLACK_OUT = move("g8", "f6");
+    private static final ChessMove WHITE_BACK = move("f3", "g1");
+    private static final ChessMove BLACK_BACK = move("f6", "g8");
+
+    @Test
+    @DisplayName("Third Occurrence Is A Draw")
+    public void threefoldRepetition() throws InvalidMoveException {
+        var game = new ChessGame();
+        shuffleKnights(game);
+        Assertions.assertTrue(game.isRepetition());
+        Assertions.assertEquals(ChessGame.GameStatus.ONGOING, game.getStatus(), "Second occurrence is not a draw");
+
+        shuffleKnights(game);
+        Assertions.assertEquals(ChessGame.GameStatus.THREEFOLD_REPETITION, game.getStatus());
+        Assertions.assertTrue(game.getStatus().isDraw());
+
+        game.undoMove();
+        Assertions.assertEquals(ChessGame.GameStatus.ONGOING, game.getStatus(), "Status was not updated after undo");
+    }
+
+    @Test
+    @DisplayName("Pawn Move Resets Repetitions")
+    public void irreversibleMove() throws InvalidMoveException {
+        var game = new ChessGame();
+        game.makeMove(WHITE_OUT);
+        game.makeMove(BLACK_OUT);
+        game.makeMove(move("e2", "e4"));
+        Assertions.assertEquals(0, game.getHalfmoveClock());
+        game.makeMove(BLACK_BACK);
+        game.makeMove(move("f3", "g1"));
+        game.makeMove(move("g8", "f6"));
+        Assertions.assertFalse(game.isRepetition(), "Positions before a pawn move cannot repeat");
+    }
+
+    @Test
+    @DisplayName("Fifty Moves Without Progress")
+    public void fiftyMoveRule() throws InvalidMoveException {
+        var game = ChessGame.fromFen("4k3/8/8/8/8/8/4P3/R3K3 w - - 99 80");
+        Assertions.assertEquals(ChessGame.GameStatus.ONGOING, game.getStatus());
+
+        game.makeMove(move("a1", "a2"));
+        Assertions.assertEquals(100, game.getHalfmoveClock());
+        Assertions.assertEquals(ChessGame.GameStatus.FIFTY_MOVE_RULE, game.getStatus());
+        Assertions.assertEquals("4k3/8/8/8/8/8/R3P3/4K3 b - - 100 80", game.toFen());
+
+        game.undoMove();
+        game.makeMove(move("e2", "e3"));
+        Assertions.assertEquals(ChessGame.GameStatus.ONGOING, game.getStatus(), "Pawn move should reset the clock");
+    }
+
+    @Test
+    @DisplayName("Checkmate Beats The Fifty Move Rule")
+    public void mateOnFiftiethMove() throws InvalidMoveException {
+        var game = ChessGame.fromFen("6k1/5ppp/8/8/8/8/8/R5K1 w - - 99 80");
+        game.makeMove(move("a1", "a8"));
+        Assertions.assertEquals(ChessGame.GameStatus.CHECKMATE, game.getStatus());
+    }
+
+    @Test
+    @DisplayName("Insufficient Material")
+    public void insufficientMaterial() {
+        Assertions.assertTrue(ChessGame.fromFen("4k3/8/8/8/8/8/8/4K3 w - -").isInsufficientMaterial());
+        Assertions.assertTrue(ChessGame.fromFen("4k3/8/8/8/8/8/8/4KN2 w - -").isInsufficientMaterial());
+        Assertions.assertTrue(ChessGame.fromFen("4kb2/8/8/8/8/8/8/2B1K3 w - -").isInsufficientMaterial(),
+                "Bishops on the same color");
+        Assertions.assertFalse(ChessGame.fromFen("4k1b1/8/8/8/8/8/8/2B1K3 w - -").isInsufficientMaterial(),
+                "Bishops on opposite colors");
+        Assertions.assertFalse(ChessGame.fromFen("4k3/8/8/8/8/8/8/3NKN2 w - -").isInsufficientMaterial());
+        Assertions.assertFalse(ChessGame.fromFen("4k3/8/8/8/8/8/4P3/4K3 w - -").isInsufficientMaterial());
+        Assertions.assertFalse(new ChessGame().isInsufficientMaterial());
+
+        Assertions.assertEquals(ChessGame.GameStatus.INSUFFICIENT_MATERIAL,
+                ChessGame.fromFen("4k3/8/8/8/8/8/8/4KN2 b - -").getStatus());
+    }
+
+    @Test
+    @DisplayName("Stored Games Keep Their Repetitions")
+    public void gsonHistory() throws InvalidMoveException {
+        var game = new ChessGame();
+        shuffleKnights(game);
+        game.makeMove(WHITE_OUT);
+        game.makeMove(BLACK_OUT);
+        game.makeMove(WHITE_BACK);
+
+        Gson gson = new Gson();
+        ChessGame stored = gson.fromJson(gson.toJson(game), ChessGame.class);
+        Assertions.assertEquals(game, stored);
+        Assertions.assertEquals(ChessGame.GameStatus.ONGOING, stored.getStatus());
+        stored.makeMove(BLACK_BACK);
+        Assertions.assertEquals(ChessGame.GameStatus.THREEFOLD_REPETITION, stored.getStatus());
+        Assertions.assertEquals("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 8 5", stored.toFen());
+    }
+
+    private static void shuffleKnights(ChessGame game) throws InvalidMoveException {
+        game.makeMove(WHITE_OUT);
+        game.makeMove(BLACK_OUT);
+        game.makeMove(WHITE_BACK);
+        game.makeMove(BLACK_BACK);
+    }
+
+    private static ChessMove move(String from, String to) {
+        return new ChessMove(ChessPosition.fromAlgebraic(from), ChessPosition.fromAlgebraic(to), null);
+    }
+}
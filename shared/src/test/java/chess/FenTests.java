@@ -0,0 +1,83 @@
+package chess;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class FenTests {
+
+    private static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    @Test
+    @DisplayName("Start Position Round Trip")
+    public void startPosition() {
+        Assertions.assertEquals(START, new ChessGame().toFen());
+        Assertions.assertEquals(new ChessGame(), ChessGame.fromFen(START));
+        Assertions.assertEquals("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR", new ChessGame().getBoard().toFen());
+    }
+
+    @Test
+    @DisplayName("Reference Positions Round Trip")
+    public void referencePositions() {
+        for (Perft.Reference reference : Perft.Reference.values()) {
+            ChessGame game = reference.game();
+            ChessGame copy = ChessGame.fromFen(game.toFen());
+            Assertions.assertEquals(game, copy, "Round trip changed " + reference);
+            Assertions.assertEquals(game.getZobristKey(), copy.getZobristKey());
+        }
+    }
+
+    @Test
+    @DisplayName("Castling And En Passant Written After Moves")
+    public void stateAfterMoves() throws InvalidMoveException {
+        var game = ChessGame.fromFen("4k3/8/8/8/5p2/8/4P3/R3K2R w KQ - 0 1");
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        Assertions.assertEquals("4k3/8/8/8/4Pp2/8/8/R3K2R b KQ e3 0 1", game.toFen());
+
+        game.makeMove(new ChessMove(new ChessPosition(8, 5), new ChessPosition(8, 4), null));
+        Assertions.assertEquals("3k4/8/8/8/4Pp2/8/8/R3K2R w KQ - 1 2", game.toFen(),
+                "En passant square should only last one move");
+
+        game.makeMove(new ChessMove(new ChessPosition(1, 8), new ChessPosition(1, 7), null));
+        Assertions.assertEquals("3k4/8/8/8/4Pp2/8/8/R3K1R1 b Q - 2 2", game.toFen());
+    }
+
+    @Test
+    @DisplayName("Uncapturable En Passant Square Is Dropped")
+    public void uncapturableEnPassant() {
+        var game = ChessGame.fromFen("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1");
+        Assertions.assertEquals("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1", game.toFen());
+    }
+
+    @Test
+    @DisplayName("Malformed FEN Is Rejected")
+    public void malformed() {
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> ChessGame.fromFen("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP w KQkq - 0 1"), "Missing rank");
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> ChessGame.fromFen("rnbqkbnr/ppppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1"), "Long rank");
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> ChessGame.fromFen("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNX w KQkq - 0 1"), "Bad piece");
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> ChessGame.fromFen("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR x KQkq - 0 1"), "Bad side");
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> ChessGame.fromFen("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq e4 0 1"), "Bad square");
+    }
+
+    @Test
+    @DisplayName("Gson Stores Games As FEN")
+    public void gson() throws InvalidMoveException {
+        var game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        game.setGameOver(true);
+
+        Gson gson = new Gson();
+        String json = gson.toJson(game);
+        Assertions.assertEquals("{\"fen\":\"%s\",\"gameOver\":true}".formatted(game.toFen()), json);
+
+        ChessGame read = gson.fromJson(json, ChessGame.class);
+        Assertions.assertEquals(game, read);
+        Assertions.assertTrue(read.getGameOver());
+    }
+}
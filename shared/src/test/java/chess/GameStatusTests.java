@@ -0,0 +1,46 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class GameStatusTests {
+
+    @Test
+    @DisplayName("Status Of A New Game")
+    public void newGame() {
+        Assertions.assertEquals(ChessGame.GameStatus.ONGOING, new ChessGame().getStatus());
+    }
+
+    @Test
+    @DisplayName("Status Follows The Moves")
+    public void foolsMate() throws InvalidMoveException {
+        var game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(2, 6), new ChessPosition(3, 6), null));
+        game.makeMove(new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null));
+        game.makeMove(new ChessMove(new ChessPosition(2, 7), new ChessPosition(4, 7), null));
+        Assertions.assertEquals(ChessGame.GameStatus.ONGOING, game.getStatus());
+
+        game.makeMove(new ChessMove(new ChessPosition(8, 4), new ChessPosition(4, 8), null));
+        Assertions.assertEquals(ChessGame.GameStatus.CHECKMATE, game.getStatus());
+        Assertions.assertTrue(game.isInCheckmate(ChessGame.TeamColor.WHITE));
+
+        game.undoMove();
+        Assertions.assertEquals(ChessGame.GameStatus.ONGOING, game.getStatus(), "Status was not updated after undo");
+    }
+
+    @Test
+    @DisplayName("Status Sees Board Edits")
+    public void boardEdits() {
+        var game = new ChessGame();
+        game.setBoard(ChessBoard.fromFen("k7/8/1Q6/8/8/8/8/7K"));
+        game.setTeamTurn(ChessGame.TeamColor.BLACK);
+        Assertions.assertEquals(ChessGame.GameStatus.STALEMATE, game.getStatus());
+
+        game.getBoard().removePiece(new ChessPosition(6, 2));
+        game.getBoard().addPiece(new ChessPosition(1, 1), new ChessPiece(ChessGame.TeamColor.WHITE,
+                ChessPiece.PieceType.ROOK));
+        Assertions.assertEquals(ChessGame.GameStatus.CHECK, game.getStatus(),
+                "Status was not recomputed after the board changed");
+    }
+}
@@ -0,0 +1,57 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class MakeUnmakeTests {
+
+    @Test
+    @DisplayName("Undo Restores Capture And Promotion")
+    public void undoCapturePromotion() {
+        var game = new ChessGame();
+        game.setBoard(ChessBoard.fromFen("2r1k3/1P6/8/8/8/8/8/4K3"));
+        var before = new ChessGame(game);
+
+        game.doMove(new ChessMove(new ChessPosition(7, 2), new ChessPosition(8, 3), ChessPiece.PieceType.KNIGHT));
+        Assertions.assertEquals(new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT),
+                game.getBoard().getPiece(new ChessPosition(8, 3)), "Pawn was not promoted");
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, game.getTeamTurn(), "Turn did not pass to black");
+
+        game.undoMove();
+        Assertions.assertEquals(before, game, "Undo did not restore the position");
+        Assertions.assertEquals(before.getZobristKey(), game.getZobristKey(), "Undo did not restore the key");
+    }
+
+    @Test
+    @DisplayName("Undo Sequence Returns To Start")
+    public void undoSequence() throws InvalidMoveException {
+        var game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        game.makeMove(new ChessMove(new ChessPosition(7, 4), new ChessPosition(5, 4), null));
+        game.makeMove(new ChessMove(new ChessPosition(4, 5), new ChessPosition(5, 4), null));
+
+        game.undoMove();
+        game.undoMove();
+        game.undoMove();
+
+        Assertions.assertEquals(new ChessGame(), game, "Undoing every move did not return to the start");
+        Assertions.assertThrows(IllegalStateException.class, game::undoMove, "Undo with no history should fail");
+    }
+
+    @Test
+    @DisplayName("Off-Board Squares Leave The Board Unchanged")
+    public void offBoardSquares() {
+        var board = new ChessBoard();
+        board.resetBoard();
+        var start = new ChessBoard();
+        start.resetBoard();
+        var rook = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK);
+
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> board.removePiece(new ChessPosition(0, 0)));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> board.addPiece(new ChessPosition(1, 9), rook));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> board.addPiece(new ChessPosition(9, 1), rook));
+        Assertions.assertEquals(start, board, "A rejected square changed the board");
+        Assertions.assertEquals(start.getZobristKey(), board.getZobristKey());
+    }
+}
@@ -0,0 +1,71 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+
+public class MoveListTests {
+
+    @Test
+    @DisplayName("Packed Moves Round Trip")
+    public void roundTrip() {
+        for (Perft.Reference reference : Perft.Reference.values()) {
+            ChessGame game = reference.game();
+            for (ChessMove move : game.legalMoves()) {
+                int packed = Move.encode(move);
+                Assertions.assertEquals(move, Move.decode(packed));
+                Assertions.assertEquals(packed & 0xFFFF, packed, "Move should fit in 16 bits");
+                Assertions.assertNotEquals(Move.NONE, packed);
+            }
+        }
+        var promotion = new ChessMove(new ChessPosition(7, 5), new ChessPosition(8, 5), ChessPiece.PieceType.KNIGHT);
+        Assertions.assertEquals("e7e8n", Move.toString(Move.encode(promotion)));
+    }
+
+    @Test
+    @DisplayName("Positions And Plain Moves Are Shared")
+    public void flyweights() {
+        Assertions.assertSame(ChessPosition.of(4, 5), ChessPosition.fromAlgebraic("e4"));
+        Assertions.assertEquals(new ChessPosition(9, 1), ChessPosition.of(9, 1));
+
+        var e4 = ChessMove.of(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null);
+        Assertions.assertSame(e4, Move.decode(Move.encode(e4)));
+        Assertions.assertSame(e4, ChessMove.of(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        for (ChessMove move : new ChessGame().legalMoves()) {
+            Assertions.assertSame(ChessPosition.of(move.getStartPosition().getRow(),
+                    move.getStartPosition().getColumn()), move.getStartPosition());
+        }
+        var promotion = ChessMove.of(ChessPosition.of(7, 1), ChessPosition.of(8, 1), ChessPiece.PieceType.QUEEN);
+        Assertions.assertEquals(ChessPiece.PieceType.QUEEN, promotion.getPromotionPiece());
+    }
+
+    @Test
+    @DisplayName("Packed And Object Move Lists Agree")
+    public void sameMoves() {
+        MoveList moves = new MoveList();
+        for (Perft.Reference reference : Perft.Reference.values()) {
+            ChessGame game = reference.game();
+            game.legalMoves(moves);
+            Assertions.assertEquals(new HashSet<>(game.legalMoves()), new HashSet<>(moves.toChessMoves()),
+                    reference.name());
+        }
+    }
+
+    @Test
+    @DisplayName("List Grows And Reuses Its Array")
+    public void growth() {
+        MoveList moves = new MoveList(2);
+        for (int i = 1; i <= 300; i++) {
+            moves.add(i);
+        }
+        Assertions.assertEquals(300, moves.size());
+        Assertions.assertTrue(moves.contains(300));
+        moves.swap(0, 299);
+        Assertions.assertEquals(300, moves.get(0));
+        moves.clear();
+        Assertions.assertTrue(moves.isEmpty());
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> moves.get(0));
+    }
+}
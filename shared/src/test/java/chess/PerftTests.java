@@ -0,0 +1,42 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.Map;
+
+@Tag("perft")
+public class PerftTests {
+
+    /**
+     * Deepest count to run per position, so the suite stays fast enough for every build.
+     * Use the Perft command line tool for deeper runs.
+     */
+    private static final long NODE_LIMIT = 250_000;
+
+    @ParameterizedTest
+    @EnumSource(Perft.Reference.class)
+    @DisplayName("Perft Reference Positions")
+    public void referencePositions(Perft.Reference reference) {
+        for (int depth = 1; depth <= reference.maxDepth() && reference.expected(depth) <= NODE_LIMIT; depth++) {
+            Assertions.assertEquals(reference.expected(depth), Perft.perft(reference.game(), depth),
+                    "Wrong node count for %s at depth %d".formatted(reference, depth));
+        }
+    }
+
+    @Test
+    @DisplayName("Divide Splits Perft Count")
+    public void divide() {
+        ChessGame game = Perft.Reference.START.game();
+        Map<ChessMove, Long> split = Perft.divide(game, 3);
+
+        Assertions.assertEquals(20, split.size(), "Wrong number of root moves");
+        Assertions.assertEquals(8902, split.values().stream().mapToLong(Long::longValue).sum(),
+                "Divide counts do not add up to the perft count");
+        Assertions.assertEquals(Perft.Reference.START.game(), game, "Perft changed the root position");
+    }
+}
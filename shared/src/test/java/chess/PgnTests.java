@@ -0,0 +1,75 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+public class PgnTests {
+
+    private static final String GAMES = """
+            [Event "Casual"]
+            [White "Anderssen"]
+            [Black "Kieseritzky"]
+            [Result "1-0"]
+
+            1. e4 e5 2. f4 exf4 3. Bc4 Qh4+ 4. Kf1 b5 {the bishop is offered} 5. Bxb5 Nf6
+            6. Nf3 Qh6 (6... Qh5 7. d3 (7. Nc3) Bb7) 7. d3 Nh5 $1 8. Nh4 Qg5 9. Nf5 c6 1-0
+
+            [Event "Second"]
+            [Result "1/2-1/2"]
+
+            1.d4 d5 2.c4 e6 3.Nc3 Nf6 ; a comment to the end of the line
+            4.Bg5 Be7 1/2-1/2
+
+            [Event "Broken"]
+            [Result "0-1"]
+
+            1. e4 e5 2. Ke3 0-1
+            """;
+
+    @Test
+    @DisplayName("Games Read With Tags Moves And Results")
+    public void readGames() throws IOException {
+        List<Pgn.Game> games = new ArrayList<>();
+        int skipped = Pgn.read(new StringReader(GAMES), games::add);
+
+        Assertions.assertEquals(1, skipped, "The game with an illegal move should be skipped");
+        Assertions.assertEquals(2, games.size());
+        Assertions.assertEquals("Anderssen", games.get(0).tags().get("White"));
+        Assertions.assertEquals("1-0", games.get(0).result());
+        Assertions.assertEquals(18, games.get(0).moves().size(), "Variations should not be played");
+        Assertions.assertEquals("1/2-1/2", games.get(1).result());
+        Assertions.assertEquals(8, games.get(1).moves().size());
+
+        ChessGame replay = new ChessGame(games.get(0).start());
+        for (int i = 0; i < games.get(0).moves().size(); i++) {
+            replay.doMove(games.get(0).moves().get(i));
+        }
+        Assertions.assertEquals("rnb1kb1r/p2p1ppp/2p5/1B3Nqn/4Pp2/3P4/PPP3PP/RNBQ1K1R w kq - 0 10",
+                replay.toFen());
+    }
+
+    @Test
+    @DisplayName("Standard Algebraic Notation")
+    public void san() {
+        MoveList legal = new MoveList();
+        var game = ChessGame.fromFen("r3k2r/1P6/8/8/8/2N3N1/8/R3K2R w KQkq - 0 1");
+        Assertions.assertEquals("e1g1", Move.toString(Pgn.parseSan(game, "O-O", legal)));
+        Assertions.assertEquals("e1c1", Move.toString(Pgn.parseSan(game, "O-O-O+", legal)));
+        Assertions.assertEquals("b7a8q", Move.toString(Pgn.parseSan(game, "bxa8=Q", legal)));
+        Assertions.assertEquals("b7b8n", Move.toString(Pgn.parseSan(game, "b8N", legal)));
+        Assertions.assertEquals("c3e4", Move.toString(Pgn.parseSan(game, "Nce4", legal)));
+        Assertions.assertEquals("a1a8", Move.toString(Pgn.parseSan(game, "Rxa8+!", legal)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Pgn.parseSan(game, "Ne4", legal),
+                "Ambiguous knight move");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Pgn.parseSan(game, "Qd4", legal),
+                "No queen to move");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Pgn.parseSan(game, "b8", legal),
+                "Promotion piece missing");
+    }
+}
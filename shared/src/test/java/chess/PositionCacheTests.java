@@ -0,0 +1,82 @@
+package chess;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+
+public class PositionCacheTests {
+
+    private PositionCache cache;
+
+    @BeforeEach
+    public void setUp() {
+        cache = new PositionCache(1);
+        PositionCache.install(cache);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        PositionCache.install(null);
+    }
+
+    @Test
+    @DisplayName("Cached Moves Match Generated Moves")
+    public void cachedMovesMatch() {
+        for (Perft.Reference reference : Perft.Reference.values()) {
+            ChessGame game = reference.game();
+            var first = new HashSet<>(game.legalMoves());
+            var second = new HashSet<>(game.legalMoves());
+            PositionCache.install(null);
+            var generated = new HashSet<>(game.legalMoves());
+            PositionCache.install(cache);
+
+            Assertions.assertEquals(generated, first, "Wrong moves stored for " + reference);
+            Assertions.assertEquals(generated, second, "Wrong moves read back for " + reference);
+        }
+    }
+
+    @Test
+    @DisplayName("Perft Through The Cache")
+    public void perftThroughCache() {
+        for (int pass = 0; pass < 2; pass++) {
+            Assertions.assertEquals(97862, Perft.perft(Perft.Reference.KIWIPETE.game(), 3),
+                    "Wrong count on pass " + pass);
+        }
+    }
+
+    @Test
+    @DisplayName("Status And Valid Moves Come From The Cache")
+    public void statusAndValidMoves() throws InvalidMoveException {
+        var game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(2, 6), new ChessPosition(3, 6), null));
+        game.makeMove(new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null));
+        game.makeMove(new ChessMove(new ChessPosition(2, 7), new ChessPosition(4, 7), null));
+        game.makeMove(new ChessMove(new ChessPosition(8, 4), new ChessPosition(4, 8), null));
+
+        var other = ChessGame.fromFen(game.toFen());
+        Assertions.assertEquals(ChessGame.GameStatus.CHECKMATE, game.getStatus());
+        Assertions.assertEquals(ChessGame.GameStatus.CHECKMATE, other.getStatus());
+        Assertions.assertTrue(other.validMoves(new ChessPosition(1, 5)).isEmpty());
+        Assertions.assertEquals(2, new ChessGame().validMoves(new ChessPosition(1, 2)).size());
+    }
+
+    @Test
+    @DisplayName("Corrupt Slot Is A Miss")
+    public void corruptSlot() {
+        MoveList moves = new MoveList();
+        moves.add(123);
+        cache.store(42L, 1, moves);
+        MoveList read = new MoveList();
+        Assertions.assertEquals(PositionCache.entry(1, 1), cache.probe(42L, read));
+        Assertions.assertEquals(123, read.get(0));
+        Assertions.assertEquals(-1, cache.probe(43L, read), "Different key should miss");
+
+        cache.store(42L, 2, new MoveList());
+        Assertions.assertEquals(PositionCache.entry(2, 0), cache.probe(42L, read), "Entry was not replaced");
+        Assertions.assertTrue(read.isEmpty());
+    }
+}
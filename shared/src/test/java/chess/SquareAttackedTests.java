@@ -0,0 +1,44 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class SquareAttackedTests {
+
+    private static final ChessBoard BOARD = ChessBoard.fromFen("4k3/8/3p4/8/r2N2B1/8/8/4K3");
+
+    @Test
+    @DisplayName("Pawns Attack Diagonally Forward")
+    public void pawnAttacks() {
+        Assertions.assertTrue(BOARD.isSquareAttacked(new ChessPosition(5, 3), ChessGame.TeamColor.BLACK));
+        Assertions.assertTrue(BOARD.isSquareAttacked(new ChessPosition(5, 5), ChessGame.TeamColor.BLACK));
+        Assertions.assertFalse(BOARD.isSquareAttacked(new ChessPosition(5, 4), ChessGame.TeamColor.BLACK),
+                "A pawn does not attack the square in front of it");
+        Assertions.assertFalse(BOARD.isSquareAttacked(new ChessPosition(7, 3), ChessGame.TeamColor.BLACK),
+                "A black pawn does not attack backwards");
+    }
+
+    @Test
+    @DisplayName("Sliders Stop At Blockers")
+    public void sliderAttacks() {
+        Assertions.assertTrue(BOARD.isSquareAttacked(new ChessPosition(4, 3), ChessGame.TeamColor.BLACK),
+                "Rook attacks along its rank up to the knight");
+        Assertions.assertTrue(BOARD.isSquareAttacked(new ChessPosition(4, 4), ChessGame.TeamColor.BLACK),
+                "Rook attacks the blocking knight");
+        Assertions.assertFalse(BOARD.isSquareAttacked(new ChessPosition(4, 6), ChessGame.TeamColor.BLACK),
+                "Rook does not attack through the knight");
+        Assertions.assertTrue(BOARD.isSquareAttacked(new ChessPosition(8, 3), ChessGame.TeamColor.WHITE),
+                "Bishop attacks along its diagonal");
+    }
+
+    @Test
+    @DisplayName("Knights And Kings")
+    public void leaperAttacks() {
+        Assertions.assertTrue(BOARD.isSquareAttacked(new ChessPosition(6, 5), ChessGame.TeamColor.WHITE));
+        Assertions.assertTrue(BOARD.isSquareAttacked(new ChessPosition(2, 4), ChessGame.TeamColor.WHITE));
+        Assertions.assertFalse(BOARD.isSquareAttacked(new ChessPosition(3, 5), ChessGame.TeamColor.WHITE));
+        Assertions.assertEquals(new ChessPosition(1, 5), BOARD.getKingPosition(ChessGame.TeamColor.WHITE));
+        Assertions.assertEquals(new ChessPosition(8, 5), BOARD.getKingPosition(ChessGame.TeamColor.BLACK));
+    }
+}
@@ -0,0 +1,80 @@
+package chess;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Reads boards and games in the Gson forms stored by earlier versions.
+ */
+public class StoredGameTests {
+
+    // A board after 1. e4, as stored when ChessBoard held a ChessPiece[8][8]
+    private static final String ORIGINAL_BOARD = """
+            {"board":[
+            [{"pieceColor":"WHITE","type":"ROOK"},{"pieceColor":"WHITE","type":"KNIGHT"},{"pieceColor":"WHITE","type":"BISHOP"},{"pieceColor":"WHITE","type":"QUEEN"},{"pieceColor":"WHITE","type":"KING"},{"pieceColor":"WHITE","type":"BISHOP"},{"pieceColor":"WHITE","type":"KNIGHT"},{"pieceColor":"WHITE","type":"ROOK"}],
+            [{"pieceColor":"WHITE","type":"PAWN"},{"pieceColor":"WHITE","type":"PAWN"},{"pieceColor":"WHITE","type":"PAWN"},{"pieceColor":"WHITE","type":"PAWN"},null,{"pieceColor":"WHITE","type":"PAWN"},{"pieceColor":"WHITE","type":"PAWN"},{"pieceColor":"WHITE","type":"PAWN"}],
+            [null,null,null,null,null,null,null,null],
+            [null,null,null,null,{"pieceColor":"WHITE","type":"PAWN"},null,null,null],
+            [null,null,null,null,null,null,null,null],
+            [null,null,null,null,null,null,null,null],
+            [{"pieceColor":"BLACK","type":"PAWN"},{"pieceColor":"BLACK","type":"PAWN"},{"pieceColor":"BLACK","type":"PAWN"},{"pieceColor":"BLACK","type":"PAWN"},{"pieceColor":"BLACK","type":"PAWN"},{"pieceColor":"BLACK","type":"PAWN"},{"pieceColor":"BLACK","type":"PAWN"},{"pieceColor":"BLACK","type":"PAWN"}],
+            [{"pieceColor":"BLACK","type":"ROOK"},{"pieceColor":"BLACK","type":"KNIGHT"},{"pieceColor":"BLACK","type":"BISHOP"},{"pieceColor":"BLACK","type":"QUEEN"},{"pieceColor":"BLACK","type":"KING"},{"pieceColor":"BLACK","type":"BISHOP"},{"pieceColor":"BLACK","type":"KNIGHT"},{"pieceColor":"BLACK","type":"ROOK"}]
+            ]}
+            """;
+
+    // A game after 1. e4, as stored by the original ChessGame
+    private static final String ORIGINAL_GAME = """
+            {"board":{"board":[
+            [{"pieceColor":"WHITE","type":"ROOK"},{"pieceColor":"WHITE","type":"KNIGHT"},{"pieceColor":"WHITE","type":"BISHOP"},{"pieceColor":"WHITE","type":"QUEEN"},{"pieceColor":"WHITE","type":"KING"},{"pieceColor":"WHITE","type":"BISHOP"},{"pieceColor":"WHITE","type":"KNIGHT"},{"pieceColor":"WHITE","type":"ROOK"}],
+            [{"pieceColor":"WHITE","type":"PAWN"},{"pieceColor":"WHITE","type":"PAWN"},{"pieceColor":"WHITE","type":"PAWN"},{"pieceColor":"WHITE","type":"PAWN"},null,{"pieceColor":"WHITE","type":"PAWN"},{"pieceColor":"WHITE","type":"PAWN"},{"pieceColor":"WHITE","type":"PAWN"}],
+            [null,null,null,null,null,null,null,null],
+            [null,null,null,null,{"pieceColor":"WHITE","type":"PAWN"},null,null,null],
+            [null,null,null,null,null,null,null,null],
+            [null,null,null,null,null,null,null,null],
+            [{"pieceColor":"BLACK","type":"PAWN"},{"pieceColor":"BLACK","type":"PAWN"},{"pieceColor":"BLACK","type":"PAWN"},{"pieceColor":"BLACK","type":"PAWN"},{"pieceColor":"BLACK","type":"PAWN"},{"pieceColor":"BLACK","type":"PAWN"},{"pieceColor":"BLACK","type":"PAWN"},{"pieceColor":"BLACK","type":"PAWN"}],
+            [{"pieceColor":"BLACK","type":"ROOK"},{"pieceColor":"BLACK","type":"KNIGHT"},{"pieceColor":"BLACK","type":"BISHOP"},{"pieceColor":"BLACK","type":"QUEEN"},{"pieceColor":"BLACK","type":"KING"},{"pieceColor":"BLACK","type":"BISHOP"},{"pieceColor":"BLACK","type":"KNIGHT"},{"pieceColor":"BLACK","type":"ROOK"}]
+            ]},"currentTeamTurn":"BLACK","gameOver":false}
+            """;
+
+    @Test
+    @DisplayName("Original Board Is Read")
+    public void originalBoard() {
+        ChessBoard board = new Gson().fromJson(ORIGINAL_BOARD, ChessBoard.class);
+        Assertions.assertEquals("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR", board.toFen());
+
+        ChessBoard expected = ChessBoard.fromFen("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR");
+        Assertions.assertEquals(expected, board);
+        Assertions.assertEquals(expected.getZobristKey(), board.getZobristKey());
+        Assertions.assertEquals(expected.getPositionalScore(), board.getPositionalScore());
+    }
+
+    @Test
+    @DisplayName("Bitboard Form Round Trips")
+    public void bitboardBoard() {
+        Gson gson = new Gson();
+        ChessBoard board = ChessBoard.fromFen("4k3/8/8/8/5p2/8/4P3/R3K2R");
+        ChessBoard read = gson.fromJson(gson.toJson(board), ChessBoard.class);
+        Assertions.assertEquals(board, read);
+        Assertions.assertEquals(board.getZobristKey(), read.getZobristKey());
+    }
+
+    @Test
+    @DisplayName("Original Game Is Read")
+    public void originalGame() throws InvalidMoveException {
+        Gson gson = new Gson();
+        ChessGame game = gson.fromJson(ORIGINAL_GAME, ChessGame.class);
+        Assertions.assertEquals("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1", game.toFen());
+        Assertions.assertFalse(game.getGameOver());
+        Assertions.assertEquals(ChessGame.fromFen(game.toFen()).getZobristKey(), game.getZobristKey());
+
+        game.makeMove(new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null));
+        Assertions.assertEquals("rnbqkbnr/pppp1ppp/8/4p3/4P3/8/PPPP1PPP/RNBQKBNR w KQkq - 0 2", game.toFen(),
+                "The game goes on from the stored position");
+
+        ChessGame finished = gson.fromJson(ORIGINAL_GAME.replace("\"gameOver\":false", "\"gameOver\":true"),
+                ChessGame.class);
+        Assertions.assertTrue(finished.getGameOver());
+    }
+}
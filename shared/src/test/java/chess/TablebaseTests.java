@@ -0,0 +1,132 @@
+package chess;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+public class TablebaseTests {
+
+    private static Path directory;
+    private static Tablebase tablebase;
+
+    @BeforeAll
+    public static void generate() throws IOException {
+        directory = Files.createTempDirectory("tablebases");
+        TablebaseGenerator generator = new TablebaseGenerator(directory, ForkJoinPool.commonPool());
+        Assertions.assertEquals(List.of("KQvK", "KRvK", "KBvK", "KNvK", "KPvK"), generator.generate("KPvK"));
+        Assertions.assertEquals(List.of(), generator.generate("KvKQ"), "Tables already written are reused");
+        tablebase = Tablebase.open(directory);
+    }
+
+    @AfterAll
+    public static void cleanup() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @AfterEach
+    public void uninstall() {
+        Tablebase.install(null);
+    }
+
+    @Test
+    @DisplayName("Longest Mates Match Known Values")
+    public void longestMates() throws IOException {
+        Assertions.assertEquals(5, tablebase.size());
+        Assertions.assertEquals(19, longestWin("KQvK"), "King and queen mate in at most 10 moves");
+        Assertions.assertEquals(31, longestWin("KRvK"), "King and rook mate in at most 16 moves");
+        Assertions.assertEquals(55, longestWin("KPvK"), "King and pawn mate in at most 28 moves");
+        Assertions.assertEquals(0, longestWin("KNvK"));
+    }
+
+    @Test
+    @DisplayName("Positions Probe With Distance To Mate")
+    public void probe() {
+        Assertions.assertEquals(new Tablebase.Result(Tablebase.Outcome.WIN, 1),
+                tablebase.probe(ChessGame.fromFen("k7/8/1K6/8/8/8/8/6Q1 w - - 0 1")));
+        Assertions.assertEquals(new Tablebase.Result(Tablebase.Outcome.LOSS, 0),
+                tablebase.probe(ChessGame.fromFen("Q1k5/8/2K5/8/8/8/8/8 b - - 0 1")), "Checkmated");
+        Assertions.assertEquals(Tablebase.Outcome.WIN,
+                tablebase.probe(ChessGame.fromFen("4k3/8/4K3/4P3/8/8/8/8 w - - 0 1")).outcome());
+        Assertions.assertEquals(Tablebase.Outcome.LOSS,
+                tablebase.probe(ChessGame.fromFen("4k3/8/4K3/4P3/8/8/8/8 b - - 0 1")).outcome());
+        Assertions.assertEquals(Tablebase.Outcome.DRAW,
+                tablebase.probe(ChessGame.fromFen("8/8/8/8/8/4k3/4P3/4K3 w - - 0 1")).outcome(),
+                "The defending king in front of the pawn holds");
+    }
+
+    @Test
+    @DisplayName("Black Material Probes The Mirrored Table")
+    public void mirrored() {
+        Tablebase.Result white = tablebase.probe(ChessGame.fromFen("4k3/8/4K3/4P3/8/8/8/8 b - - 0 1"));
+        Tablebase.Result black = tablebase.probe(ChessGame.fromFen("8/8/8/8/4p3/4k3/8/4K3 w - - 0 1"));
+        Assertions.assertEquals(white, black);
+        Assertions.assertEquals(new Tablebase.Result(Tablebase.Outcome.WIN, 1),
+                tablebase.probe(ChessGame.fromFen("6q1/8/8/8/8/1k6/8/K7 b - - 0 1")));
+    }
+
+    @Test
+    @DisplayName("Positions Outside The Tables Are Not Probed")
+    public void notCovered() {
+        Assertions.assertNull(tablebase.probe(new ChessGame()));
+        Assertions.assertNull(tablebase.probe(ChessGame.fromFen("4k3/8/8/8/8/8/8/R3K3 w Q - 0 1")), "Castling rights");
+        Assertions.assertNull(tablebase.probe(ChessGame.fromFen("4k3/8/8/8/8/8/8/3QK2q w - - 0 1")), "No KQvKQ table");
+        Assertions.assertEquals(Tablebase.Outcome.DRAW,
+                tablebase.probe(ChessGame.fromFen("4k3/8/8/8/8/8/8/4K3 w - - 0 1")).outcome());
+    }
+
+    @Test
+    @DisplayName("Installed Tablebase Adjudicates After A Move")
+    public void adjudicates() throws InvalidMoveException {
+        ChessGame game = ChessGame.fromFen("4k3/8/3K4/4P3/8/8/8/8 w - - 0 1");
+        Assertions.assertEquals(ChessGame.GameStatus.ONGOING, game.getStatus());
+
+        Tablebase.install(tablebase);
+        game.makeMove(new ChessMove(new ChessPosition(6, 4), new ChessPosition(6, 5), null));
+        Assertions.assertEquals(ChessGame.GameStatus.TABLEBASE_LOSS, game.getStatus());
+        Assertions.assertTrue(game.getStatus().isGameOver());
+        Assertions.assertFalse(game.getStatus().isDraw());
+
+        ChessGame drawn = ChessGame.fromFen("k7/8/8/K7/P7/8/8/8 w - - 0 1");
+        Assertions.assertEquals(ChessGame.GameStatus.TABLEBASE_DRAW, drawn.getStatus());
+        Assertions.assertTrue(drawn.getStatus().isDraw());
+
+        ChessGame mated = ChessGame.fromFen("k7/8/1K6/8/8/8/8/6Q1 w - - 0 1");
+        mated.makeMove(new ChessMove(new ChessPosition(1, 7), new ChessPosition(8, 7), null));
+        Assertions.assertEquals(ChessGame.GameStatus.CHECKMATE, mated.getStatus(), "Checkmate comes first");
+    }
+
+    @Test
+    @DisplayName("Material Names Are Parsed And Ordered")
+    public void names() {
+        Assertions.assertEquals("KQvKR", Tablebase.canonical("KRvKQ"));
+        Assertions.assertEquals("KPvKP", Tablebase.canonical("KPvKP"));
+        Assertions.assertEquals(4, Tablebase.codes("KRvKP").length);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Tablebase.codes("KRQvK"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Tablebase.codes("KQRBvK"));
+        Assertions.assertEquals(35, TablebaseGenerator.allMaterial().size());
+    }
+
+    private static int longestWin(String material) throws IOException {
+        byte[] table = Files.readAllBytes(directory.resolve(material + Tablebase.EXTENSION));
+        int longest = 0;
+        for (int i = Tablebase.HEADER_BYTES; i < table.length; i++) {
+            longest = Math.max(longest, table[i]);
+        }
+        return longest;
+    }
+}
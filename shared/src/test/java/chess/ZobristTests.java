@@ -0,0 +1,59 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class ZobristTests {
+
+    @Test
+    @DisplayName("Incremental Key Matches Fresh Board")
+    public void incrementalKey() throws InvalidMoveException {
+        var game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        game.makeMove(new ChessMove(new ChessPosition(7, 4), new ChessPosition(5, 4), null));
+        game.makeMove(new ChessMove(new ChessPosition(4, 5), new ChessPosition(5, 4), null));
+
+        var rebuilt = new ChessBoard();
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                var position = new ChessPosition(row, col);
+                if (game.getBoard().getPiece(position) != null) {
+                    rebuilt.addPiece(position, game.getBoard().getPiece(position));
+                }
+            }
+        }
+        Assertions.assertEquals(rebuilt.getZobristKey(), game.getBoard().getZobristKey(),
+                "Key after moves differs from key of the same board built from scratch");
+    }
+
+    @Test
+    @DisplayName("Transpositions Share A Key")
+    public void transposition() throws InvalidMoveException {
+        var first = new ChessGame();
+        first.makeMove(new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null));
+        first.makeMove(new ChessMove(new ChessPosition(8, 7), new ChessPosition(6, 6), null));
+        first.makeMove(new ChessMove(new ChessPosition(1, 2), new ChessPosition(3, 3), null));
+
+        var second = new ChessGame();
+        second.makeMove(new ChessMove(new ChessPosition(1, 2), new ChessPosition(3, 3), null));
+        second.makeMove(new ChessMove(new ChessPosition(8, 7), new ChessPosition(6, 6), null));
+        second.makeMove(new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null));
+
+        Assertions.assertEquals(first.getZobristKey(), second.getZobristKey(),
+                "Same position reached by different move orders has different keys");
+    }
+
+    @Test
+    @DisplayName("Side To Move Changes Key")
+    public void sideToMove() {
+        var game = new ChessGame();
+        long whiteToMove = game.getZobristKey();
+        long boardKey = game.getBoard().getZobristKey();
+        game.setTeamTurn(ChessGame.TeamColor.BLACK);
+
+        Assertions.assertNotEquals(whiteToMove, game.getZobristKey(), "Side to move is not part of the key");
+        Assertions.assertEquals(boardKey, game.getBoard().getZobristKey(),
+                "Board key should not depend on the side to move");
+    }
+}
@@ -0,0 +1,95 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.InvalidMoveException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class EvaluationTests {
+
+    private static final String[] POSITIONS = {
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            "4k3/8/8/3P4/8/8/6PP/4K3 b - - 0 1",
+    };
+
+    @Test
+    @DisplayName("Start Position Is Level")
+    public void startPosition() {
+        Assertions.assertEquals(0, Evaluation.forWhite(new ChessGame()));
+        Assertions.assertEquals(24, new ChessGame().getBoard().getGamePhase());
+    }
+
+    @Test
+    @DisplayName("Mirrored Positions Score Opposite")
+    public void symmetry() {
+        for (String fen : POSITIONS) {
+            ChessGame game = ChessGame.fromFen(fen);
+            ChessGame mirrored = ChessGame.fromFen(mirror(fen));
+            Assertions.assertEquals(Evaluation.forWhite(game), -Evaluation.forWhite(mirrored), fen);
+            Assertions.assertEquals(Evaluation.evaluate(game), Evaluation.evaluate(mirrored), fen);
+        }
+    }
+
+    @Test
+    @DisplayName("Incremental Score Matches A Fresh Board")
+    public void incremental() throws InvalidMoveException {
+        for (String fen : POSITIONS) {
+            ChessGame game = ChessGame.fromFen(fen);
+            int before = Evaluation.forWhite(game);
+            for (int ply = 0; ply < 40; ply++) {
+                List<ChessMove> moves = new ArrayList<>(game.legalMoves(game.getTeamTurn()));
+                if (moves.isEmpty()) {
+                    break;
+                }
+                game.makeMove(moves.get((ply * 7) % moves.size()));
+                ChessGame fresh = ChessGame.fromFen(game.toFen());
+                Assertions.assertEquals(fresh.getBoard().getPositionalScore(), game.getBoard().getPositionalScore(),
+                        game.toFen());
+                Assertions.assertEquals(fresh.getBoard().getPawnKey(), game.getBoard().getPawnKey(), game.toFen());
+                Assertions.assertEquals(fresh.getBoard().getGamePhase(), game.getBoard().getGamePhase(), game.toFen());
+            }
+            ChessGame restored = ChessGame.fromFen(fen);
+            Assertions.assertEquals(before, Evaluation.forWhite(restored));
+        }
+    }
+
+    @Test
+    @DisplayName("Advanced Passed Pawn Is Worth More")
+    public void passedPawn() {
+        int blocked = Evaluation.forWhite(ChessGame.fromFen("4k3/2p5/8/2P5/8/8/8/4K3 w - - 0 1"));
+        int passed = Evaluation.forWhite(ChessGame.fromFen("4k3/2p5/8/4P3/8/8/8/4K3 w - - 0 1"));
+        int advanced = Evaluation.forWhite(ChessGame.fromFen("4k3/2p5/4P3/8/8/8/8/4K3 w - - 0 1"));
+        Assertions.assertTrue(passed > blocked, "Passed pawn should score above a blocked one");
+        Assertions.assertTrue(advanced > passed, "Passed pawn should gain value as it advances");
+    }
+
+    private static String mirror(String fen) {
+        String[] fields = fen.split(" ");
+        String[] ranks = fields[0].split("/");
+        StringBuilder placement = new StringBuilder();
+        for (int i = ranks.length - 1; i >= 0; i--) {
+            placement.append(swapCase(ranks[i]));
+            if (i > 0) {
+                placement.append('/');
+            }
+        }
+        String side = fields[1].equals("w") ? "b" : "w";
+        String castling = fields[2].equals("-") ? "-" : swapCase(fields[2]);
+        return String.join(" ", placement, side, castling, "-", fields[4], fields[5]);
+    }
+
+    private static String swapCase(String text) {
+        StringBuilder swapped = new StringBuilder(text.length());
+        for (char c : text.toCharArray()) {
+            swapped.append(Character.isUpperCase(c) ? Character.toLowerCase(c) : Character.toUpperCase(c));
+        }
+        return swapped.toString();
+    }
+}
@@ -0,0 +1,103 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+public class OpeningBookTests {
+
+    private static final String GAMES = """
+            [Result "1-0"]
+            1. e4 e5 2. Nf3 Nc6 1-0
+
+            [Result "1-0"]
+            1. e4 c5 2. Nf3 d6 1-0
+
+            [Result "1/2-1/2"]
+            1. e4 e5 2. Nf3 Nf6 1/2-1/2
+
+            [Result "0-1"]
+            1. d4 d5 2. c4 e6 0-1
+
+            [Result "1/2-1/2"]
+            1. d4 d5 2. Nf3 Nf6 1/2-1/2
+            """;
+
+    private static final ChessMove E4 = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+    private static final ChessMove D4 = new ChessMove(new ChessPosition(2, 4), new ChessPosition(4, 4), null);
+
+    private Path file;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        file = Files.createTempFile("opening", ".book");
+        OpeningBookBuilder builder = new OpeningBookBuilder(4, 1);
+        builder.addPgn(new StringReader(GAMES));
+        Assertions.assertEquals(5, builder.games());
+        builder.write(file);
+    }
+
+    @AfterEach
+    public void cleanup() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    @DisplayName("Book Moves Weighted By Results")
+    public void lookup() throws IOException {
+        OpeningBook book = OpeningBook.open(file);
+        List<OpeningBook.BookMove> moves = book.lookup(new ChessGame());
+
+        Assertions.assertEquals(2, moves.size());
+        Assertions.assertEquals(new OpeningBook.BookMove(E4, 5, 3), moves.get(0), "Two wins and a draw");
+        Assertions.assertEquals(new OpeningBook.BookMove(D4, 1, 2), moves.get(1), "A loss and a draw");
+
+        ChessGame afterE4 = new ChessGame();
+        afterE4.doMove(E4);
+        List<OpeningBook.BookMove> replies = book.lookup(afterE4);
+        Assertions.assertEquals(1, replies.size(), "Only the drawn e5 game scored for Black");
+        Assertions.assertEquals(1, replies.get(0).weight());
+
+        Assertions.assertTrue(book.lookup(ChessGame.fromFen("4k3/8/8/8/8/8/8/4K3 w - - 0 1")).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Search Plays From The Book")
+    public void searchUsesBook() throws IOException {
+        Search search = new Search();
+        search.setBook(OpeningBook.open(file));
+        SearchResult result = search.search(new ChessGame(), SearchLimits.depth(6));
+        Assertions.assertTrue(result.isBookMove());
+        Assertions.assertTrue(result.bestMove().equals(E4) || result.bestMove().equals(D4));
+        Assertions.assertEquals(0, result.nodes());
+
+        OpeningBook book = OpeningBook.open(file);
+        Random random = new Random(1);
+        int e4 = 0;
+        for (int i = 0; i < 600; i++) {
+            if (book.pick(new ChessGame(), random).equals(E4)) {
+                e4++;
+            }
+        }
+        Assertions.assertTrue(e4 > 400 && e4 < 600, "e4 should be picked about 5 times in 6, was " + e4);
+    }
+
+    @Test
+    @DisplayName("Files That Are Not Books Are Rejected")
+    public void badFile() throws IOException {
+        Files.writeString(file, "not a book at all");
+        Assertions.assertThrows(IOException.class, () -> OpeningBook.open(file));
+    }
+}
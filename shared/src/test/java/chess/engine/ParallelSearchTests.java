@@ -0,0 +1,46 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class ParallelSearchTests {
+
+    private static final int THREADS = Math.min(4, Runtime.getRuntime().availableProcessors());
+
+    @Test
+    @DisplayName("Threads Agree On Mate")
+    public void mateInOne() {
+        var game = ChessGame.fromFen("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+        try (var search = new ParallelSearch(THREADS, 4)) {
+            SearchResult result = search.search(game, SearchLimits.depth(4));
+
+            Assertions.assertEquals(new ChessMove(new ChessPosition(1, 1), new ChessPosition(8, 1), null),
+                    result.bestMove());
+            Assertions.assertEquals(1, result.mateIn());
+        }
+    }
+
+    @Test
+    @DisplayName("Reused Instance Searches Again")
+    public void reuse() {
+        try (var search = new ParallelSearch(THREADS, 4)) {
+            for (int i = 0; i < 3; i++) {
+                SearchResult result = search.search(new ChessGame(), SearchLimits.depth(4));
+                Assertions.assertNotNull(result.bestMove());
+                Assertions.assertEquals(4, result.depth());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Thread Count Is Checked")
+    public void threadCount() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new ParallelSearch(0, 4));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new ParallelSearch(Runtime.getRuntime().availableProcessors() + 1, 4));
+    }
+}
@@ -0,0 +1,133 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class SearchTests {
+
+    @Test
+    @DisplayName("Finds Mate In One")
+    public void mateInOne() {
+        var game = ChessGame.fromFen("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+        SearchResult result = new Search().search(game, SearchLimits.depth(3));
+
+        Assertions.assertEquals(new ChessMove(new ChessPosition(1, 1), new ChessPosition(8, 1), null),
+                result.bestMove());
+        Assertions.assertEquals(1, result.mateIn());
+    }
+
+    @Test
+    @DisplayName("Finds Mate In Two")
+    public void mateInTwo() {
+        var game = ChessGame.fromFen("r2qkb1r/pp2nppp/3p4/2pNN1B1/2BnP3/3P4/PPP2PPP/R2bK2R w KQkq - 1 1");
+        SearchResult result = new Search().search(game, SearchLimits.depth(5));
+
+        Assertions.assertTrue(result.isMate(), "No mate found");
+        Assertions.assertEquals(2, result.mateIn());
+        Assertions.assertEquals(3, result.principalVariation().size(), "Mating line should be three plies");
+    }
+
+    @Test
+    @DisplayName("Takes A Hanging Queen")
+    public void hangingQueen() {
+        var game = ChessGame.fromFen("4k3/8/8/3q4/8/8/3R4/4K3 w - - 0 1");
+        SearchResult result = new Search().search(game, SearchLimits.depth(4));
+
+        Assertions.assertEquals(new ChessMove(new ChessPosition(2, 4), new ChessPosition(5, 4), null),
+                result.bestMove());
+        Assertions.assertTrue(Math.abs(result.score() - Evaluation.value(ChessPiece.PieceType.ROOK)) < 100,
+                "Score " + result.score() + " should be about a rook");
+    }
+
+    @Test
+    @DisplayName("No Move When Mated")
+    public void noMoveWhenMated() {
+        var game = ChessGame.fromFen("R5k1/5ppp/8/8/8/8/8/6K1 b - - 0 1");
+        SearchResult result = new Search().search(game, SearchLimits.depth(3));
+
+        Assertions.assertNull(result.bestMove());
+        Assertions.assertTrue(result.isMate());
+    }
+
+    @Test
+    @DisplayName("Node Budget Is Respected")
+    public void nodeBudget() {
+        var game = new ChessGame();
+        SearchResult result = new Search().search(game, SearchLimits.nodes(5_000));
+
+        Assertions.assertNotNull(result.bestMove());
+        Assertions.assertTrue(result.nodes() <= 5_000, "Searched " + result.nodes() + " nodes");
+        Assertions.assertEquals(new ChessGame(), game, "Search changed the caller's game");
+    }
+
+    @Test
+    @DisplayName("Cut Short Search Is Not A Book Move")
+    public void cutShortSearch() {
+        SearchResult result = new Search().search(new ChessGame(), SearchLimits.nodes(1));
+
+        Assertions.assertNotNull(result.bestMove(), "A cut short search still picks a move");
+        Assertions.assertEquals(0, result.depth());
+        Assertions.assertFalse(result.isBookMove());
+    }
+
+    @Test
+    @DisplayName("Analysis Reports Distinct Lines Every Iteration")
+    public void multiPv() {
+        var game = ChessGame.fromFen("4k3/8/8/3q4/8/8/3R4/4K3 w - - 0 1");
+        List<List<SearchResult>> iterations = new ArrayList<>();
+        List<SearchResult> lines = new Search().analyze(game, SearchLimits.depth(4), 3, iterations::add);
+
+        Assertions.assertEquals(4, iterations.size(), "One update per iteration");
+        Assertions.assertEquals(lines, iterations.get(3));
+        Assertions.assertEquals(3, lines.size());
+        Assertions.assertEquals(new ChessMove(new ChessPosition(2, 4), new ChessPosition(5, 4), null),
+                lines.get(0).bestMove());
+        for (int i = 0; i < lines.size(); i++) {
+            Assertions.assertEquals(4, lines.get(i).depth());
+            Assertions.assertEquals(lines.get(i).bestMove(), lines.get(i).principalVariation().get(0));
+            if (i > 0) {
+                Assertions.assertTrue(lines.get(i).score() <= lines.get(i - 1).score(), "Lines are best first");
+                Assertions.assertNotEquals(lines.get(0).bestMove(), lines.get(i).bestMove());
+            }
+        }
+        Assertions.assertTrue(lines.get(1).score() < lines.get(0).score() - 500, "Only one move wins the queen");
+    }
+
+    @Test
+    @DisplayName("Analysis Has No More Lines Than Moves")
+    public void multiPvFewMoves() {
+        var game = ChessGame.fromFen("7k/8/8/8/8/8/1r6/K7 w - - 0 1");
+        List<SearchResult> lines = new Search().analyze(game, SearchLimits.depth(3), 5, iterations -> { });
+        Assertions.assertEquals(List.of(new ChessMove(new ChessPosition(1, 1), new ChessPosition(2, 2), null)),
+                lines.stream().map(SearchResult::bestMove).toList(), "Only capturing the rook is legal");
+
+        var mated = ChessGame.fromFen("R5k1/5ppp/8/8/8/8/8/6K1 b - - 0 1");
+        Assertions.assertEquals(List.of(), new Search().analyze(mated, SearchLimits.depth(3), 2, iterations -> { }));
+    }
+
+    @Test
+    @DisplayName("Cancelled Analysis Stops")
+    public void cancelledAnalysis() {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        List<List<SearchResult>> iterations = new ArrayList<>();
+        Search search = new Search();
+        List<SearchResult> lines = search.analyze(new ChessGame(), SearchLimits.depth(60), 3, update -> {
+            iterations.add(update);
+            cancelled.set(update.get(0).depth() == 3);
+        }, cancelled::get);
+        Assertions.assertEquals(3, iterations.size(), "The analysis stops during the iteration after the cancel");
+        Assertions.assertEquals(iterations.get(2), lines);
+
+        List<SearchResult> next = search.analyze(new ChessGame(), SearchLimits.depth(2), 1, update -> { });
+        Assertions.assertEquals(2, next.get(0).depth(), "The cancel does not carry over to the next analysis");
+    }
+}